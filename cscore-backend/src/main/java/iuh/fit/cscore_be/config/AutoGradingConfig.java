@@ -3,16 +3,18 @@ package iuh.fit.cscore_be.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
 
 /**
  * Configuration for auto-grading system
- * Enables async processing and configures thread pools
+ * Enables async processing, scheduled maintenance tasks and configures thread pools
  */
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class AutoGradingConfig {
     
     /**
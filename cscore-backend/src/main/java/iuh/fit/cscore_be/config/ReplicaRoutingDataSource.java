@@ -0,0 +1,106 @@
+package iuh.fit.cscore_be.config;
+
+import iuh.fit.cscore_be.service.ReplicaReadTracker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Routes read-only transactions to the read replica and everything else to the primary
+ * Must sit behind a LazyConnectionDataSourceProxy, so the connection is only chosen once the
+ * transaction's read-only flag is known. Falls back to the primary whenever the replica is
+ * down, lagging or the current user has just written (see {@link ReplicaReadTracker}).
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route { PRIMARY, REPLICA }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaReadTracker replicaReadTracker;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaReadTracker replicaReadTracker) {
+        this.primary = primary;
+        this.replica = replica;
+        this.replicaReadTracker = replicaReadTracker;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                replicaReadTracker.recordCurrentUserWrite();
+            }
+            return Route.PRIMARY;
+        }
+        return replicaReadTracker.canReadFromReplica() ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target != replica) {
+            return target.getConnection();
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException e) {
+            replicaReadTracker.markReplicaDown(e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * Reachability and replication lag of the replica; a replica that is not replicating
+     * (e.g. the primary itself under a second pool) counts as lag 0, one whose replication
+     * status cannot be read counts as down, since its lag is unknown
+     */
+    @Scheduled(fixedDelayString = "${datasource.replica.health-check-interval-ms:5000}", initialDelay = 0)
+    public void checkReplica() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            Long lagSeconds = replicationLagSeconds(statement);
+            if (lagSeconds == null) {
+                replicaReadTracker.markReplicaDown("replication is not running");
+            } else {
+                replicaReadTracker.updateReplicaStatus(true, lagSeconds * 1000);
+            }
+        } catch (SQLException e) {
+            replicaReadTracker.markReplicaDown(e.getMessage());
+        }
+    }
+
+    private Long replicationLagSeconds(Statement statement) throws SQLException {
+        String[][] variants = {
+                {"SHOW REPLICA STATUS", "Seconds_Behind_Source"},
+                {"SHOW SLAVE STATUS", "Seconds_Behind_Master"}
+        };
+        SQLException lastError = null;
+        for (String[] variant : variants) {
+            try (ResultSet status = statement.executeQuery(variant[0])) {
+                if (!status.next()) {
+                    return 0L;
+                }
+                long lag = status.getLong(variant[1]);
+                return status.wasNull() ? null : lag;
+            } catch (SQLException e) {
+                lastError = e;
+            }
+        }
+        // E.g. no REPLICATION CLIENT privilege: the lag is unknown, so the replica may be arbitrarily stale
+        log.warn("Could not read replication status of the read replica, reading from primary: {}",
+                lastError.getMessage());
+        throw new SQLException("replication status unreadable: " + lastError.getMessage(), lastError);
+    }
+}
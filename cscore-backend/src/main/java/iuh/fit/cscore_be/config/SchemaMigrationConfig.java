@@ -0,0 +1,41 @@
+package iuh.fit.cscore_be.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+/**
+ * Configuration for versioned schema migrations (Flyway, scripts in db/migration)
+ * Tables are still created by Hibernate (ddl-auto=update), so migrations run after the
+ * EntityManagerFactory has updated the schema instead of before it; on a fresh database
+ * the indexes would otherwise point at tables that do not exist yet.
+ * Existing databases without a history table are baselined at 1.0.0 (see application.properties).
+ */
+@Configuration
+@Slf4j
+public class SchemaMigrationConfig {
+
+    /**
+     * Boot's own initializer runs before JPA; leave it empty
+     */
+    @Bean
+    public FlywayMigrationStrategy deferredFlywayMigrationStrategy() {
+        return flyway -> { };
+    }
+
+    @Bean
+    @DependsOn("entityManagerFactory")
+    public InitializingBean schemaMigrations(Flyway flyway) {
+        return () -> {
+            MigrateResult result = flyway.migrate();
+            log.info("Schema at version {} ({} migrations applied)",
+                    result.targetSchemaVersion != null ? result.targetSchemaVersion : result.initialSchemaVersion,
+                    result.migrationsExecuted);
+        };
+    }
+}
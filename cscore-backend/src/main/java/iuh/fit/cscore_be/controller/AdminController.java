@@ -9,10 +9,13 @@ import iuh.fit.cscore_be.dto.response.CourseResponse;
 import iuh.fit.cscore_be.dto.response.DetailedCourseResponse;
 import iuh.fit.cscore_be.dto.response.StudentResponse;
 import iuh.fit.cscore_be.dto.response.MessageResponse;
+import iuh.fit.cscore_be.dto.response.CacheStatisticsResponse;
+import iuh.fit.cscore_be.dto.response.CursorPageResponse;
 import iuh.fit.cscore_be.enums.Role;
 import iuh.fit.cscore_be.service.AuthService;
 import iuh.fit.cscore_be.service.UserService;
 import iuh.fit.cscore_be.service.AdminCourseManagementService;
+import iuh.fit.cscore_be.service.CacheStatisticsService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -36,6 +39,7 @@ public class AdminController {
     private final AuthService authService;
     private final UserService userService;
     private final AdminCourseManagementService courseManagementService;
+    private final CacheStatisticsService cacheStatisticsService;
     
     @GetMapping("/dashboard")
     @PreAuthorize("hasRole('ADMIN')")
@@ -106,6 +110,15 @@ public class AdminController {
         return ResponseEntity.ok(students);
     }
     
+    @GetMapping("/students/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPageResponse<UserResponse>> getStudentsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(userService.getUsersByRole(Role.STUDENT, cursor, size, includeTotal));
+    }
+    
     // ============ TEACHER MANAGEMENT APIs ============
     
     @GetMapping("/teachers")
@@ -124,6 +137,15 @@ public class AdminController {
         return ResponseEntity.ok(teachers);
     }
     
+    @GetMapping("/teachers/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPageResponse<UserResponse>> getTeachersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(userService.getUsersByRole(Role.TEACHER, cursor, size, includeTotal));
+    }
+    
     // ============ SEARCH APIs ============
     
     @GetMapping("/users/search")
@@ -230,4 +252,10 @@ public class AdminController {
         UserService.UserStatsResponse stats = userService.getUserStats();
         return ResponseEntity.ok(stats);
     }
+    
+    @GetMapping("/stats/cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CacheStatisticsResponse> getCacheStats() {
+        return ResponseEntity.ok(cacheStatisticsService.getCacheStatistics());
+    }
 }
@@ -1,18 +1,23 @@
 package iuh.fit.cscore_be.controller;
 
 import iuh.fit.cscore_be.dto.response.EnhancedAutoGradingResponse;
+import iuh.fit.cscore_be.dto.response.RegradeJobItemResponse;
+import iuh.fit.cscore_be.dto.response.RegradeJobResponse;
 import iuh.fit.cscore_be.entity.User;
 import iuh.fit.cscore_be.security.UserPrincipal;
 import iuh.fit.cscore_be.service.AutoGradingService;
+import iuh.fit.cscore_be.service.RegradeJobService;
 import iuh.fit.cscore_be.service.SubmissionService;
 import iuh.fit.cscore_be.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -28,6 +33,7 @@ public class EnhancedGradingController {
 
     private final AutoGradingService autoGradingService;
     private final SubmissionService submissionService;
+    private final RegradeJobService regradeJobService;
     private final UserService userService;
 
     /**
@@ -102,30 +108,49 @@ public class EnhancedGradingController {
     }
 
     /**
-     * Batch re-grade multiple submissions using enhanced algorithm
+     * Batch re-grade multiple submissions using enhanced algorithm.
+     * Runs as a background job on the bounded regrade workers; the returned job id is the batch id.
      */
     @PostMapping("/batch-grade")
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
-    public ResponseEntity<String> batchGradeSubmissions(
+    public ResponseEntity<RegradeJobResponse> batchGradeSubmissions(
             @RequestBody BatchGradingRequest request,
             @AuthenticationPrincipal UserPrincipal userPrincipal) {
         
-        try {
-            User user = userService.findById(userPrincipal.getId());
-            log.info("Teacher {} started batch enhanced grading for {} submissions", 
-                    user.getUsername(), request.getSubmissionIds().size());
-            
-            for (Long submissionId : request.getSubmissionIds()) {
-                autoGradingService.gradeSubmissionEnhanced(submissionId);
-            }
-            
-            return ResponseEntity.ok("Batch enhanced grading started for " + 
-                    request.getSubmissionIds().size() + " submissions.");
-            
-        } catch (Exception e) {
-            log.error("Error in batch enhanced grading", e);
-            return ResponseEntity.badRequest().body("Error starting batch grading: " + e.getMessage());
-        }
+        User user = userService.findById(userPrincipal.getId());
+        log.info("Teacher {} started batch enhanced grading for {} submissions (forceRegrade={})", 
+                user.getUsername(), request.getSubmissionIds() != null ? request.getSubmissionIds().size() : 0,
+                request.isForceRegrade());
+        
+        RegradeJobResponse batch = regradeJobService.startBatchGrading(
+                request.getSubmissionIds(), request.isForceRegrade(), user);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(batch);
+    }
+
+    /**
+     * Progress of a batch grading job
+     */
+    @GetMapping("/batch-grade/{batchId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    public ResponseEntity<RegradeJobResponse> getBatchStatus(
+            @PathVariable Long batchId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        
+        User user = userService.findById(userPrincipal.getId());
+        return ResponseEntity.ok(regradeJobService.getJob(batchId, user));
+    }
+
+    /**
+     * Per-submission outcomes of a batch grading job
+     */
+    @GetMapping("/batch-grade/{batchId}/results")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    public ResponseEntity<List<RegradeJobItemResponse>> getBatchResults(
+            @PathVariable Long batchId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        
+        User user = userService.findById(userPrincipal.getId());
+        return ResponseEntity.ok(regradeJobService.getJobItems(batchId, user));
     }
 
     // Helper methods and DTOs
@@ -3,6 +3,7 @@ package iuh.fit.cscore_be.controller;
 import iuh.fit.cscore_be.dto.request.CreateNotificationRequest;
 import iuh.fit.cscore_be.dto.request.DeleteNotificationRequest;
 import iuh.fit.cscore_be.dto.request.MarkNotificationRequest;
+import iuh.fit.cscore_be.dto.response.CursorPageResponse;
 import iuh.fit.cscore_be.dto.response.NotificationPageResponse;
 import iuh.fit.cscore_be.dto.response.NotificationResponse;
 import iuh.fit.cscore_be.dto.response.NotificationStatsResponse;
@@ -61,6 +62,29 @@ public class NotificationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Get notifications for current user with optional filters, paged by cursor
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageResponse<NotificationResponse>> getNotificationsByCursor(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @RequestParam(value = "isRead", required = false) Boolean isRead,
+            @RequestParam(value = "type", required = false) NotificationType type,
+            @RequestParam(value = "category", required = false) NotificationCategory category,
+            @RequestParam(value = "dateFrom", required = false) 
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateFrom,
+            @RequestParam(value = "dateTo", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateTo,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal) {
+        
+        User currentUser = getCurrentUser(userPrincipal);
+        return ResponseEntity.ok(notificationService.getNotifications(
+                currentUser, isRead, type, category, dateFrom, dateTo, cursor, size, includeTotal
+        ));
+    }
+
     /**
      * Get notification statistics for current user
      */
@@ -2,6 +2,7 @@ package iuh.fit.cscore_be.controller;
 
 import iuh.fit.cscore_be.dto.request.QuestionCodeCheckRequest;
 import iuh.fit.cscore_be.dto.response.CodeExecutionResponse;
+import iuh.fit.cscore_be.exception.ExecutionCapacityException;
 import iuh.fit.cscore_be.service.AutoGradingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -44,6 +45,8 @@ public class StudentCodeController {
             
             return ResponseEntity.ok(result);
             
+        } catch (ExecutionCapacityException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error running question code", e);
             
@@ -74,12 +77,14 @@ public class StudentCodeController {
                 request.getQuestionId(), 
                 request.getCode(), 
                 request.getLanguage(),
-                studentId,
-                request.getInput()  
+                request.getInput(),
+                studentId
             );
             
             return ResponseEntity.ok(result);
             
+        } catch (ExecutionCapacityException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error checking question code", e);
             
@@ -133,6 +138,8 @@ public class StudentCodeController {
             
             return ResponseEntity.ok(result);
             
+        } catch (ExecutionCapacityException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error submitting question answer", e);
             
@@ -4,13 +4,16 @@ import iuh.fit.cscore_be.dto.request.AssignmentRequest;
 import iuh.fit.cscore_be.dto.request.CodeValidationRequest;
 import iuh.fit.cscore_be.dto.request.CreateAssignmentRequest;
 import iuh.fit.cscore_be.dto.request.CourseRequest;
+import iuh.fit.cscore_be.dto.request.ExecutionQuotaRequest;
 import iuh.fit.cscore_be.dto.request.TestCaseRequest;
 import iuh.fit.cscore_be.dto.response.TestCaseResponse;
 import iuh.fit.cscore_be.dto.response.*;
 import iuh.fit.cscore_be.entity.TestCase;
 import iuh.fit.cscore_be.entity.User;
 import iuh.fit.cscore_be.enums.ProgrammingLanguage;
+import iuh.fit.cscore_be.enums.RegradeMode;
 import iuh.fit.cscore_be.security.UserPrincipal;
+import iuh.fit.cscore_be.exception.ExecutionCapacityException;
 import iuh.fit.cscore_be.service.*;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -47,6 +50,9 @@ public class TeacherController {
     private final AutoGradingService autoGradingService;
     private final CodeExecutionService codeExecutionService;
     private final SectionService sectionService;
+    private final ExecutionFairScheduler executionFairScheduler;
+    private final RegradeJobService regradeJobService;
+    private final SubmissionHistoryService submissionHistoryService;
     
     // ======================== DASHBOARD ========================
     
@@ -96,6 +102,17 @@ public class TeacherController {
         return ResponseEntity.ok(course);
     }
     
+    @PutMapping("/courses/{courseId}/execution-quota")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<CourseResponse> updateExecutionQuota(
+            @PathVariable Long courseId,
+            @Valid @RequestBody ExecutionQuotaRequest request,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        User teacher = userService.findById(userPrincipal.getId());
+        CourseResponse course = courseService.updateExecutionQuota(courseId, request, teacher);
+        return ResponseEntity.ok(course);
+    }
+    
     // ======================== STUDENT MANAGEMENT ========================
     // Note: Teachers can only view students in their courses, not add/remove them
     // Only Admin can add/remove students from courses
@@ -288,6 +305,18 @@ public class TeacherController {
         return ResponseEntity.ok(submissions);
     }
     
+    @GetMapping("/submissions/cursor")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<CursorPageResponse<SubmissionResponse>> getSubmissionsByCursor(
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        
+        User teacher = userService.findById(userPrincipal.getId());
+        return ResponseEntity.ok(submissionService.getSubmissionsByTeacher(teacher, cursor, size, includeTotal));
+    }
+    
     @GetMapping("/assignments/{assignmentId}/submissions")
     @PreAuthorize("hasRole('TEACHER')")
     public ResponseEntity<List<SubmissionResponse>> getSubmissionsByAssignment(
@@ -316,6 +345,36 @@ public class TeacherController {
         return ResponseEntity.ok(submission);
     }
     
+    @GetMapping("/submissions/{submissionId}/history")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<List<SubmissionVersionResponse>> getSubmissionHistory(
+            @PathVariable Long submissionId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        User teacher = userService.findById(userPrincipal.getId());
+        return ResponseEntity.ok(submissionHistoryService.getHistory(submissionId, teacher));
+    }
+    
+    @GetMapping("/submissions/{submissionId}/history/{version}")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<SubmissionVersionResponse> getSubmissionVersion(
+            @PathVariable Long submissionId,
+            @PathVariable Integer version,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        User teacher = userService.findById(userPrincipal.getId());
+        return ResponseEntity.ok(submissionHistoryService.getVersion(submissionId, version, teacher));
+    }
+    
+    @GetMapping("/submissions/{submissionId}/history/diff")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<SubmissionDiffResponse> diffSubmissionVersions(
+            @PathVariable Long submissionId,
+            @RequestParam Integer from,
+            @RequestParam Integer to,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        User teacher = userService.findById(userPrincipal.getId());
+        return ResponseEntity.ok(submissionHistoryService.diff(submissionId, from, to, teacher));
+    }
+    
     @PostMapping("/submissions/{submissionId}/grade")
     @PreAuthorize("hasRole('TEACHER')")
     public ResponseEntity<MessageResponse> gradeSubmission(
@@ -344,17 +403,58 @@ public class TeacherController {
     
     @PostMapping("/assignments/{assignmentId}/regrade")
     @PreAuthorize("hasRole('TEACHER')")
-    public ResponseEntity<MessageResponse> regradeAssignment(
+    public ResponseEntity<RegradeJobResponse> regradeAssignment(
             @PathVariable Long assignmentId,
+            @RequestParam(defaultValue = "FULL") RegradeMode mode,
             @AuthenticationPrincipal UserPrincipal userPrincipal) {
         User teacher = userService.findById(userPrincipal.getId());
-        
-        try {
-            autoGradingService.regradeAssignment(assignmentId);
-            return ResponseEntity.ok(new MessageResponse("Đã khởi tạo quá trình chấm lại điểm cho tất cả bài nộp"));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(new MessageResponse("Lỗi khi chấm lại điểm: " + e.getMessage()));
-        }
+        RegradeJobResponse job = regradeJobService.startAssignmentRegrade(assignmentId, mode, teacher);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+    
+    @GetMapping("/assignments/{assignmentId}/regrade-jobs")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<List<RegradeJobResponse>> getRegradeJobs(
+            @PathVariable Long assignmentId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        User teacher = userService.findById(userPrincipal.getId());
+        return ResponseEntity.ok(regradeJobService.getJobsByAssignment(assignmentId, teacher));
+    }
+    
+    @GetMapping("/regrade-jobs/{jobId}")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<RegradeJobResponse> getRegradeJob(
+            @PathVariable Long jobId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        User teacher = userService.findById(userPrincipal.getId());
+        return ResponseEntity.ok(regradeJobService.getJob(jobId, teacher));
+    }
+    
+    @PostMapping("/regrade-jobs/{jobId}/pause")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<RegradeJobResponse> pauseRegradeJob(
+            @PathVariable Long jobId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        User teacher = userService.findById(userPrincipal.getId());
+        return ResponseEntity.ok(regradeJobService.pauseJob(jobId, teacher));
+    }
+    
+    @PostMapping("/regrade-jobs/{jobId}/resume")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<RegradeJobResponse> resumeRegradeJob(
+            @PathVariable Long jobId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        User teacher = userService.findById(userPrincipal.getId());
+        return ResponseEntity.ok(regradeJobService.resumeJob(jobId, teacher));
+    }
+    
+    @PostMapping("/regrade-jobs/{jobId}/cancel")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<RegradeJobResponse> cancelRegradeJob(
+            @PathVariable Long jobId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        User teacher = userService.findById(userPrincipal.getId());
+        return ResponseEntity.ok(regradeJobService.cancelJob(jobId, teacher));
     }
     
     @GetMapping("/assignments/{assignmentId}/grading-stats")
@@ -398,6 +498,12 @@ public class TeacherController {
         }
     }
     
+    @GetMapping("/system/execution-queue")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<Map<String, Object>> getExecutionQueue() {
+        return ResponseEntity.ok(executionFairScheduler.getQueueStats());
+    }
+    
         @GetMapping("/system/supported-languages")
     @PreAuthorize("hasRole('TEACHER')")
     public ResponseEntity<Set<ProgrammingLanguage>> getSupportedLanguages() {
@@ -415,7 +521,8 @@ public class TeacherController {
     @PostMapping("/system/test-compilation")
     @PreAuthorize("hasRole('TEACHER')")
     public ResponseEntity<Map<String, Object>> testCompilation(
-            @RequestBody TestCompilationRequest request) {
+            @RequestBody TestCompilationRequest request,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
         
         Map<String, Object> result = new HashMap<>();
         
@@ -430,7 +537,8 @@ public class TeacherController {
                 }
                 """;
             
-            CodeExecutionResponse response = codeExecutionService.executeCode(testCode, "c");
+            CodeExecutionResponse response = codeExecutionService.executeCode(testCode, "c",
+                    ExecutionFairScheduler.Tenant.staff(userPrincipal.getUsername(), null));
             
             result.put("success", response.isSuccess());
             result.put("output", response.getOutput());
@@ -440,6 +548,8 @@ public class TeacherController {
             
             return ResponseEntity.ok(result);
             
+        } catch (ExecutionCapacityException e) {
+            throw e;
         } catch (Exception e) {
             result.put("success", false);
             result.put("error", "Test compilation failed: " + e.getMessage());
@@ -480,7 +590,8 @@ public class TeacherController {
             var result = codeExecutionService.executeCodeWithInput(
                     request.getCode(), 
                     request.getLanguage(), 
-                    request.getInput()
+                    request.getInput(),
+                    ExecutionFairScheduler.Tenant.staff(userPrincipal.getUsername(), null)
             );
             long duration = System.currentTimeMillis() - startTime;
             
@@ -498,6 +609,8 @@ public class TeacherController {
             
             return ResponseEntity.ok(response);
             
+        } catch (ExecutionCapacityException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error validating teacher's code", e);
             
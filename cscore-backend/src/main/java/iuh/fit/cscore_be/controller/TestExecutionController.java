@@ -1,10 +1,15 @@
 package iuh.fit.cscore_be.controller;
 
+import iuh.fit.cscore_be.exception.ExecutionCapacityException;
+import iuh.fit.cscore_be.security.UserPrincipal;
 import iuh.fit.cscore_be.service.CodeExecutionService;
+import iuh.fit.cscore_be.service.ExecutionFairScheduler;
+import iuh.fit.cscore_be.service.JavaLaunchService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -18,6 +23,7 @@ import java.util.Map;
 public class TestExecutionController {
 
     private final CodeExecutionService codeExecutionService;
+    private final JavaLaunchService javaLaunchService;
 
     /**
      * Get current execution status and configuration
@@ -39,12 +45,14 @@ public class TestExecutionController {
      */
     @PostMapping("/test")
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
-    public ResponseEntity<Map<String, Object>> testExecution(@RequestBody TestExecutionRequest request) {
+    public ResponseEntity<Map<String, Object>> testExecution(@RequestBody TestExecutionRequest request,
+                                                             @AuthenticationPrincipal UserPrincipal userPrincipal) {
         try {
             log.info("Testing code execution with language: {}", request.getLanguage());
             
             long startTime = System.currentTimeMillis();
-            var result = codeExecutionService.executeCode(request.getCode(), request.getLanguage());
+            var result = codeExecutionService.executeCode(request.getCode(), request.getLanguage(),
+                    ExecutionFairScheduler.Tenant.staff(userPrincipal.getUsername(), null));
             long duration = System.currentTimeMillis() - startTime;
             
             Map<String, Object> response = new HashMap<>();
@@ -58,6 +66,8 @@ public class TestExecutionController {
             
             return ResponseEntity.ok(response);
             
+        } catch (ExecutionCapacityException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error testing code execution", e);
             
@@ -74,7 +84,8 @@ public class TestExecutionController {
      */
     @PostMapping("/test-with-input")
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
-    public ResponseEntity<Map<String, Object>> testExecutionWithInput(@RequestBody TestExecutionWithInputRequest request) {
+    public ResponseEntity<Map<String, Object>> testExecutionWithInput(@RequestBody TestExecutionWithInputRequest request,
+                                                                      @AuthenticationPrincipal UserPrincipal userPrincipal) {
         try {
             log.info("Testing code execution with input for language: {}", request.getLanguage());
             
@@ -82,7 +93,8 @@ public class TestExecutionController {
             var result = codeExecutionService.executeCodeWithInput(
                     request.getCode(), 
                     request.getLanguage(), 
-                    request.getInput()
+                    request.getInput(),
+                    ExecutionFairScheduler.Tenant.staff(userPrincipal.getUsername(), null)
             );
             long duration = System.currentTimeMillis() - startTime;
             
@@ -98,6 +110,8 @@ public class TestExecutionController {
             
             return ResponseEntity.ok(response);
             
+        } catch (ExecutionCapacityException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error testing code execution with input", e);
             
@@ -109,6 +123,16 @@ public class TestExecutionController {
         }
     }
 
+    /**
+     * Rebuild the class data sharing archive, e.g. after a JDK upgrade
+     */
+    @PostMapping("/java-launch-archive")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildJavaLaunchArchive() {
+        javaLaunchService.buildSharedArchive();
+        return ResponseEntity.ok(javaLaunchService.getStatistics());
+    }
+
     // Request DTOs
     public static class TestExecutionRequest {
         private String code;
@@ -0,0 +1,23 @@
+package iuh.fit.cscore_be.dto.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionQuotaRequest {
+    
+    // Relative share of execution slots for the course (null = system default)
+    @Min(value = 1, message = "Trọng số phải lớn hơn 0")
+    @Max(value = 100, message = "Trọng số không được vượt quá 100")
+    private Integer executionWeight;
+    
+    // Maximum concurrent executions per student in the course (null = system default)
+    @Min(value = 1, message = "Hạn mức mỗi sinh viên phải lớn hơn 0")
+    @Max(value = 10, message = "Hạn mức mỗi sinh viên không được vượt quá 10")
+    private Integer studentExecutionQuota;
+}
@@ -0,0 +1,36 @@
+package iuh.fit.cscore_be.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatisticsResponse {
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    private double hitRatio;
+    private long queryCacheHitCount;
+    private long queryCacheMissCount;
+    private double queryCacheHitRatio;
+    private List<RegionStatistics> regions;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RegionStatistics {
+        private String region;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+        private double hitRatio;
+        private Long elementsInMemory; // null when the cache provider does not report it
+    }
+}
@@ -0,0 +1,20 @@
+package iuh.fit.cscore_be.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> items;
+    private String nextCursor;   // pass back as "cursor" for the next page; null on the last page
+    private boolean hasNext;
+    private int pageSize;
+    private Long totalCount;     // only set when requested with includeTotal=true
+}
@@ -0,0 +1,22 @@
+package iuh.fit.cscore_be.dto.response;
+
+import iuh.fit.cscore_be.enums.RegradeItemStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegradeJobItemResponse {
+    private Long submissionId;
+    private RegradeItemStatus status;
+    private Double score;
+    private String errorMessage;
+    private Long sharedFromSubmissionId; // set when the result was copied from an identical submission
+    private LocalDateTime processedAt;
+}
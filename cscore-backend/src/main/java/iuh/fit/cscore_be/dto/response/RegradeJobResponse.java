@@ -0,0 +1,35 @@
+package iuh.fit.cscore_be.dto.response;
+
+import iuh.fit.cscore_be.enums.RegradeJobStatus;
+import iuh.fit.cscore_be.enums.RegradeJobType;
+import iuh.fit.cscore_be.enums.RegradeMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegradeJobResponse {
+    private Long id;
+    private RegradeJobType type;
+    private Long assignmentId;          // null for batch jobs
+    private String assignmentTitle;
+    private RegradeJobStatus status;
+    private RegradeMode mode;
+    private int totalItems;
+    private int completedItems;
+    private int failedItems;
+    private int skippedItems;
+    private int pendingItems;
+    private double progressPercent;
+    private Double throughputPerMinute; // submissions per minute in the current run
+    private Long etaSeconds;            // null when not running
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,19 @@
+package iuh.fit.cscore_be.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionDiffResponse {
+    private Long submissionId;
+    private Integer fromVersion;
+    private Integer toVersion;
+    private Integer linesAdded;
+    private Integer linesRemoved;
+    private String unifiedDiff;
+}
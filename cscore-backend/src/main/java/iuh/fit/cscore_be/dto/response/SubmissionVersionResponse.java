@@ -0,0 +1,22 @@
+package iuh.fit.cscore_be.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionVersionResponse {
+    private Integer versionNumber;
+    private Long submissionId;
+    private String programmingLanguage;
+    private Integer linesAdded;   // against the previous version
+    private Integer linesRemoved;
+    private LocalDateTime createdAt;
+    private String code;          // only set when a single version is requested
+}
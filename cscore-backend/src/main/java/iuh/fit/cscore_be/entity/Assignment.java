@@ -7,6 +7,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -16,11 +18,24 @@ import java.util.HashSet;
 
 @Entity
 @Table(name = "assignments")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedEntityGraph(
+    name = Assignment.GRAPH_CONTENT,
+    attributeNodes = {
+        @NamedAttributeNode(value = "course", subgraph = "course"),
+        @NamedAttributeNode("section"),
+        @NamedAttributeNode("questions")
+    },
+    subgraphs = @NamedSubgraph(name = "course", attributeNodes = @NamedAttributeNode("teacher"))
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Assignment {
     
+    // Course (with teacher), section and questions; test cases and options are loaded separately
+    public static final String GRAPH_CONTENT = "Assignment.content";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -69,6 +84,10 @@ public class Assignment {
     @Column(name = "auto_grade")
     private Boolean autoGrade = true;
     
+    // Bumped on every edit of grading data; keys the in-memory grading snapshot
+    @Column(name = "revision")
+    private Long revision = 0L;
+    
     @ElementCollection(targetClass = ProgrammingLanguage.class)
     @Enumerated(EnumType.STRING)
     @CollectionTable(
@@ -76,10 +95,12 @@ public class Assignment {
         joinColumns = @JoinColumn(name = "assignment_id")
     )
     @Column(name = "programming_language")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<ProgrammingLanguage> programmingLanguages = new HashSet<>();
     
-    @OneToMany(mappedBy = "assignment", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "assignment", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Question> questions = new ArrayList<>();
     
     @OneToMany(mappedBy = "assignment", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
@@ -92,6 +113,10 @@ public class Assignment {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    public long getRevisionOrDefault() {
+        return revision != null ? revision : 0L;
+    }
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,36 @@
+package iuh.fit.cscore_be.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Deflate-compressed text stored once per SHA-256 of its content.
+ * Read and written through ContentBlobStore; entities only keep the hash.
+ * created_at is refreshed whenever the text is stored again; ContentBlobCollector deletes
+ * blobs that are unreferenced and older than its grace period.
+ */
+@Entity
+@Table(name = "content_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentBlob {
+    
+    @Id
+    @Column(length = 64)
+    private String hash;
+    
+    @Lob
+    @Column(nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] data;
+    
+    @Column(name = "original_size", nullable = false)
+    private Integer originalSize;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
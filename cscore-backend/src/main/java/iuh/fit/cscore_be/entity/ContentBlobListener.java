@@ -0,0 +1,41 @@
+package iuh.fit.cscore_be.entity;
+
+import iuh.fit.cscore_be.service.ContentBlobStore;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Content Blob Listener
+ * Connects entities that keep large text as a content blob hash to the blob store:
+ * - Before insert and update, the text set on the entity is stored in the caller's transaction
+ * - After load, the entity gets the store's loader, so the text is read on first access
+ * - Created by Hibernate through Spring, so the store is injected instead of looked up statically
+ */
+@Component
+@RequiredArgsConstructor
+public class ContentBlobListener {
+
+    private final ContentBlobStore contentBlobStore;
+
+    @PrePersist
+    @PreUpdate
+    void storeContent(Object entity) {
+        if (entity instanceof Submission submission) {
+            contentBlobStore.storeAll(submission.contentToStore());
+        } else if (entity instanceof TestResult testResult) {
+            contentBlobStore.storeAll(testResult.contentToStore());
+        }
+    }
+
+    @PostLoad
+    void attachLoader(Object entity) {
+        if (entity instanceof Submission submission) {
+            submission.loadContentWith(contentBlobStore::load);
+        } else if (entity instanceof TestResult testResult) {
+            testResult.loadContentWith(contentBlobStore::load);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package iuh.fit.cscore_be.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -9,6 +11,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "courses")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Course {
     
     @Id
@@ -42,6 +45,13 @@ public class Course {
     @Column(name = "is_active")
     private Boolean isActive = true;
     
+    // Fair-share execution quota (null = system default)
+    @Column(name = "execution_weight")
+    private Integer executionWeight;
+    
+    @Column(name = "student_execution_quota")
+    private Integer studentExecutionQuota;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id", nullable = false)
     @JsonIgnore
@@ -164,6 +174,22 @@ public class Course {
         this.isActive = isActive;
     }
     
+    public Integer getExecutionWeight() {
+        return executionWeight;
+    }
+    
+    public void setExecutionWeight(Integer executionWeight) {
+        this.executionWeight = executionWeight;
+    }
+    
+    public Integer getStudentExecutionQuota() {
+        return studentExecutionQuota;
+    }
+    
+    public void setStudentExecutionQuota(Integer studentExecutionQuota) {
+        this.studentExecutionQuota = studentExecutionQuota;
+    }
+    
     public User getTeacher() {
         return teacher;
     }
@@ -29,6 +29,13 @@ public class QuestionSubmission {
     @Column(columnDefinition = "TEXT")
     private String code;
     
+    // Normalized code fingerprint and grading-setup fingerprint; unchanged answers are not re-executed
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
+    @Column(name = "test_set_hash", length = 64)
+    private String testSetHash;
+    
     @Column(name = "programming_language", length = 50)
     private String programmingLanguage;
     
@@ -0,0 +1,63 @@
+package iuh.fit.cscore_be.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import iuh.fit.cscore_be.enums.RegradeJobStatus;
+import iuh.fit.cscore_be.enums.RegradeJobType;
+import iuh.fit.cscore_be.enums.RegradeMode;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "regrade_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegradeJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "assignment_id")
+    @JsonIgnore
+    private Assignment assignment; // null for batch jobs spanning several assignments
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "requested_by")
+    @JsonIgnore
+    private User requestedBy;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_type")
+    private RegradeJobType type = RegradeJobType.ASSIGNMENT;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RegradeJobStatus status = RegradeJobStatus.QUEUED;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RegradeMode mode = RegradeMode.FULL;
+    
+    @Column(name = "total_items")
+    private Integer totalItems = 0;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,51 @@
+package iuh.fit.cscore_be.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import iuh.fit.cscore_be.enums.RegradeItemStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint of one submission inside a regrade job
+ */
+@Entity
+@Table(name = "regrade_job_items",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"job_id", "submission_id"}),
+       indexes = @Index(name = "idx_regrade_item_job_status", columnList = "job_id, status"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegradeJobItem {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "job_id", nullable = false)
+    @JsonIgnore
+    private RegradeJob job;
+    
+    @Column(name = "submission_id", nullable = false)
+    private Long submissionId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RegradeItemStatus status = RegradeItemStatus.PENDING;
+    
+    private Double score;
+    
+    // Set when the result was copied from an identical submission instead of executed
+    @Column(name = "shared_from_submission_id")
+    private Long sharedFromSubmissionId;
+    
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+    
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
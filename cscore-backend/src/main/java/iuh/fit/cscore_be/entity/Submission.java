@@ -2,17 +2,19 @@ package iuh.fit.cscore_be.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import iuh.fit.cscore_be.enums.SubmissionStatus;
+import iuh.fit.cscore_be.service.ContentBlobStore;
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.*;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 
 @Entity
 @Table(name = "submissions")
+@EntityListeners(ContentBlobListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -48,7 +50,20 @@ public class Submission {
     private LocalDateTime submissionTime;
     
     // Programming-specific fields
-    @Column(columnDefinition = "LONGTEXT")
+    // Source code is kept in the content blob store and loaded on first access;
+    // rows written before the blob store keep it inline until ContentBlobMigrator moves it
+    @Column(name = "code", columnDefinition = "LONGTEXT")
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @JsonIgnore
+    private String inlineCode;
+    
+    @Column(name = "code_hash", length = 64)
+    private String codeHash;
+    
+    @Transient
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private String code;
     
     @Column(name = "programming_language")
@@ -70,9 +85,29 @@ public class Submission {
     @Column(name = "graded_time")
     private LocalDateTime gradedTime;
     
-    @Column(columnDefinition = "TEXT")
+    @Column(name = "grading_details", columnDefinition = "TEXT")
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @JsonIgnore
+    private String inlineGradingDetails;
+    
+    @Column(name = "grading_details_hash", length = 64)
+    private String gradingDetailsHash;
+    
+    @Transient
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private String gradingDetails;
     
+    // Set by ContentBlobListener after load
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @JsonIgnore
+    private Function<String, String> contentLoader;
+    
     @OneToMany(mappedBy = "submission", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private List<TestResult> testResults = new ArrayList<>();
@@ -85,4 +120,48 @@ public class Submission {
     protected void onCreate() {
         submissionTime = LocalDateTime.now();
     }
+    
+    List<String> contentToStore() {
+        return Arrays.asList(code, gradingDetails);
+    }
+    
+    void loadContentWith(Function<String, String> contentLoader) {
+        this.contentLoader = contentLoader;
+    }
+    
+    private String loadContent(String inline, String hash) {
+        if (inline != null || hash == null) {
+            return inline;
+        }
+        if (contentLoader == null) {
+            throw new IllegalStateException("Submission " + id + " was not loaded through the persistence context");
+        }
+        return contentLoader.apply(hash);
+    }
+    
+    public String getCode() {
+        if (code == null) {
+            code = loadContent(inlineCode, codeHash);
+        }
+        return code;
+    }
+    
+    public void setCode(String code) {
+        this.code = code;
+        this.codeHash = ContentBlobStore.hash(code);
+        this.inlineCode = null;
+    }
+    
+    public String getGradingDetails() {
+        if (gradingDetails == null) {
+            gradingDetails = loadContent(inlineGradingDetails, gradingDetailsHash);
+        }
+        return gradingDetails;
+    }
+    
+    public void setGradingDetails(String gradingDetails) {
+        this.gradingDetails = gradingDetails;
+        this.gradingDetailsHash = ContentBlobStore.hash(gradingDetails);
+        this.inlineGradingDetails = null;
+    }
 }
@@ -0,0 +1,62 @@
+package iuh.fit.cscore_be.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One code revision in the append-only history of a student's work on an assignment.
+ * The payload (in the content blob store) is either the full code (snapshot) or a
+ * line delta against the previous version.
+ */
+@Entity
+@Table(name = "submission_versions",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"assignment_id", "student_id", "version_number"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionVersion {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "assignment_id", nullable = false)
+    private Long assignmentId;
+    
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+    
+    @Column(name = "version_number", nullable = false)
+    private Integer versionNumber;
+    
+    // Submission row the revision was saved to
+    @Column(name = "submission_id")
+    private Long submissionId;
+    
+    @Column(name = "is_snapshot", nullable = false)
+    private Boolean snapshot;
+    
+    // Full code for snapshots, encoded line delta otherwise
+    @Column(name = "payload_hash", nullable = false, length = 64)
+    private String payloadHash;
+    
+    // Hash of the full code of this version, used to verify reconstruction and skip unchanged resubmissions
+    @Column(name = "code_hash", nullable = false, length = 64)
+    private String codeHash;
+    
+    @Column(name = "programming_language", length = 50)
+    private String programmingLanguage;
+    
+    @Column(name = "lines_added")
+    private Integer linesAdded;
+    
+    @Column(name = "lines_removed")
+    private Integer linesRemoved;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -5,9 +5,12 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "test_cases")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -42,4 +45,31 @@ public class TestCase {
     
     @Column(name = "memory_limit")
     private Integer memoryLimit = 128; // MB
+    
+    // Bumped on every edit; stored on TestResult to detect stale results
+    @Column(name = "version")
+    private Integer version = 1;
+    
+    // Bumped only when the program run changes (input, test code, limits)
+    @Column(name = "execution_version")
+    private Integer executionVersion = 1;
+    
+    public int getVersionOrDefault() {
+        return version != null ? version : 1;
+    }
+    
+    public int getExecutionVersionOrDefault() {
+        return executionVersion != null ? executionVersion : 1;
+    }
+    
+    /**
+     * Record an edit. Results of an edit that does not change the run
+     * (expected output, weight, visibility) can be recompared without executing.
+     */
+    public void markEdited(boolean executionChanged) {
+        version = getVersionOrDefault() + 1;
+        if (executionChanged) {
+            executionVersion = getExecutionVersionOrDefault() + 1;
+        }
+    }
 }
@@ -1,20 +1,32 @@
 package iuh.fit.cscore_be.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import iuh.fit.cscore_be.service.ContentBlobStore;
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
 
 @Entity
 @Table(name = "test_results")
+@EntityListeners(ContentBlobListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class TestResult {
     
+    public static final String ID_GENERATOR_TABLE = "id_generators";
+    public static final String ID_GENERATOR_SEGMENT = "test_results";
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
+    // Pooled table ids (not IDENTITY) so inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "test_result_id")
+    @TableGenerator(name = "test_result_id", table = ID_GENERATOR_TABLE,
+            pkColumnName = "sequence_name", valueColumnName = "next_val",
+            pkColumnValue = ID_GENERATOR_SEGMENT, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -32,9 +44,30 @@ public class TestResult {
     @JsonIgnore
     private Submission submission;
     
+    // Output is kept in the content blob store and loaded on first access;
+    // rows written before the blob store keep it inline until ContentBlobMigrator moves it
     @Column(name = "actual_output", columnDefinition = "TEXT")
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private String inlineActualOutput;
+    
+    @Column(name = "actual_output_hash", length = 64)
+    private String actualOutputHash;
+    
+    @Transient
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private String actualOutput;
     
+    // Set by ContentBlobListener after load
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @JsonIgnore
+    private Function<String, String> contentLoader;
+    
     @Column(name = "is_passed")
     private Boolean isPassed;
     
@@ -47,6 +80,44 @@ public class TestResult {
     @Column(columnDefinition = "TEXT")
     private String errorMessage;
     
+    // TestCase versions this result was produced against
+    @Column(name = "test_case_version")
+    private Integer testCaseVersion;
+    
+    @Column(name = "test_case_execution_version")
+    private Integer testCaseExecutionVersion;
+    
+    List<String> contentToStore() {
+        return Collections.singletonList(actualOutput);
+    }
+    
+    void loadContentWith(Function<String, String> contentLoader) {
+        this.contentLoader = contentLoader;
+    }
+    
+    public String getActualOutput() {
+        if (actualOutput == null) {
+            actualOutput = loadContent(inlineActualOutput, actualOutputHash);
+        }
+        return actualOutput;
+    }
+    
+    private String loadContent(String inline, String hash) {
+        if (inline != null || hash == null) {
+            return inline;
+        }
+        if (contentLoader == null) {
+            throw new IllegalStateException("TestResult " + id + " was not loaded through the persistence context");
+        }
+        return contentLoader.apply(hash);
+    }
+    
+    public void setActualOutput(String actualOutput) {
+        this.actualOutput = actualOutput;
+        this.actualOutputHash = ContentBlobStore.hash(actualOutput);
+        this.inlineActualOutput = null;
+    }
+    
     // Alias method for compatibility
     public void setPassed(boolean passed) {
         this.isPassed = passed;
@@ -0,0 +1,8 @@
+package iuh.fit.cscore_be.enums;
+
+public enum RegradeItemStatus {
+    PENDING,    // Chưa chấm lại
+    DONE,       // Đã chấm lại
+    FAILED,     // Chấm lại thất bại
+    SKIPPED     // Bỏ qua vì đã được chấm
+}
@@ -0,0 +1,9 @@
+package iuh.fit.cscore_be.enums;
+
+public enum RegradeJobStatus {
+    QUEUED,     // Đã tạo, chờ xử lý
+    RUNNING,    // Đang chấm lại
+    PAUSED,     // Tạm dừng, có thể tiếp tục
+    CANCELLED,  // Đã hủy
+    COMPLETED   // Hoàn thành
+}
@@ -0,0 +1,6 @@
+package iuh.fit.cscore_be.enums;
+
+public enum RegradeJobType {
+    ASSIGNMENT, // Chấm lại toàn bộ bài nộp của một bài tập
+    BATCH       // Chấm hàng loạt theo danh sách bài nộp
+}
@@ -0,0 +1,6 @@
+package iuh.fit.cscore_be.enums;
+
+public enum RegradeMode {
+    FULL,       // Chạy lại toàn bộ test case
+    DELTA       // Chỉ chạy test case mới hoặc đã thay đổi
+}
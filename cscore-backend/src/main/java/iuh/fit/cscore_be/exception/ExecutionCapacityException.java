@@ -0,0 +1,28 @@
+package iuh.fit.cscore_be.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Code execution refused for lack of capacity; answered with the status and a Retry-After header:
+ * - 429 Too Many Requests: the caller's own backlog is full
+ * - 503 Service Unavailable: the system could not grant a slot in time
+ */
+public class ExecutionCapacityException extends RuntimeException {
+    
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+    
+    public ExecutionCapacityException(String message, HttpStatus status, long retryAfterSeconds) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public HttpStatus getStatus() {
+        return status;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
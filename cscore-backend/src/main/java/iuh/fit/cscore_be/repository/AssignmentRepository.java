@@ -3,21 +3,50 @@ package iuh.fit.cscore_be.repository;
 import iuh.fit.cscore_be.entity.Assignment;
 import iuh.fit.cscore_be.entity.Course;
 import iuh.fit.cscore_be.enums.AssignmentType;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     
+    @Query("SELECT COALESCE(a.revision, 0) FROM Assignment a WHERE a.id = :id")
+    Optional<Long> findRevisionById(@Param("id") Long id);
+    
+    @EntityGraph(Assignment.GRAPH_CONTENT)
+    Optional<Assignment> findWithContentById(Long id);
+    
+    // Serializes starting regrade jobs for one assignment
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Assignment a WHERE a.id = :id")
+    Optional<Assignment> lockById(@Param("id") Long id);
+    
+    // Fetch plans: initialize a collection on assignments already loaded in this persistence context
+    @Query("SELECT DISTINCT a FROM Assignment a LEFT JOIN FETCH a.questions WHERE a IN :assignments")
+    List<Assignment> fetchQuestions(@Param("assignments") Collection<Assignment> assignments);
+    
+    @Query("SELECT DISTINCT a FROM Assignment a LEFT JOIN FETCH a.programmingLanguages WHERE a IN :assignments")
+    List<Assignment> fetchProgrammingLanguages(@Param("assignments") Collection<Assignment> assignments);
+    
+    Long countByCourseInAndIsActiveTrue(Collection<Course> courses);
+    
     List<Assignment> findByCourseAndIsActiveTrue(Course course);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Assignment> findByCourseAndIsActiveTrueOrderByCreatedAtDesc(Course course);
     
     Page<Assignment> findByCourseAndIsActiveTrue(Course course, Pageable pageable);
@@ -41,11 +70,13 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     Long countPendingSubmissionsByAssignment(@Param("assignment") Assignment assignment);
     
     // New methods for teacher assignment management
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Assignment> findByCourseInAndIsActiveTrueOrderByCreatedAtDesc(List<Course> courses);
     
     Page<Assignment> findByCourseInAndIsActiveTrue(List<Course> courses, Pageable pageable);
     
     // Methods for enhanced functionality
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Assignment> findByCourseIdAndIsActiveTrue(Long courseId);
     
     @Query("SELECT a FROM Assignment a WHERE a.course.id = :courseId AND a.isActive = true ORDER BY a.createdAt DESC")
@@ -5,6 +5,7 @@ import iuh.fit.cscore_be.entity.Course;
 import iuh.fit.cscore_be.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -18,6 +19,7 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     
     List<Enrollment> findByCourseAndIsActiveTrue(Course course);
     
+    @EntityGraph(attributePaths = {"course", "course.teacher"})
     List<Enrollment> findByStudentAndIsActiveTrue(User student);
     
     List<Enrollment> findByCourseOrderByEnrollmentDateDesc(Course course);
@@ -4,6 +4,7 @@ import iuh.fit.cscore_be.entity.Notification;
 import iuh.fit.cscore_be.entity.User;
 import iuh.fit.cscore_be.enums.NotificationCategory;
 import iuh.fit.cscore_be.enums.NotificationType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -45,6 +46,59 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
             Pageable pageable
     );
     
+    // Keyset pages of the filtered list, ordered by (createdAt, id) descending; no count query
+    @Query("SELECT n FROM Notification n WHERE n.user = :user " +
+           "AND (:isRead IS NULL OR n.isRead = :isRead) " +
+           "AND (:type IS NULL OR n.type = :type) " +
+           "AND (:category IS NULL OR n.category = :category) " +
+           "AND (:dateFrom IS NULL OR n.createdAt >= :dateFrom) " +
+           "AND (:dateTo IS NULL OR n.createdAt <= :dateTo) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findByUserWithFiltersKeyset(
+            @Param("user") User user,
+            @Param("isRead") Boolean isRead,
+            @Param("type") NotificationType type,
+            @Param("category") NotificationCategory category,
+            @Param("dateFrom") LocalDateTime dateFrom,
+            @Param("dateTo") LocalDateTime dateTo,
+            Limit limit
+    );
+    
+    @Query("SELECT n FROM Notification n WHERE n.user = :user " +
+           "AND (:isRead IS NULL OR n.isRead = :isRead) " +
+           "AND (:type IS NULL OR n.type = :type) " +
+           "AND (:category IS NULL OR n.category = :category) " +
+           "AND (:dateFrom IS NULL OR n.createdAt >= :dateFrom) " +
+           "AND (:dateTo IS NULL OR n.createdAt <= :dateTo) " +
+           "AND (n.createdAt < :time OR (n.createdAt = :time AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findByUserWithFiltersKeysetAfter(
+            @Param("user") User user,
+            @Param("isRead") Boolean isRead,
+            @Param("type") NotificationType type,
+            @Param("category") NotificationCategory category,
+            @Param("dateFrom") LocalDateTime dateFrom,
+            @Param("dateTo") LocalDateTime dateTo,
+            @Param("time") LocalDateTime time,
+            @Param("id") Long id,
+            Limit limit
+    );
+    
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.user = :user " +
+           "AND (:isRead IS NULL OR n.isRead = :isRead) " +
+           "AND (:type IS NULL OR n.type = :type) " +
+           "AND (:category IS NULL OR n.category = :category) " +
+           "AND (:dateFrom IS NULL OR n.createdAt >= :dateFrom) " +
+           "AND (:dateTo IS NULL OR n.createdAt <= :dateTo)")
+    long countByUserWithFilters(
+            @Param("user") User user,
+            @Param("isRead") Boolean isRead,
+            @Param("type") NotificationType type,
+            @Param("category") NotificationCategory category,
+            @Param("dateFrom") LocalDateTime dateFrom,
+            @Param("dateTo") LocalDateTime dateTo
+    );
+    
     // Count notifications by user and date range
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.user = :user " +
            "AND n.createdAt >= :startDate AND n.createdAt <= :endDate")
@@ -2,7 +2,10 @@ package iuh.fit.cscore_be.repository;
 
 import iuh.fit.cscore_be.entity.Question;
 import iuh.fit.cscore_be.entity.QuestionOption;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,8 +13,10 @@ import java.util.List;
 @Repository
 public interface QuestionOptionRepository extends JpaRepository<QuestionOption, Long> {
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<QuestionOption> findByQuestionOrderByOptionOrderAsc(Question question);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<QuestionOption> findByQuestionIdOrderByOptionOrderAsc(Long questionId);
     
     void deleteByQuestionId(Long questionId);
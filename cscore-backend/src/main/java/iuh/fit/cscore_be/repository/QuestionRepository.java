@@ -2,22 +2,39 @@ package iuh.fit.cscore_be.repository;
 
 import iuh.fit.cscore_be.entity.Assignment;
 import iuh.fit.cscore_be.entity.Question;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface QuestionRepository extends JpaRepository<Question, Long> {
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Question> findByAssignmentOrderByOrderIndexAsc(Assignment assignment);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Question> findByAssignmentIdOrderByOrderIndexAsc(Long assignmentId);
     
     @Query("SELECT COUNT(q) FROM Question q WHERE q.assignment.id = :assignmentId")
     Long countByAssignmentId(@Param("assignmentId") Long assignmentId);
     
+    // Pairs of [assignment id, question count]
+    @Query("SELECT q.assignment.id, COUNT(q) FROM Question q WHERE q.assignment.id IN :assignmentIds GROUP BY q.assignment.id")
+    List<Object[]> countByAssignmentIds(@Param("assignmentIds") Collection<Long> assignmentIds);
+    
+    // Fetch plans: initialize a collection on questions already loaded in this persistence context
+    @Query("SELECT DISTINCT q FROM Question q LEFT JOIN FETCH q.testCases WHERE q IN :questions")
+    List<Question> fetchTestCases(@Param("questions") Collection<Question> questions);
+    
+    @Query("SELECT DISTINCT q FROM Question q LEFT JOIN FETCH q.questionOptions WHERE q IN :questions")
+    List<Question> fetchQuestionOptions(@Param("questions") Collection<Question> questions);
+    
     void deleteByAssignmentId(Long assignmentId);
 }
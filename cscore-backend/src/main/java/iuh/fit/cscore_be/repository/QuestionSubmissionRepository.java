@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +19,8 @@ public interface QuestionSubmissionRepository extends JpaRepository<QuestionSubm
     
     List<QuestionSubmission> findBySubmissionId(Long submissionId);
     
+    List<QuestionSubmission> findBySubmissionIdIn(Collection<Long> submissionIds);
+    
     List<QuestionSubmission> findBySubmissionIdOrderByQuestionOrderIndexAsc(Long submissionId);
     
     Optional<QuestionSubmission> findBySubmissionAndQuestion(Submission submission, Question question);
@@ -31,6 +34,12 @@ public interface QuestionSubmissionRepository extends JpaRepository<QuestionSubm
     @Query("SELECT qs FROM QuestionSubmission qs WHERE qs.submission.id = :submissionId AND qs.question.questionType = 'PROGRAMMING'")
     List<QuestionSubmission> findProgrammingQuestionsBySubmissionId(@Param("submissionId") Long submissionId);
     
+    // Newest first, only rows that were graded with content hashes
+    @Query("SELECT qs FROM QuestionSubmission qs WHERE qs.student.id = :studentId AND qs.question.id IN :questionIds " +
+           "AND qs.contentHash IS NOT NULL AND qs.testSetHash IS NOT NULL ORDER BY qs.gradedTime DESC, qs.id DESC")
+    List<QuestionSubmission> findGradedByStudentAndQuestions(@Param("studentId") Long studentId,
+                                                             @Param("questionIds") List<Long> questionIds);
+    
     @Query("SELECT COUNT(qs) FROM QuestionSubmission qs WHERE qs.submission.id = :submissionId")
     long countBySubmissionId(@Param("submissionId") Long submissionId);
     
@@ -0,0 +1,25 @@
+package iuh.fit.cscore_be.repository;
+
+import iuh.fit.cscore_be.entity.RegradeJobItem;
+import iuh.fit.cscore_be.enums.RegradeItemStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RegradeJobItemRepository extends JpaRepository<RegradeJobItem, Long> {
+    
+    // Pairs of [item id, submission id]
+    @Query("SELECT i.id, i.submissionId FROM RegradeJobItem i WHERE i.job.id = :jobId AND i.status = :status ORDER BY i.id")
+    List<Object[]> findItemSubmissionIdsByJobIdAndStatus(@Param("jobId") Long jobId, @Param("status") RegradeItemStatus status);
+    
+    List<RegradeJobItem> findByJobIdOrderById(Long jobId);
+    
+    long countByJobIdAndStatus(Long jobId, RegradeItemStatus status);
+    
+    @Query("SELECT i.status, COUNT(i) FROM RegradeJobItem i WHERE i.job.id = :jobId GROUP BY i.status")
+    List<Object[]> countByJobIdGroupByStatus(@Param("jobId") Long jobId);
+}
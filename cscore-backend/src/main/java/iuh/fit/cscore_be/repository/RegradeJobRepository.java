@@ -0,0 +1,25 @@
+package iuh.fit.cscore_be.repository;
+
+import iuh.fit.cscore_be.entity.RegradeJob;
+import iuh.fit.cscore_be.enums.RegradeJobStatus;
+import iuh.fit.cscore_be.enums.RegradeJobType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RegradeJobRepository extends JpaRepository<RegradeJob, Long> {
+    
+    List<RegradeJob> findByStatusIn(List<RegradeJobStatus> statuses);
+    
+    List<RegradeJob> findByAssignmentIdOrderByCreatedAtDesc(Long assignmentId);
+    
+    long countByTypeAndStatusIn(RegradeJobType type, List<RegradeJobStatus> statuses);
+    
+    @Query("SELECT COUNT(j) > 0 FROM RegradeJob j WHERE j.assignment.id = :assignmentId AND j.status IN :statuses")
+    boolean existsByAssignmentIdAndStatusIn(@Param("assignmentId") Long assignmentId, 
+                                            @Param("statuses") List<RegradeJobStatus> statuses);
+}
@@ -2,7 +2,10 @@ package iuh.fit.cscore_be.repository;
 
 import iuh.fit.cscore_be.entity.Course;
 import iuh.fit.cscore_be.entity.Section;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,8 +13,10 @@ import java.util.List;
 @Repository
 public interface SectionRepository extends JpaRepository<Section, Long> {
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Section> findByCourseOrderByOrderIndexAsc(Course course);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Section> findByCourseIdOrderByOrderIndexAsc(Long courseId);
     
     void deleteByCourseId(Long courseId);
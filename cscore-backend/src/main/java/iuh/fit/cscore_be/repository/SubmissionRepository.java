@@ -4,19 +4,37 @@ import iuh.fit.cscore_be.entity.Submission;
 import iuh.fit.cscore_be.entity.Assignment;
 import iuh.fit.cscore_be.entity.User;
 import iuh.fit.cscore_be.enums.SubmissionStatus;
+import iuh.fit.cscore_be.repository.projection.SubmissionStats;
+import iuh.fit.cscore_be.repository.projection.SubmissionSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     
+    String SUMMARY_SELECT = "SELECT s.id AS id, a.id AS assignmentId, a.title AS assignmentTitle, " +
+            "st.fullName AS studentName, st.studentId AS studentCode, s.programmingLanguage AS programmingLanguage, " +
+            "s.status AS status, s.score AS score, s.executionTime AS executionTime, s.memoryUsed AS memoryUsed, " +
+            "s.submissionTime AS submissionTime, s.gradedTime AS gradedTime " +
+            "FROM Submission s JOIN s.assignment a JOIN s.student st ";
+    
+    String STATS_SELECT = "SELECT COUNT(s) AS total, " +
+            "SUM(CASE WHEN s.status = 'GRADED' THEN 1 ELSE 0 END) AS graded, " +
+            "COUNT(s.score) AS scored, AVG(s.score) AS averageScore, MAX(s.score) AS maxScore, MIN(s.score) AS minScore " +
+            "FROM Submission s ";
+    
     List<Submission> findByAssignment(Assignment assignment);
     
     Page<Submission> findByAssignment(Assignment assignment, Pageable pageable);
@@ -33,6 +51,22 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     
     List<Submission> findByAssignmentId(Long assignmentId);
     
+    @Query("SELECT s.id FROM Submission s WHERE s.assignment.id = :assignmentId ORDER BY s.id")
+    List<Long> findIdsByAssignmentId(@Param("assignmentId") Long assignmentId);
+    
+    // Rows of [id, course teacher id, status, score, graded time], used to plan batch grading
+    @Query("SELECT s.id, s.assignment.course.teacher.id, s.status, s.score, s.gradedTime FROM Submission s WHERE s.id IN :ids")
+    List<Object[]> findGradingStateByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Serializes writers of a submission's question rows (grading and the progress buffer)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Submission s WHERE s.id IN :ids ORDER BY s.id")
+    List<Submission> lockByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Rows of [id, inline code, code hash, programming language, assignment id], used to group identical submissions
+    @Query("SELECT s.id, s.inlineCode, s.codeHash, s.programmingLanguage, s.assignment.id FROM Submission s WHERE s.id IN :ids")
+    List<Object[]> findCodeByIdIn(@Param("ids") Collection<Long> ids);
+    
     Page<Submission> findByAssignmentId(Long assignmentId, Pageable pageable);
     
     List<Submission> findByStatusIn(List<SubmissionStatus> statuses);
@@ -88,4 +122,62 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     
     @Query("SELECT AVG(s.score) FROM Submission s WHERE s.assignment.course.teacher = :teacher AND s.score IS NOT NULL")
     Double calculateAverageScoreByTeacher(@Param("teacher") User teacher);
+    
+    // Summary projections for lists and dashboards: never load code, feedback or grading details
+    @Query(SUMMARY_SELECT + "WHERE a.course.teacher = :teacher ORDER BY s.submissionTime DESC")
+    List<SubmissionSummary> findSummariesByTeacher(@Param("teacher") User teacher);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE a.course.teacher = :teacher",
+           countQuery = "SELECT COUNT(s) FROM Submission s WHERE s.assignment.course.teacher = :teacher")
+    Page<SubmissionSummary> findSummariesByTeacher(@Param("teacher") User teacher, Pageable pageable);
+    
+    // Keyset pages ordered by (submissionTime, id) descending; no count query
+    @Query(SUMMARY_SELECT + "WHERE a.course.teacher = :teacher ORDER BY s.submissionTime DESC, s.id DESC")
+    List<SubmissionSummary> findSummariesByTeacherKeyset(@Param("teacher") User teacher, Limit limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE a.course.teacher = :teacher " +
+           "AND (s.submissionTime < :time OR (s.submissionTime = :time AND s.id < :id)) " +
+           "ORDER BY s.submissionTime DESC, s.id DESC")
+    List<SubmissionSummary> findSummariesByTeacherKeysetAfter(@Param("teacher") User teacher,
+                                                              @Param("time") LocalDateTime time,
+                                                              @Param("id") Long id,
+                                                              Limit limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE a.course.teacher = :teacher AND s.status = :status ORDER BY s.submissionTime DESC")
+    List<SubmissionSummary> findSummariesByTeacherAndStatus(@Param("teacher") User teacher,
+                                                           @Param("status") SubmissionStatus status);
+    
+    @Query(SUMMARY_SELECT + "WHERE a.course.teacher = :teacher AND s.status = :status ORDER BY s.submissionTime DESC")
+    List<SubmissionSummary> findSummariesByTeacherAndStatus(@Param("teacher") User teacher,
+                                                           @Param("status") SubmissionStatus status,
+                                                           Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE a = :assignment ORDER BY s.submissionTime DESC")
+    List<SubmissionSummary> findSummariesByAssignment(@Param("assignment") Assignment assignment);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE a = :assignment",
+           countQuery = "SELECT COUNT(s) FROM Submission s WHERE s.assignment = :assignment")
+    Page<SubmissionSummary> findSummariesByAssignment(@Param("assignment") Assignment assignment, Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE s.student = :student ORDER BY s.submissionTime DESC")
+    List<SubmissionSummary> findSummariesByStudent(@Param("student") User student, Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE s.student = :student AND a.id IN :assignmentIds")
+    List<SubmissionSummary> findSummariesByStudentAndAssignmentIds(@Param("student") User student,
+                                                                   @Param("assignmentIds") Collection<Long> assignmentIds);
+    
+    @Query(SUMMARY_SELECT + "ORDER BY s.submissionTime DESC")
+    List<SubmissionSummary> findRecentSummaries(Pageable pageable);
+    
+    @Query(STATS_SELECT + "WHERE s.student = :student")
+    SubmissionStats getStatsByStudent(@Param("student") User student);
+    
+    @Query(STATS_SELECT + "WHERE s.assignment.course.teacher = :teacher")
+    SubmissionStats getStatsByTeacher(@Param("teacher") User teacher);
+    
+    @Query(STATS_SELECT + "WHERE s.assignment = :assignment")
+    SubmissionStats getStatsByAssignment(@Param("assignment") Assignment assignment);
+    
+    @Query(STATS_SELECT)
+    SubmissionStats getStats();
 }
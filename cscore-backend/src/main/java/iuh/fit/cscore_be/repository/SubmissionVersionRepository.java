@@ -0,0 +1,28 @@
+package iuh.fit.cscore_be.repository;
+
+import iuh.fit.cscore_be.entity.SubmissionVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SubmissionVersionRepository extends JpaRepository<SubmissionVersion, Long> {
+    
+    List<SubmissionVersion> findByAssignmentIdAndStudentIdOrderByVersionNumberAsc(Long assignmentId, Long studentId);
+    
+    Optional<SubmissionVersion> findTopByAssignmentIdAndStudentIdOrderByVersionNumberDesc(Long assignmentId, Long studentId);
+    
+    // Latest snapshot at or before a version: reconstruction starts there
+    @Query("SELECT MAX(v.versionNumber) FROM SubmissionVersion v WHERE v.assignmentId = :assignmentId " +
+           "AND v.studentId = :studentId AND v.snapshot = true AND v.versionNumber <= :versionNumber")
+    Optional<Integer> findSnapshotVersionAtOrBefore(@Param("assignmentId") Long assignmentId,
+                                                    @Param("studentId") Long studentId,
+                                                    @Param("versionNumber") Integer versionNumber);
+    
+    List<SubmissionVersion> findByAssignmentIdAndStudentIdAndVersionNumberBetweenOrderByVersionNumberAsc(
+            Long assignmentId, Long studentId, Integer fromVersion, Integer toVersion);
+}
@@ -2,19 +2,33 @@ package iuh.fit.cscore_be.repository;
 
 import iuh.fit.cscore_be.entity.TestCase;
 import iuh.fit.cscore_be.entity.Question;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface TestCaseRepository extends JpaRepository<TestCase, Long> {
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<TestCase> findByQuestion(Question question);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<TestCase> findByQuestionAndIsHiddenFalse(Question question);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<TestCase> findByQuestionAndIsHiddenTrue(Question question);
     
     Long countByQuestion(Question question);
+    
+    // Pairs of [assignment id, test cases over all its questions]
+    @Query("SELECT tc.question.assignment.id, COUNT(tc) FROM TestCase tc WHERE tc.question.assignment.id IN :assignmentIds " +
+           "GROUP BY tc.question.assignment.id")
+    List<Object[]> countByAssignmentIds(@Param("assignmentIds") Collection<Long> assignmentIds);
 }
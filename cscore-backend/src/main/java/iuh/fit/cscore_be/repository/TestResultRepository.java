@@ -4,8 +4,12 @@ import iuh.fit.cscore_be.entity.TestResult;
 import iuh.fit.cscore_be.entity.Submission;
 import iuh.fit.cscore_be.entity.TestCase;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -24,4 +28,13 @@ public interface TestResultRepository extends JpaRepository<TestResult, Long> {
     Long countBySubmissionAndIsPassed(Submission submission, Boolean isPassed);
     
     void deleteBySubmissionId(Long submissionId);
+    
+    @Modifying
+    @Query("DELETE FROM TestResult tr WHERE tr.questionSubmission.id IN :questionSubmissionIds")
+    int deleteByQuestionSubmissionIdIn(@Param("questionSubmissionIds") Collection<Long> questionSubmissionIds);
+    
+    // Pairs of [submission id, passed test results]
+    @Query("SELECT tr.submission.id, COUNT(tr) FROM TestResult tr WHERE tr.submission.id IN :submissionIds " +
+           "AND tr.isPassed = true GROUP BY tr.submission.id")
+    List<Object[]> countPassedBySubmissionIds(@Param("submissionIds") Collection<Long> submissionIds);
 }
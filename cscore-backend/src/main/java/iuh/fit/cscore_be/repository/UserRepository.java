@@ -2,12 +2,15 @@ package iuh.fit.cscore_be.repository;
 
 import iuh.fit.cscore_be.entity.User;
 import iuh.fit.cscore_be.enums.Role;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -46,6 +49,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     List<User> findByRoleOrderByCreatedAtDesc(Role role);
     
+    // Keyset pages ordered by (createdAt, id) descending; no count query
+    List<User> findByRoleOrderByCreatedAtDescIdDesc(Role role, Limit limit);
+    
+    @Query("SELECT u FROM User u WHERE u.role = :role " +
+           "AND (u.createdAt < :time OR (u.createdAt = :time AND u.id < :id)) " +
+           "ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findByRoleKeysetAfter(@Param("role") Role role,
+                                     @Param("time") LocalDateTime time,
+                                     @Param("id") Long id,
+                                     Limit limit);
+    
     // Kiểm tra tồn tại theo role
     Boolean existsByRole(Role role);
     
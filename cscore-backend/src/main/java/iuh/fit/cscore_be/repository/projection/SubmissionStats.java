@@ -0,0 +1,37 @@
+package iuh.fit.cscore_be.repository.projection;
+
+/**
+ * Aggregate counts and scores over a set of submissions, computed in the database
+ */
+public interface SubmissionStats {
+    
+    Long getTotal();
+    
+    // Submissions with status GRADED
+    Long getGraded();
+    
+    // Submissions that have a score
+    Long getScored();
+    
+    Double getAverageScore();
+    
+    Double getMaxScore();
+    
+    Double getMinScore();
+    
+    default long totalOrZero() {
+        return getTotal() != null ? getTotal() : 0L;
+    }
+    
+    default long gradedOrZero() {
+        return getGraded() != null ? getGraded() : 0L;
+    }
+    
+    default long scoredOrZero() {
+        return getScored() != null ? getScored() : 0L;
+    }
+    
+    default double averageScoreOrZero() {
+        return getAverageScore() != null ? getAverageScore() : 0.0;
+    }
+}
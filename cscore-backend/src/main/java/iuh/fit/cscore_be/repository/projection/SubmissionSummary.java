@@ -0,0 +1,36 @@
+package iuh.fit.cscore_be.repository.projection;
+
+import iuh.fit.cscore_be.enums.SubmissionStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * List view of a submission: no code, feedback or grading details
+ */
+public interface SubmissionSummary {
+    
+    Long getId();
+    
+    Long getAssignmentId();
+    
+    String getAssignmentTitle();
+    
+    String getStudentName();
+    
+    // Student code (User.studentId), not the user id
+    String getStudentCode();
+    
+    String getProgrammingLanguage();
+    
+    SubmissionStatus getStatus();
+    
+    Double getScore();
+    
+    Long getExecutionTime();
+    
+    Long getMemoryUsed();
+    
+    LocalDateTime getSubmissionTime();
+    
+    LocalDateTime getGradedTime();
+}
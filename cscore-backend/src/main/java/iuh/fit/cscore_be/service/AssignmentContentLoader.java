@@ -0,0 +1,76 @@
+package iuh.fit.cscore_be.service;
+
+import iuh.fit.cscore_be.entity.Assignment;
+import iuh.fit.cscore_be.entity.Question;
+import iuh.fit.cscore_be.repository.AssignmentRepository;
+import iuh.fit.cscore_be.repository.QuestionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Assignment Content Loader
+ * Fetch plans for the assignment object graph, so a page of assignments costs a fixed
+ * number of queries instead of one per assignment and question:
+ * - Questions (and programming languages) of many assignments in one query each
+ * - Test cases and options of all those questions in one query each
+ * Each collection is fetched by its own query, since joining several lists at once
+ * would multiply the rows. Must run inside the transaction that loaded the assignments.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class AssignmentContentLoader {
+
+    private final AssignmentRepository assignmentRepository;
+    private final QuestionRepository questionRepository;
+
+    /**
+     * Initialize questions and programming languages of the given assignments
+     */
+    public void loadQuestions(Collection<Assignment> assignments) {
+        if (assignments.isEmpty()) {
+            return;
+        }
+        assignmentRepository.fetchQuestions(assignments);
+        assignmentRepository.fetchProgrammingLanguages(assignments);
+    }
+
+    /**
+     * Initialize questions with their test cases, and options when requested
+     */
+    public void loadQuestionContent(Collection<Assignment> assignments, boolean withOptions) {
+        loadQuestions(assignments);
+        List<Question> questions = assignments.stream()
+                .flatMap(assignment -> assignment.getQuestions().stream())
+                .collect(Collectors.toList());
+        if (questions.isEmpty()) {
+            return;
+        }
+        questionRepository.fetchTestCases(questions);
+        if (withOptions) {
+            questionRepository.fetchQuestionOptions(questions);
+        }
+    }
+
+    /**
+     * Question count per assignment id, without loading the questions
+     */
+    public Map<Long, Long> countQuestions(Collection<Assignment> assignments) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (assignments.isEmpty()) {
+            return counts;
+        }
+        List<Long> assignmentIds = assignments.stream().map(Assignment::getId).collect(Collectors.toList());
+        for (Object[] row : questionRepository.countByAssignmentIds(assignmentIds)) {
+            counts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+}
@@ -31,6 +31,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -54,6 +56,8 @@ public class AssignmentManagementService {
     private final SubmissionRepository submissionRepository;
     private final SectionRepository sectionRepository;
     private final QuestionService questionService;
+    private final GradingSnapshotService gradingSnapshotService;
+    private final AssignmentContentLoader assignmentContentLoader;
     
     @Autowired
     private NotificationService notificationService;
@@ -119,6 +123,7 @@ public class AssignmentManagementService {
         validateAssignmentUpdateRequest(request, assignment);
         
         updateAssignmentFromRequest(assignment, request);
+        gradingSnapshotService.markChanged(assignment);
         Assignment updatedAssignment = assignmentRepository.save(assignment);
         
         log.info("Successfully updated assignment with ID: {}", assignmentId);
@@ -161,6 +166,7 @@ public class AssignmentManagementService {
      */
     public DetailedAssignmentResponse getAssignmentById(Long assignmentId, User teacher) {
         Assignment assignment = findAssignmentByIdAndTeacher(assignmentId, teacher);
+        assignmentContentLoader.loadQuestionContent(List.of(assignment), true);
         return convertToDetailedAssignmentResponse(assignment);
     }
     
@@ -185,9 +191,7 @@ public class AssignmentManagementService {
         List<Course> teacherCourses = courseRepository.findByTeacherAndIsActiveTrue(teacher);
         List<Assignment> assignments = assignmentRepository.findByCourseInAndIsActiveTrueOrderByCreatedAtDesc(teacherCourses);
         
-        return assignments.stream()
-                .map(this::convertToAssignmentResponse)
-                .collect(Collectors.toList());
+        return convertToAssignmentResponses(assignments);
     }
     
     /**
@@ -197,7 +201,9 @@ public class AssignmentManagementService {
         List<Course> teacherCourses = courseRepository.findByTeacherAndIsActiveTrue(teacher);
         Page<Assignment> assignments = assignmentRepository.findByCourseInAndIsActiveTrue(teacherCourses, pageable);
         
-        return assignments.map(this::convertToAssignmentResponse);
+        Map<Long, Long> questionCounts = assignmentContentLoader.countQuestions(assignments.getContent());
+        return assignments.map(assignment ->
+                convertToAssignmentResponse(assignment, questionCounts.getOrDefault(assignment.getId(), 0L)));
     }
     
     /**
@@ -209,9 +215,7 @@ public class AssignmentManagementService {
         
         List<Assignment> assignments = assignmentRepository.findByCourseAndIsActiveTrueOrderByCreatedAtDesc(course);
         
-        return assignments.stream()
-                .map(this::convertToAssignmentResponse)
-                .collect(Collectors.toList());
+        return convertToAssignmentResponses(assignments);
     }
     
     /**
@@ -220,6 +224,7 @@ public class AssignmentManagementService {
     public List<DetailedAssignmentResponse> getAssignmentsByCourseForTeacher(Long courseId, User teacher) {
         Course course = validateCourseAccess(courseId, teacher);
         List<Assignment> assignments = assignmentRepository.findByCourseOrderByCreatedAtDesc(course);
+        assignmentContentLoader.loadQuestionContent(assignments, true);
         
         return assignments.stream()
                 .map(this::convertToDetailedAssignmentResponse)
@@ -301,10 +306,10 @@ public class AssignmentManagementService {
         Assignment assignment = findAssignmentByIdAndTeacher(assignmentId, teacher);
         
         // Get all test cases from all questions in this assignment
+        assignmentContentLoader.loadQuestionContent(List.of(assignment), false);
         List<TestCase> allTestCases = new ArrayList<>();
         for (Question question : assignment.getQuestions()) {
-            List<TestCase> questionTestCases = testCaseRepository.findByQuestion(question);
-            allTestCases.addAll(questionTestCases);
+            allTestCases.addAll(question.getTestCases());
         }
         
         return allTestCases;
@@ -334,6 +339,7 @@ public class AssignmentManagementService {
         testCase.setMemoryLimit(request.getMemoryLimit());
                 
         testCaseRepository.save(testCase);
+        gradingSnapshotService.markChanged(assignment);
         log.info("Added test case to assignment {} by teacher {}", assignmentId, teacher.getUsername());
     }
     
@@ -351,6 +357,15 @@ public class AssignmentManagementService {
             throw new BadRequestException("Access denied: You are not the teacher of this assignment");
         }
         
+        boolean executionChanged = !Objects.equals(testCase.getInput(), request.getInput())
+                || !Objects.equals(testCase.getTestCode(), request.getTestCode())
+                || !Objects.equals(testCase.getTimeLimit(), request.getTimeLimit())
+                || !Objects.equals(testCase.getMemoryLimit(), request.getMemoryLimit());
+        boolean changed = executionChanged
+                || !Objects.equals(testCase.getExpectedOutput(), request.getExpectedOutput())
+                || !Objects.equals(testCase.getIsHidden(), request.getIsHidden())
+                || !Objects.equals(testCase.getWeight(), request.getWeight());
+        
         testCase.setInput(request.getInput());
         testCase.setExpectedOutput(request.getExpectedOutput());
         testCase.setTestCode(request.getTestCode());
@@ -358,6 +373,10 @@ public class AssignmentManagementService {
         testCase.setWeight(request.getWeight());
         testCase.setTimeLimit(request.getTimeLimit());
         testCase.setMemoryLimit(request.getMemoryLimit());
+        if (changed) {
+            testCase.markEdited(executionChanged);
+            gradingSnapshotService.markChanged(assignment);
+        }
         
         testCaseRepository.save(testCase);
         log.info("Updated test case {} by teacher {}", testCaseId, teacher.getUsername());
@@ -378,6 +397,7 @@ public class AssignmentManagementService {
         }
         
         testCaseRepository.delete(testCase);
+        gradingSnapshotService.markChanged(assignment);
         log.info("Deleted test case {} by teacher {}", testCaseId, teacher.getUsername());
     }
 
@@ -570,6 +590,17 @@ public class AssignmentManagementService {
     // ========== CONVERSION METHODS ==========
     
     private AssignmentResponse convertToAssignmentResponse(Assignment assignment) {
+        return convertToAssignmentResponse(assignment, assignment.getQuestions().size());
+    }
+    
+    private List<AssignmentResponse> convertToAssignmentResponses(List<Assignment> assignments) {
+        Map<Long, Long> questionCounts = assignmentContentLoader.countQuestions(assignments);
+        return assignments.stream()
+                .map(assignment -> convertToAssignmentResponse(assignment, questionCounts.getOrDefault(assignment.getId(), 0L)))
+                .collect(Collectors.toList());
+    }
+    
+    private AssignmentResponse convertToAssignmentResponse(Assignment assignment, long totalQuestions) {
         return AssignmentResponse.builder()
                 .id(assignment.getId())
                 .title(assignment.getTitle())
@@ -585,7 +616,7 @@ public class AssignmentManagementService {
                 .autoGrade(assignment.getAutoGrade())
                 .isActive(assignment.getIsActive())
                 .createdAt(assignment.getCreatedAt())
-                .totalQuestions((long) assignment.getQuestions().size())
+                .totalQuestions(totalQuestions)
                 .sectionId(assignment.getSection() != null ? assignment.getSection().getId() : null)
                 .build();
     }
@@ -33,6 +33,7 @@ public class AssignmentService {
     private final TestCaseRepository testCaseRepository;
     private final SubmissionRepository submissionRepository;
     private final QuestionService questionService;
+    private final GradingSnapshotService gradingSnapshotService;
     
     @Autowired
     private NotificationService notificationService;
@@ -142,6 +143,7 @@ public class AssignmentService {
         assignment.setEndTime(request.getEndTime());
         assignment.setAllowLateSubmission(request.getAllowLateSubmission());
         assignment.setAutoGrade(request.getAutoGrade());
+        gradingSnapshotService.markChanged(assignment);
         
         Assignment savedAssignment = assignmentRepository.save(assignment);
         return convertToResponse(savedAssignment);
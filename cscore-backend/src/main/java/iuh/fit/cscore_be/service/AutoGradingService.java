@@ -7,31 +7,41 @@ import iuh.fit.cscore_be.dto.response.SubmissionResponse;
 import iuh.fit.cscore_be.dto.response.TestResultResponse;
 import iuh.fit.cscore_be.entity.*;
 import iuh.fit.cscore_be.enums.ProgrammingLanguage;
+import iuh.fit.cscore_be.enums.RegradeMode;
 import iuh.fit.cscore_be.enums.SubmissionStatus;
+import iuh.fit.cscore_be.exception.ExecutionCapacityException;
 import iuh.fit.cscore_be.exception.ResourceNotFoundException;
 import iuh.fit.cscore_be.repository.AssignmentRepository;
 import iuh.fit.cscore_be.repository.QuestionRepository;
+import iuh.fit.cscore_be.repository.QuestionSubmissionRepository;
 import iuh.fit.cscore_be.repository.SubmissionRepository;
 import iuh.fit.cscore_be.repository.TestCaseRepository;
 import iuh.fit.cscore_be.repository.TestResultRepository;
 import iuh.fit.cscore_be.repository.UserRepository;
+import iuh.fit.cscore_be.repository.projection.SubmissionStats;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -43,7 +53,7 @@ import java.util.stream.Collectors;
  * - COMPARATIVE: Comparison with reference implementations
  * 
  * Features:
- * - Multi-question assignment support
+ * - Multi-question assignment support (questions graded concurrently)
  * - Advanced scoring algorithms
  * - Reference implementation comparison
  * - Detailed feedback generation
@@ -55,12 +65,20 @@ import java.util.stream.Collectors;
 public class AutoGradingService {
     
     private final CodeExecutionService codeExecutionService;
+    private final OutputSimilarityService outputSimilarityService;
     private final SubmissionRepository submissionRepository;
     private final TestCaseRepository testCaseRepository;
     private final TestResultRepository testResultRepository;
+    private final TestResultWriter testResultWriter;
+    private final QuestionProgressBuffer questionProgressBuffer;
+    private final SubmissionHistoryService submissionHistoryService;
     private final AssignmentRepository assignmentRepository;
     private final QuestionRepository questionRepository;
+    private final QuestionSubmissionRepository questionSubmissionRepository;
+    private final CodeFingerprintService codeFingerprintService;
+    private final GradingSnapshotService gradingSnapshotService;
     private final UserRepository userRepository;
+    private final ReplicaReadTracker replicaReadTracker;
     
     @Value("${grading.time-limit:30}")
     private int defaultTimeLimit;
@@ -70,6 +88,32 @@ public class AutoGradingService {
     
     @Value("${grading.mode:enhanced}")
     private String defaultGradingMode; // basic, enhanced, comparative
+    
+    @Value("${grading.question-parallelism:4}")
+    private int questionParallelism;
+    
+    private ThreadPoolTaskExecutor questionGradingPool;
+    
+    /**
+     * Pool for grading the questions of one submission in parallel.
+     * Executions still go through the fair scheduler, so the shared budget and
+     * per-student quota apply; a saturated pool runs the question on the caller.
+     */
+    @PostConstruct
+    public void initializeQuestionGradingPool() {
+        questionGradingPool = new ThreadPoolTaskExecutor();
+        questionGradingPool.setCorePoolSize(questionParallelism);
+        questionGradingPool.setMaxPoolSize(questionParallelism);
+        questionGradingPool.setQueueCapacity(questionParallelism * 4);
+        questionGradingPool.setThreadNamePrefix("QuestionGrading-");
+        questionGradingPool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        questionGradingPool.initialize();
+    }
+    
+    @PreDestroy
+    public void shutdownQuestionGradingPool() {
+        questionGradingPool.shutdown();
+    }
 
     /**
      * Main entry point for asynchronous grading
@@ -101,6 +145,22 @@ public class AutoGradingService {
     }
     
     public Double gradeSubmission(Submission submission, GradingMode mode) {
+        GradingResult result = gradeSubmissionWithResult(submission, mode);
+        return result != null ? result.getFinalScore() : 0.0;
+    }
+    
+    /**
+     * Grade and store results; returns null when grading failed
+     */
+    private GradingResult gradeSubmissionWithResult(Submission submission, GradingMode mode) {
+        return gradeSubmissionWithResult(submission, mode, true);
+    }
+    
+    /**
+     * @param reuseUnchangedQuestions carry forward earlier results of questions whose code and
+     *                                test set are unchanged (resubmissions); false forces execution
+     */
+    private GradingResult gradeSubmissionWithResult(Submission submission, GradingMode mode, boolean reuseUnchangedQuestions) {
         log.info("Starting {} grading for submission {} (Student: {}, Assignment: {})", 
                 mode, submission.getId(), submission.getStudent().getStudentId(), submission.getAssignment().getTitle());
         
@@ -112,8 +172,8 @@ public class AutoGradingService {
             // Choose grading strategy based on mode
             GradingResult result = switch (mode) {
                 case BASIC -> performBasicGrading(submission);
-                case ENHANCED -> performEnhancedGrading(submission);
-                case COMPARATIVE -> performComparativeGrading(submission);
+                case ENHANCED -> performEnhancedGrading(submission, reuseUnchangedQuestions);
+                case COMPARATIVE -> performComparativeGrading(submission, reuseUnchangedQuestions);
             };
             
             // Update submission with results
@@ -122,12 +182,17 @@ public class AutoGradingService {
             log.info("{} grading completed for submission {}. Final score: {}", 
                     mode, submission.getId(), result.getFinalScore());
             
-            return result.getFinalScore();
+            return result;
             
         } catch (Exception e) {
+            ExecutionCapacityException refusal = capacityRefusal(e);
+            if (refusal != null) {
+                leaveUngraded(submission, refusal);
+                return null;
+            }
             log.error("Error during {} grading for submission {}", mode, submission.getId(), e);
             handleGradingError(submission, e);
-            return 0.0;
+            return null;
         }
     }
 
@@ -183,11 +248,10 @@ public class AutoGradingService {
 
     // ========== ENHANCED GRADING ==========
     
-    private GradingResult performEnhancedGrading(Submission submission) {
+    private GradingResult performEnhancedGrading(Submission submission, boolean reuseUnchangedQuestions) {
         log.info("Performing enhanced grading for submission {}", submission.getId());
         
-        Assignment assignment = submission.getAssignment();
-        List<Question> questions = assignment.getQuestions();
+        List<Question> questions = getQuestions(submission.getAssignment());
         
         if (questions.isEmpty()) {
             return handleNoQuestions(submission);
@@ -195,13 +259,14 @@ public class AutoGradingService {
         
         // Process multi-question submissions
         if (isMultiQuestionCode(submission.getCode())) {
-            return gradeMultiQuestionSubmission(submission, questions);
+            return gradeMultiQuestionSubmission(submission, questions, reuseUnchangedQuestions);
         } else {
             return gradeSingleQuestionSubmission(submission, questions);
         }
     }
     
-    private GradingResult gradeMultiQuestionSubmission(Submission submission, List<Question> questions) {
+    private GradingResult gradeMultiQuestionSubmission(Submission submission, List<Question> questions,
+                                                      boolean reuseUnchangedQuestions) {
         log.info("Grading multi-question submission with {} questions", questions.size());
         
         String fullCode = submission.getCode();
@@ -212,20 +277,63 @@ public class AutoGradingService {
                      questions.size(), questionCodes.size());
         }
         
-        List<QuestionGradingResult> questionResults = new ArrayList<>();
-        double totalScore = 0.0;
-        double totalPossibleScore = 0.0;
+        // Code sections follow the question order shown to the student
+        List<Question> orderedQuestions = questions.stream()
+                .sorted(GradingSnapshotService.QUESTION_ORDER)
+                .collect(Collectors.toList());
+        
+        Map<Long, QuestionSubmission> previousResults = reuseUnchangedQuestions
+                ? findPreviousQuestionResults(submission, orderedQuestions)
+                : Map.of();
         
-        for (int i = 0; i < questions.size(); i++) {
-            Question question = questions.get(i);
+        // Questions are independent: grade them concurrently. Everything lazy is resolved
+        // here on the calling thread, since worker threads have no persistence context.
+        List<CompletableFuture<QuestionGradingResult>> futures = new ArrayList<>();
+        int reused = 0;
+        for (int i = 0; i < orderedQuestions.size(); i++) {
+            Question question = orderedQuestions.get(i);
             String questionCode = i < questionCodes.size() ? questionCodes.get(i) : "";
+            List<TestCase> questionTestCases = new ArrayList<>(question.getTestCases());
+            String contentHash = codeFingerprintService.fingerprint(questionCode, submission.getProgrammingLanguage());
+            String testSetHash = codeFingerprintService.testSetHash(question, questionTestCases);
             
-            QuestionGradingResult questionResult = gradeIndividualQuestion(
-                questionCode, question, submission.getProgrammingLanguage());
+            QuestionSubmission previous = previousResults.get(question.getId());
+            if (previous != null && contentHash.equals(previous.getContentHash())
+                    && testSetHash.equals(previous.getTestSetHash())) {
+                futures.add(CompletableFuture.completedFuture(carryForward(previous, question, questionCode)));
+                reused++;
+                continue;
+            }
             
+            ExecutionFairScheduler.Tenant tenant = ExecutionFairScheduler.Tenant.grading(submission, question);
+            futures.add(CompletableFuture.supplyAsync(() -> gradeIndividualQuestion(
+                    questionCode, question, questionTestCases, submission.getProgrammingLanguage(), tenant),
+                    questionGradingPool)
+                    .thenApply(questionResult -> {
+                        // Only real verdicts are remembered; grading errors, timeouts and sandbox
+                        // failures are retried on resubmission
+                        if (completedNormally(questionResult.getExecutionResult())) {
+                            questionResult.setContentHash(contentHash);
+                            questionResult.setTestSetHash(testSetHash);
+                        }
+                        return questionResult;
+                    }));
+        }
+        if (reused > 0) {
+            log.info("Submission {}: reused results of {} unchanged question(s), executing {}",
+                    submission.getId(), reused, orderedQuestions.size() - reused);
+        }
+        
+        // Merge in orderIndex order; total latency is that of the slowest question
+        List<QuestionGradingResult> questionResults = new ArrayList<>();
+        double totalScore = 0.0;
+        double totalPossibleScore = 0.0;
+        
+        for (int i = 0; i < orderedQuestions.size(); i++) {
+            QuestionGradingResult questionResult = futures.get(i).join();
             questionResults.add(questionResult);
             totalScore += questionResult.getScore();
-            totalPossibleScore += question.getPoints();
+            totalPossibleScore += orderedQuestions.get(i).getPoints();
         }
         
         double finalPercentage = totalPossibleScore > 0 ? (totalScore / totalPossibleScore) * 100.0 : 0.0;
@@ -264,15 +372,47 @@ public class AutoGradingService {
         return result;
     }
     
-    private QuestionGradingResult gradeIndividualQuestion(String questionCode, Question question, String language) {
+    /**
+     * Latest graded result of this student for each question, used to skip unchanged questions
+     */
+    private Map<Long, QuestionSubmission> findPreviousQuestionResults(Submission submission, List<Question> questions) {
+        if (submission.getStudent() == null) {
+            return Map.of();
+        }
+        List<Long> questionIds = questions.stream().map(Question::getId).collect(Collectors.toList());
+        Map<Long, QuestionSubmission> previous = new HashMap<>();
+        for (QuestionSubmission row : questionSubmissionRepository.findGradedByStudentAndQuestions(
+                submission.getStudent().getId(), questionIds)) {
+            previous.putIfAbsent(row.getQuestion().getId(), row); // newest first
+        }
+        return previous;
+    }
+    
+    private QuestionGradingResult carryForward(QuestionSubmission previous, Question question, String questionCode) {
+        QuestionGradingResult result = new QuestionGradingResult();
+        result.setQuestionId(question.getId());
+        result.setQuestionTitle(question.getTitle());
+        result.setMaxScore(question.getPoints());
+        result.setCode(questionCode);
+        result.setScore(previous.getScore() != null ? previous.getScore() : 0.0);
+        result.setFeedback(previous.getFeedback());
+        result.setExecutionTime(previous.getExecutionTime());
+        result.setContentHash(previous.getContentHash());
+        result.setTestSetHash(previous.getTestSetHash());
+        result.setReused(true);
+        return result;
+    }
+    
+    private QuestionGradingResult gradeIndividualQuestion(String questionCode, Question question,
+                                                          List<TestCase> questionTestCases, String language,
+                                                          ExecutionFairScheduler.Tenant tenant) {
         QuestionGradingResult result = new QuestionGradingResult();
         result.setQuestionId(question.getId());
         result.setQuestionTitle(question.getTitle());
         result.setMaxScore(question.getPoints());
+        result.setCode(questionCode);
         
         try {
-            List<TestCase> questionTestCases = question.getTestCases();
-            
             if (questionTestCases.isEmpty()) {
                 result.setScore(0.0);
                 result.setFeedback("Câu hỏi này không có test case");
@@ -281,7 +421,7 @@ public class AutoGradingService {
             
             // Execute question code with test cases
             CodeExecutionResponse executionResult = codeExecutionService.executeCodeWithTestCases(
-                questionCode, language, questionTestCases, null, question);
+                questionCode, language, questionTestCases, null, question, tenant);
             
             // Calculate score for this question
             double score = calculateQuestionScore(executionResult, questionTestCases, question.getPoints());
@@ -290,6 +430,9 @@ public class AutoGradingService {
             result.setExecutionResult(executionResult);
             result.setFeedback(generateQuestionFeedback(executionResult, question));
             
+        } catch (ExecutionCapacityException e) {
+            // Not a verdict: the submission stays ungraded instead of scoring 0
+            throw e;
         } catch (Exception e) {
             log.error("Error grading question {}: {}", question.getId(), e.getMessage());
             result.setScore(0.0);
@@ -301,19 +444,19 @@ public class AutoGradingService {
 
     // ========== COMPARATIVE GRADING ==========
     
-    private GradingResult performComparativeGrading(Submission submission) {
+    private GradingResult performComparativeGrading(Submission submission, boolean reuseUnchangedQuestions) {
         log.info("Performing comparative grading for submission {}", submission.getId());
         
         // First perform enhanced grading
-        GradingResult enhancedResult = performEnhancedGrading(submission);
+        GradingResult enhancedResult = performEnhancedGrading(submission, reuseUnchangedQuestions);
         
         // Then compare with reference implementations if available
-        List<Question> questions = submission.getAssignment().getQuestions();
+        GradingSnapshotService.AssignmentSnapshot snapshot = gradingSnapshotService.getSnapshot(submission.getAssignment().getId());
         List<ComparativeResult> comparativeResults = new ArrayList<>();
         
-        for (Question question : questions) {
+        for (Question question : snapshot.getQuestions()) {
             if (question.getReferenceImplementation() != null && !question.getReferenceImplementation().trim().isEmpty()) {
-                ComparativeResult compResult = compareWithReference(submission, question);
+                ComparativeResult compResult = compareWithReference(submission, question, snapshot);
                 comparativeResults.add(compResult);
             }
         }
@@ -333,7 +476,8 @@ public class AutoGradingService {
         return result;
     }
     
-    private ComparativeResult compareWithReference(Submission submission, Question question) {
+    private ComparativeResult compareWithReference(Submission submission, Question question,
+                                                   GradingSnapshotService.AssignmentSnapshot snapshot) {
         ComparativeResult result = new ComparativeResult();
         result.setQuestionId(question.getId());
         
@@ -344,10 +488,15 @@ public class AutoGradingService {
             
             // Execute both implementations
             CodeExecutionResponse studentResult = codeExecutionService.executeCodeWithTestCases(
-                studentCode, submission.getProgrammingLanguage(), testCases, null, question);
+                studentCode, submission.getProgrammingLanguage(), testCases, null, question,
+                ExecutionFairScheduler.Tenant.grading(submission, question));
             
-            CodeExecutionResponse referenceResult = codeExecutionService.executeCodeWithTestCases(
-                referenceCode, submission.getProgrammingLanguage(), testCases, null, question);
+            // The reference output only depends on the question revision: run it once
+            CodeExecutionResponse referenceResult = snapshot.getReferenceResult(
+                question.getId(), submission.getProgrammingLanguage(),
+                () -> codeExecutionService.executeCodeWithTestCases(
+                    referenceCode, submission.getProgrammingLanguage(), testCases, null, question,
+                    ExecutionFairScheduler.Tenant.system()));
             
             // Compare results
             double similarity = calculateOutputSimilarity(studentResult, referenceResult);
@@ -357,6 +506,8 @@ public class AutoGradingService {
             result.setSimilarityScore(similarity);
             result.setAnalysis(generateComparisonAnalysis(studentResult, referenceResult, similarity));
             
+        } catch (ExecutionCapacityException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error in comparative analysis for question {}: {}", question.getId(), e.getMessage());
             result.setAnalysis("Lỗi khi so sánh với đáp án tham khảo: " + e.getMessage());
@@ -373,8 +524,8 @@ public class AutoGradingService {
             return executeMultiQuestionCode(submission, testCases);
         } else {
             // For single question, try to use first question context if available
-            Question firstQuestion = submission.getAssignment().getQuestions().stream()
-                    .findFirst().orElse(null);
+            Question firstQuestion = gradingSnapshotService.getSnapshot(submission.getAssignment().getId())
+                    .getPrimaryQuestion();
             
             return codeExecutionService.executeCodeWithTestCases(
                 submission.getCode(), submission.getProgrammingLanguage(), testCases, submission, firstQuestion);
@@ -388,10 +539,18 @@ public class AutoGradingService {
             submission.getCode(), submission.getProgrammingLanguage(), testCases, submission);
     }
     
+    /**
+     * Test cases of all questions, from the shared read-only grading snapshot
+     */
     private List<TestCase> getAllTestCases(Assignment assignment) {
-        return assignment.getQuestions().stream()
-                .flatMap(question -> question.getTestCases().stream())
-                .collect(Collectors.toList());
+        return gradingSnapshotService.getSnapshot(assignment.getId()).getTestCases();
+    }
+    
+    /**
+     * Questions ordered by orderIndex, from the shared read-only grading snapshot
+     */
+    private List<Question> getQuestions(Assignment assignment) {
+        return gradingSnapshotService.getSnapshot(assignment.getId()).getQuestions();
     }
     
     private boolean isMultiQuestionCode(String code) {
@@ -504,37 +663,11 @@ public class AutoGradingService {
             return 1.0;
         }
         
-        // Calculate similarity (simple Levenshtein-based approach)
-        int maxLen = Math.max(expected.length(), actual.length());
-        if (maxLen == 0) return 1.0;
-        
-        int editDistance = calculateEditDistance(expected, actual);
-        double similarity = 1.0 - (double) editDistance / maxLen;
+        // Levenshtein similarity, computed only as far as the 0.7 threshold can still be reached
+        double similarity = outputSimilarityService.similarityAbove(expected, actual, 0.7);
         
         // Give partial credit only if similarity is above threshold
-        return similarity > 0.7 ? similarity * 0.3 : 0.0; // Max 30% partial credit
-    }
-    
-    private int calculateEditDistance(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-        
-        for (int i = 0; i <= s1.length(); i++) {
-            for (int j = 0; j <= s2.length(); j++) {
-                if (i == 0) {
-                    dp[i][j] = j;
-                } else if (j == 0) {
-                    dp[i][j] = i;
-                } else {
-                    dp[i][j] = Math.min(Math.min(
-                        dp[i-1][j] + 1,
-                        dp[i][j-1] + 1),
-                        dp[i-1][j-1] + (s1.charAt(i-1) == s2.charAt(j-1) ? 0 : 1)
-                    );
-                }
-            }
-        }
-        
-        return dp[s1.length()][s2.length()];
+        return similarity * 0.3; // Max 30% partial credit
     }
     
     private double calculateOutputSimilarity(CodeExecutionResponse student, CodeExecutionResponse reference) {
@@ -718,6 +851,83 @@ public class AutoGradingService {
         }
         
         submissionRepository.save(submission);
+        // The student usually reloads the result right away; keep those reads on the primary
+        replicaReadTracker.recordWrite(submission.getStudent().getId());
+        
+        if (result.getQuestionResults() != null) {
+            saveQuestionSubmissions(submission, result.getQuestionResults());
+        }
+    }
+    
+    /**
+     * Record per-question outcomes of a multi-question submission, in question order
+     */
+    private void saveQuestionSubmissions(Submission submission, List<QuestionGradingResult> questionResults) {
+        // Buffered check drafts of this submission are superseded by the grade; the lock waits
+        // for a flush that is already writing them
+        questionProgressBuffer.discard(submission.getId());
+        submissionRepository.lockByIdIn(List.of(submission.getId()));
+        
+        Map<Long, QuestionSubmission> existing = questionSubmissionRepository.findBySubmissionId(submission.getId()).stream()
+                .collect(Collectors.toMap(qs -> qs.getQuestion().getId(), qs -> qs, (a, b) -> a));
+        // Test results on question rows only come from draft checks
+        if (!existing.isEmpty()) {
+            testResultRepository.deleteByQuestionSubmissionIdIn(existing.values().stream()
+                    .map(QuestionSubmission::getId)
+                    .collect(Collectors.toList()));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        
+        List<QuestionSubmission> rows = new ArrayList<>();
+        for (QuestionGradingResult questionResult : questionResults) {
+            QuestionSubmission row = existing.get(questionResult.getQuestionId());
+            if (row == null) {
+                row = new QuestionSubmission();
+                row.setSubmission(submission);
+                row.setQuestion(questionRepository.getReferenceById(questionResult.getQuestionId()));
+                row.setStudent(submission.getStudent());
+                row.setSubmissionTime(submission.getSubmissionTime());
+            }
+            
+            double ratio = questionResult.getMaxScore() > 0 ? questionResult.getScore() / questionResult.getMaxScore() : 0.0;
+            CodeExecutionResponse execution = questionResult.getExecutionResult();
+            
+            row.setCode(questionResult.getCode());
+            row.setProgrammingLanguage(submission.getProgrammingLanguage());
+            row.setScore(questionResult.getScore());
+            row.setIsCorrect(ratio >= 1.0);
+            row.setStatus(ratio >= 0.8 ? SubmissionStatus.PASSED
+                    : ratio >= 0.5 ? SubmissionStatus.PARTIAL : SubmissionStatus.FAILED);
+            row.setExecutionTime(execution != null ? execution.getExecutionTime() : questionResult.getExecutionTime());
+            row.setContentHash(questionResult.getContentHash());
+            row.setTestSetHash(questionResult.getTestSetHash());
+            row.setFeedback(questionResult.getFeedback());
+            row.setIsFinalSubmission(true);
+            row.setGradedTime(now);
+            rows.add(row);
+        }
+        questionSubmissionRepository.saveAll(rows);
+    }
+    
+    /**
+     * The scheduler's refusal behind a grading failure (possibly wrapped by a question future), or null
+     */
+    private static ExecutionCapacityException capacityRefusal(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ExecutionCapacityException refusal) {
+                return refusal;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * No execution slot is not a grading result: keep the submission SUBMITTED, without a score, to be graded again
+     */
+    private void leaveUngraded(Submission submission, ExecutionCapacityException e) {
+        log.warn("Submission {} left ungraded, no execution slot: {}", submission.getId(), e.getMessage());
+        submission.setStatus(SubmissionStatus.SUBMITTED);
+        submissionRepository.save(submission);
     }
     
     private void handleGradingError(Submission submission, Exception e) {
@@ -726,6 +936,7 @@ public class AutoGradingService {
         submission.setFeedback("Lỗi trong quá trình chấm điểm tự động: " + e.getMessage());
         submission.setGradedTime(LocalDateTime.now());
         submissionRepository.save(submission);
+        replicaReadTracker.recordWrite(submission.getStudent().getId());
     }
     
     private String generateBasicDetails(CodeExecutionResponse executionResult) {
@@ -794,6 +1005,11 @@ public class AutoGradingService {
         private double score;
         private double maxScore;
         private String feedback;
+        private String code;
+        private String contentHash;     // fingerprint of the question code
+        private String testSetHash;     // fingerprint of the question's grading setup
+        private boolean reused;         // carried forward from an earlier identical answer
+        private Long executionTime;     // kept for reused results, which have no execution
         private CodeExecutionResponse executionResult;
     }
     
@@ -840,11 +1056,12 @@ public class AutoGradingService {
                     questionId, studentId);
             
             // Execute code with input (without test cases)
+            ExecutionFairScheduler.Tenant tenant = ExecutionFairScheduler.Tenant.of(studentId, question);
             CodeExecutionResponse result;
             if (input != null && !input.isEmpty()) {
-                result = codeExecutionService.executeCodeWithInput(code, language, input);
+                result = codeExecutionService.executeCodeWithInput(code, language, input, tenant);
             } else {
-                result = codeExecutionService.executeCode(code, language);
+                result = codeExecutionService.executeCode(code, language, tenant);
             }
             
             log.info("Question code run completed for question {} by student {}: success={}", 
@@ -852,6 +1069,8 @@ public class AutoGradingService {
             
             return result;
             
+        } catch (ExecutionCapacityException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error running question code for question {} by student {}: {}", 
                     questionId, studentId, e.getMessage(), e);
@@ -891,13 +1110,18 @@ public class AutoGradingService {
             
             // Execute code with test cases
             CodeExecutionResponse result = codeExecutionService.executeCodeWithTestCases(
-                code, language, testCases, null, question);
+                code, language, testCases, null, question,
+                ExecutionFairScheduler.Tenant.of(studentId, question));
             
             log.info("Question code check completed for question {} by student {}: success={}, passed={}/{}", 
                     questionId, studentId, result.isSuccess(), result.getPassedTests(), result.getTotalTests());
             
+            recordCheckProgress(question, studentId, code, language, result);
+            
             return result;
             
+        } catch (ExecutionCapacityException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error checking question code for question {} by student {}: {}", 
                     questionId, studentId, e.getMessage(), e);
@@ -912,27 +1136,28 @@ public class AutoGradingService {
     }
     
     /**
-     * Get question score for a student
+     * Get question score for a student: the latest check or graded result of the question,
+     * including progress that is still buffered
      */
     public Double getQuestionScore(Long questionId, String studentId) {
         try {
-            // Find user first
-            User student = userRepository.findByStudentId(studentId)
-                .orElseThrow(() -> new RuntimeException("Student not found with ID: " + studentId));
-            
-            // Find assignment
-            Assignment assignment = assignmentRepository.findById(questionId)
-                .orElseThrow(() -> new RuntimeException("Assignment not found with ID: " + questionId));
-            
-            // Find latest submission for this assignment by this student
-            Optional<Submission> submissionOpt = submissionRepository.findByAssignmentAndStudent(assignment, student);
+            Question question = questionRepository.findById(questionId)
+                .orElseThrow(() -> new RuntimeException("Question not found with ID: " + questionId));
             
+            Optional<Submission> submissionOpt = findStudentSubmission(question, studentId);
             if (submissionOpt.isEmpty()) {
                 return 0.0;
             }
             
-            // Get the score from the submission
-            return submissionOpt.get().getScore() != null ? submissionOpt.get().getScore() : 0.0;
+            Submission submission = submissionOpt.get();
+            Optional<QuestionProgressBuffer.QuestionProgress> buffered = questionProgressBuffer.find(submission.getId(), questionId);
+            if (buffered.isPresent()) {
+                return buffered.get().getScore() != null ? buffered.get().getScore() : 0.0;
+            }
+            
+            return questionSubmissionRepository.findBySubmissionAndQuestion(submission, question)
+                .map(QuestionSubmission::getScore)
+                .orElse(0.0);
         } catch (Exception e) {
             log.error("Error getting question score for question {} by student {}: {}", 
                     questionId, studentId, e.getMessage());
@@ -945,13 +1170,20 @@ public class AutoGradingService {
      */
     public CodeExecutionResponse submitQuestionAnswer(Long questionId, String code, String language, String studentId) {
         try {
-            // Execute and grade the submitted code
-            CodeExecutionResponse result = codeExecutionService.executeCode(code, language);
+            Optional<Question> question = questionRepository.findById(questionId);
+            
+            // Execute and grade the submitted code, charged to the student's fair-share queue
+            CodeExecutionResponse result = codeExecutionService.executeCode(code, language,
+                    ExecutionFairScheduler.Tenant.of(studentId, question.orElse(null)));
             
             log.info("Question answer submitted for question {} by student {}: success={}", 
                     questionId, studentId, result.isSuccess());
             
+            question.ifPresent(q -> recordAnswerProgress(q, studentId, code, language, result));
+            
             return result;
+        } catch (ExecutionCapacityException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error submitting question answer for question {} by student {}: {}", 
                     questionId, studentId, e.getMessage());
@@ -965,6 +1197,91 @@ public class AutoGradingService {
         }
     }
     
+    /**
+     * Buffer the outcome of a test case check as the student's draft progress on the question.
+     * Only recorded when the student already has a submission for the assignment.
+     */
+    private void recordCheckProgress(Question question, String studentId, String code, String language,
+                                     CodeExecutionResponse result) {
+        Optional<Submission> submission = findStudentSubmission(question, studentId);
+        if (submission.isEmpty()) {
+            return;
+        }
+        
+        double maxPoints = question.getPoints() != null ? question.getPoints() : 0.0;
+        double score = calculateQuestionScore(result, question.getTestCases(), maxPoints);
+        double ratio = maxPoints > 0 ? score / maxPoints : 0.0;
+        
+        List<TestResult> testResults = null;
+        if (result.getTestResults() != null) {
+            Map<Long, TestCase> testCasesById = question.getTestCases().stream()
+                    .collect(Collectors.toMap(TestCase::getId, tc -> tc, (a, b) -> a));
+            testResults = new ArrayList<>();
+            for (TestResultResponse testResult : result.getTestResults()) {
+                TestCase testCase = testCasesById.get(testResult.getTestCaseId());
+                if (testCase != null) {
+                    testResults.add(testResultWriter.toEntity(null, testCase, testResult));
+                }
+            }
+        }
+        
+        questionProgressBuffer.record(QuestionProgressBuffer.QuestionProgress.builder()
+                .submissionId(submission.get().getId())
+                .questionId(question.getId())
+                .studentUserId(submission.get().getStudent().getId())
+                .code(code)
+                .programmingLanguage(language)
+                .score(score)
+                .isCorrect(ratio >= 1.0)
+                .status(!result.isSuccess() ? SubmissionStatus.ERROR
+                        : ratio >= 0.8 ? SubmissionStatus.PASSED
+                        : ratio >= 0.5 ? SubmissionStatus.PARTIAL : SubmissionStatus.FAILED)
+                .executionTime(result.getExecutionTime())
+                .testResults(testResults)
+                .build());
+    }
+    
+    /**
+     * Buffer a submitted answer as a draft; it keeps the score of the latest check.
+     * The answer only becomes final when the submission is graded.
+     */
+    private void recordAnswerProgress(Question question, String studentId, String code, String language,
+                                      CodeExecutionResponse result) {
+        Optional<Submission> submission = findStudentSubmission(question, studentId);
+        if (submission.isEmpty()) {
+            return;
+        }
+        
+        Long submissionId = submission.get().getId();
+        QuestionProgressBuffer.QuestionProgress previous = questionProgressBuffer.find(submissionId, question.getId())
+                .orElse(null);
+        Double score = previous != null ? previous.getScore()
+                : questionSubmissionRepository.findBySubmissionAndQuestion(submission.get(), question)
+                        .map(QuestionSubmission::getScore)
+                        .orElse(0.0);
+        
+        questionProgressBuffer.record(QuestionProgressBuffer.QuestionProgress.builder()
+                .submissionId(submissionId)
+                .questionId(question.getId())
+                .studentUserId(submission.get().getStudent().getId())
+                .code(code)
+                .programmingLanguage(language)
+                .score(score)
+                .isCorrect(previous != null ? previous.getIsCorrect() : null)
+                .status(SubmissionStatus.SUBMITTED)
+                .executionTime(result.getExecutionTime())
+                .build());
+    }
+    
+    private Optional<Submission> findStudentSubmission(Question question, String studentId) {
+        if (studentId == null) {
+            return Optional.empty();
+        }
+        return userRepository.findByUsername(studentId)
+                .or(() -> userRepository.findByStudentId(studentId))
+                .flatMap(student -> submissionRepository.findByAssignmentAndStudent(question.getAssignment(), student));
+    }
+    
     /**
      * Submit and grade basic assignment
      */
@@ -980,6 +1297,7 @@ public class AutoGradingService {
             submission.setSubmissionTime(LocalDateTime.now());
             
             submission = submissionRepository.save(submission);
+            submissionHistoryService.append(submission);
             
             // Auto-grade if enabled
             if (assignment.getAutoGrade()) {
@@ -997,30 +1315,270 @@ public class AutoGradingService {
     }
     
     /**
-     * Regrade assignment
+     * Regrade a single submission in its own transaction (used by regrade jobs).
+     * Returns the grading result so identical submissions can reuse it, or null when grading failed.
+     */
+    public GradingResult regradeSubmission(Long submissionId, RegradeMode regradeMode) {
+        Submission submission = submissionRepository.findById(submissionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Submission not found"));
+        
+        GradingMode mode = GradingMode.valueOf(defaultGradingMode.toUpperCase());
+        return regradeMode == RegradeMode.DELTA
+                ? regradeSubmissionDelta(submission, mode)
+                : gradeSubmissionWithResult(submission, mode, false);
+    }
+    
+    /**
+     * Whether a result may be copied to identical submissions: every execution behind it
+     * completed normally. A representative that timed out or hit a sandbox or system error
+     * may have failed for reasons unrelated to its code, so its copies are graded on their own.
+     */
+    public boolean isShareable(GradingResult result) {
+        if (result.getQuestionResults() != null) {
+            return result.getQuestionResults().stream()
+                    .allMatch(questionResult -> completedNormally(questionResult.getExecutionResult()));
+        }
+        return completedNormally(result.getExecutionResult());
+    }
+    
+    /**
+     * The code was executed against every test case and each verdict is real; timeouts
+     * and execution failures of the grader itself do not count
      */
-    public String regradeAssignment(Long assignmentId) {
+    private boolean completedNormally(CodeExecutionResponse executionResult) {
+        if (executionResult == null || !executionResult.isSuccess() || executionResult.getTestResults() == null) {
+            return false;
+        }
+        return executionResult.getTestResults().stream()
+                .map(TestResultResponse::getErrorMessage)
+                .noneMatch(CodeExecutionService::isInfrastructureFailure);
+    }
+    
+    /**
+     * Store a result graded for an identical submission (same normalized code and language).
+     * Per-submission test results are recorded as if the submission had been executed itself.
+     * Returns the score, or null without storing anything when the result does not line up
+     * with this submission's questions and test cases; the caller must then grade it on its own.
+     */
+    public Double applySharedGradingResult(Long submissionId, GradingResult result) {
+        Submission submission = submissionRepository.findById(submissionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Submission not found"));
+        
+        if (result.getQuestionResults() != null) {
+            Set<Long> questionIds = getQuestions(submission.getAssignment()).stream()
+                    .map(Question::getId)
+                    .collect(Collectors.toSet());
+            Set<Long> gradedQuestionIds = result.getQuestionResults().stream()
+                    .map(QuestionGradingResult::getQuestionId)
+                    .collect(Collectors.toSet());
+            if (!questionIds.equals(gradedQuestionIds)) {
+                log.info("Not sharing result with submission {}: graded questions differ", submissionId);
+                return null;
+            }
+        }
+        
+        CodeExecutionResponse executionResult = result.getExecutionResult();
+        if (executionResult != null && executionResult.getTestResults() != null
+                && !isMultiQuestionCode(submission.getCode())) {
+            Map<Long, TestCase> testCasesById = getAllTestCases(submission.getAssignment()).stream()
+                    .collect(Collectors.toMap(TestCase::getId, tc -> tc));
+            Set<Long> executedIds = executionResult.getTestResults().stream()
+                    .map(TestResultResponse::getTestCaseId)
+                    .collect(Collectors.toSet());
+            if (!executedIds.equals(testCasesById.keySet())
+                    || executionResult.getTestResults().size() != testCasesById.size()) {
+                log.info("Not sharing result with submission {}: executed test cases differ", submissionId);
+                return null;
+            }
+            
+            List<TestResult> copies = new ArrayList<>();
+            for (TestResultResponse testResult : executionResult.getTestResults()) {
+                copies.add(testResultWriter.toEntity(submission, testCasesById.get(testResult.getTestCaseId()), testResult));
+            }
+            testResultWriter.replaceAll(submission, copies);
+        }
+        
+        updateSubmissionResults(submission, result);
+        return result.getFinalScore();
+    }
+    
+    /**
+     * Delta regrade of a single submission.
+     * Only new test cases and test cases whose input or test code changed are executed.
+     * Results of test cases that only changed expected output or weight are recompared,
+     * untouched results are reused, and the score is recomputed from the merged results.
+     * Falls back to a full regrade when there are no stored results to merge with.
+     */
+    private GradingResult regradeSubmissionDelta(Submission submission, GradingMode mode) {
+        Long submissionId = submission.getId();
+        List<Question> questions = getQuestions(submission.getAssignment());
+        List<TestResult> storedResults = testResultRepository.findBySubmission(submission);
+        
+        // Multi-question and comparative grading do not persist per-test results
+        if (mode == GradingMode.COMPARATIVE || questions.isEmpty() || storedResults.isEmpty()
+                || isMultiQuestionCode(submission.getCode())) {
+            return gradeSubmissionWithResult(submission, mode, false);
+        }
+        
         try {
-            Assignment assignment = assignmentRepository.findById(assignmentId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Assignment not found"));
+            List<TestCase> allTestCases = getAllTestCases(submission.getAssignment());
+            if (allTestCases.isEmpty()) {
+                return gradeSubmissionWithResult(submission, mode, false);
+            }
+            
+            // Latest stored result per test case
+            Map<Long, TestResult> latestResults = new HashMap<>();
+            for (TestResult stored : storedResults) {
+                Long testCaseId = stored.getTestCase().getId();
+                TestResult current = latestResults.get(testCaseId);
+                if (current == null || stored.getId() > current.getId()) {
+                    latestResults.put(testCaseId, stored);
+                }
+            }
             
-            List<Submission> submissions = submissionRepository.findByAssignment(assignment);
-            int regradedCount = 0;
+            Map<Long, TestResultResponse> mergedResults = new LinkedHashMap<>();
+            List<TestCase> testCasesToExecute = new ArrayList<>();
+            List<TestResult> recomparedResults = new ArrayList<>();
             
-            for (Submission submission : submissions) {
-                try {
-                    gradeSubmission(submission);
-                    regradedCount++;
-                } catch (Exception e) {
-                    log.error("Error regrading submission {}: {}", submission.getId(), e.getMessage());
+            for (TestCase testCase : allTestCases) {
+                TestResult previous = latestResults.get(testCase.getId());
+                if (previous == null || versionOf(previous.getTestCaseExecutionVersion()) != testCase.getExecutionVersionOrDefault()) {
+                    testCasesToExecute.add(testCase);
+                    mergedResults.put(testCase.getId(), null);
+                    continue;
                 }
+                
+                if (versionOf(previous.getTestCaseVersion()) != testCase.getVersionOrDefault()) {
+                    recompareTestResult(previous, testCase);
+                    recomparedResults.add(previous);
+                }
+                mergedResults.put(testCase.getId(), toTestResultResponse(previous, testCase));
             }
             
-            return String.format("Regraded %d submissions for assignment %d", regradedCount, assignmentId);
+            if (!testCasesToExecute.isEmpty()) {
+                Question primaryQuestion = questions.get(0);
+                CodeExecutionResponse executed = codeExecutionService.executeTestCaseSubset(
+                        submission.getCode(), submission.getProgrammingLanguage(), allTestCases, testCasesToExecute,
+                        primaryQuestion, ExecutionFairScheduler.Tenant.grading(submission, primaryQuestion));
+                
+                if (!executed.isSuccess() || executed.getTestResults() == null) {
+                    return gradeSubmissionWithResult(submission, mode, false);
+                }
+                
+                Map<Long, TestCase> executedById = testCasesToExecute.stream()
+                        .collect(Collectors.toMap(TestCase::getId, tc -> tc));
+                List<TestCase> replacedTestCases = new ArrayList<>();
+                List<TestResult> replacements = new ArrayList<>();
+                for (TestResultResponse testResult : executed.getTestResults()) {
+                    TestCase testCase = executedById.get(testResult.getTestCaseId());
+                    if (testCase == null) {
+                        continue;
+                    }
+                    replacedTestCases.add(testCase);
+                    replacements.add(testResultWriter.toEntity(submission, testCase, testResult));
+                    mergedResults.put(testCase.getId(), testResult);
+                }
+                testResultWriter.replace(submission, replacedTestCases, replacements);
+            }
+            testResultWriter.writeAll(recomparedResults);
+            
+            CodeExecutionResponse mergedExecution = buildMergedExecution(submission, allTestCases, mergedResults);
+            double score = mode == GradingMode.BASIC
+                    ? calculateBasicScore(mergedExecution, allTestCases)
+                    : calculateEnhancedScore(mergedExecution, allTestCases);
+            
+            GradingResult result = new GradingResult();
+            result.setMode(mode);
+            result.setFinalScore(score);
+            result.setExecutionResult(mergedExecution);
+            result.setFeedback(mode == GradingMode.BASIC
+                    ? generateBasicFeedback(mergedExecution)
+                    : generateEnhancedFeedback(mergedExecution));
+            result.setDetailsJson(mode == GradingMode.BASIC
+                    ? generateBasicDetails(mergedExecution)
+                    : generateEnhancedDetails(mergedExecution));
+            updateSubmissionResults(submission, result);
+            
+            log.info("Delta regrade of submission {}: {} executed, {} recompared, {} reused. Final score: {}",
+                    submissionId, testCasesToExecute.size(), recomparedResults.size(),
+                    allTestCases.size() - testCasesToExecute.size() - recomparedResults.size(), score);
+            return result;
+            
         } catch (Exception e) {
-            log.error("Error regrading assignment {}: {}", assignmentId, e.getMessage());
-            throw new RuntimeException("Regrade failed", e);
+            ExecutionCapacityException refusal = capacityRefusal(e);
+            if (refusal != null) {
+                leaveUngraded(submission, refusal);
+                return null;
+            }
+            log.error("Error during delta regrade for submission {}", submissionId, e);
+            handleGradingError(submission, e);
+            return null;
+        }
+    }
+    
+    private void recompareTestResult(TestResult previous, TestCase testCase) {
+        String error = previous.getErrorMessage();
+        boolean executionFailed = error != null && !error.equals(CodeExecutionService.OUTPUT_MISMATCH_MESSAGE);
+        
+        // A run that crashed or timed out stays failed whatever the expected output is
+        if (!executionFailed) {
+            boolean passed = codeExecutionService.compareOutputs(testCase.getExpectedOutput(), previous.getActualOutput());
+            previous.setPassed(passed);
+            previous.setErrorMessage(passed ? null : CodeExecutionService.OUTPUT_MISMATCH_MESSAGE);
+        }
+        previous.setTestCaseVersion(testCase.getVersionOrDefault());
+    }
+    
+    private TestResultResponse toTestResultResponse(TestResult testResult, TestCase testCase) {
+        return TestResultResponse.builder()
+                .testCaseId(testCase.getId())
+                .input(testCase.getInput())
+                .expectedOutput(testCase.getExpectedOutput())
+                .actualOutput(testResult.getActualOutput())
+                .passed(testResult.isPassed())
+                .executionTime(testResult.getExecutionTime())
+                .memoryUsed(testResult.getMemoryUsed())
+                .errorMessage(testResult.getErrorMessage())
+                .weight(testCase.getWeight())
+                .isHidden(Boolean.TRUE.equals(testCase.getIsHidden()))
+                .build();
+    }
+    
+    private CodeExecutionResponse buildMergedExecution(Submission submission, List<TestCase> testCases,
+                                                       Map<Long, TestResultResponse> mergedResults) {
+        List<TestResultResponse> testResults = new ArrayList<>();
+        int passedTests = 0;
+        double totalScore = 0.0;
+        long totalExecutionTime = 0L;
+        
+        for (TestCase testCase : testCases) {
+            TestResultResponse testResult = mergedResults.get(testCase.getId());
+            if (testResult == null) {
+                continue;
+            }
+            testResults.add(testResult);
+            if (testResult.isPassed()) {
+                passedTests++;
+                totalScore += testCase.getWeight();
+            }
+            if (testResult.getExecutionTime() != null) {
+                totalExecutionTime += testResult.getExecutionTime();
+            }
         }
+        
+        CodeExecutionResponse response = new CodeExecutionResponse();
+        response.setSuccess(true);
+        response.setLanguage(submission.getProgrammingLanguage());
+        response.setTestResults(testResults);
+        response.setPassedTests(passedTests);
+        response.setTotalTests(testCases.size());
+        response.setScore(totalScore);
+        response.setExecutionTime(totalExecutionTime);
+        return response;
+    }
+    
+    private int versionOf(Integer version) {
+        return version != null ? version : 1;
     }
     
     /**
@@ -1031,17 +1589,14 @@ public class AutoGradingService {
             Assignment assignment = assignmentRepository.findById(assignmentId)
                     .orElseThrow(() -> new ResourceNotFoundException("Assignment not found"));
             
-            List<Submission> submissions = submissionRepository.findByAssignment(assignment);
+            SubmissionStats submissionStats = submissionRepository.getStatsByAssignment(assignment);
             
             Map<String, Object> stats = new HashMap<>();
-            stats.put("totalSubmissions", submissions.size());
-            stats.put("gradedSubmissions", submissions.stream().filter(s -> s.getScore() != null).count());
-            stats.put("averageScore", submissions.stream().filter(s -> s.getScore() != null)
-                    .mapToDouble(Submission::getScore).average().orElse(0.0));
-            stats.put("maxScore", submissions.stream().filter(s -> s.getScore() != null)
-                    .mapToDouble(Submission::getScore).max().orElse(0.0));
-            stats.put("minScore", submissions.stream().filter(s -> s.getScore() != null)
-                    .mapToDouble(Submission::getScore).min().orElse(0.0));
+            stats.put("totalSubmissions", (int) submissionStats.totalOrZero());
+            stats.put("gradedSubmissions", submissionStats.scoredOrZero());
+            stats.put("averageScore", submissionStats.averageScoreOrZero());
+            stats.put("maxScore", submissionStats.getMaxScore() != null ? submissionStats.getMaxScore() : 0.0);
+            stats.put("minScore", submissionStats.getMinScore() != null ? submissionStats.getMinScore() : 0.0);
             
             return stats;
         } catch (Exception e) {
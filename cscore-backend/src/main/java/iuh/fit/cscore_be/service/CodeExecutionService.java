@@ -8,7 +8,6 @@ import iuh.fit.cscore_be.entity.TestCase;
 import iuh.fit.cscore_be.entity.TestResult;
 import iuh.fit.cscore_be.enums.ProgrammingLanguage;
 import iuh.fit.cscore_be.enums.SubmissionStatus;
-import iuh.fit.cscore_be.repository.TestResultRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -38,8 +37,13 @@ import java.util.concurrent.*;
 @Slf4j
 public class CodeExecutionService {
 
-    private final TestResultRepository testResultRepository;
+    private final TestResultWriter testResultWriter;
     private final CodeWrapperService codeWrapperService;
+    private final ExecutionFairScheduler executionFairScheduler;
+    private final NativeToolchainService nativeToolchainService;
+    private final JavaLaunchService javaLaunchService;
+    private final SandboxDirectoryService sandboxDirectoryService;
+    private final NamespaceSandboxService namespaceSandboxService;
     
     private ExecutionStrategy currentStrategy = ExecutionStrategy.LOCAL;
     private boolean jobeAvailable = false;
@@ -60,12 +64,22 @@ public class CodeExecutionService {
     private String jobeApiKey;
     
     // Execution limits
-    private static final String TEMP_DIR = System.getProperty("java.io.tmpdir");
     private static final int EXECUTION_TIMEOUT = 30; // seconds
     private static final int COMPILATION_TIMEOUT = 60; // seconds
     private static final long MEMORY_LIMIT = 256 * 1024 * 1024; // 256MB
     private static final int MAX_OUTPUT_LENGTH = 10000; // characters
     
+    public static final String OUTPUT_MISMATCH_MESSAGE = "Kết quả không khớp với expected output";
+    public static final String EXECUTION_TIMEOUT_MESSAGE = "Execution timeout";
+    
+    /**
+     * Whether a failed test says nothing about the code: it timed out or the sandbox was not usable
+     */
+    public static boolean isInfrastructureFailure(String errorMessage) {
+        return errorMessage != null && (errorMessage.contains(EXECUTION_TIMEOUT_MESSAGE)
+                || errorMessage.contains(NamespaceSandboxService.SANDBOX_UNAVAILABLE_MESSAGE));
+    }
+    
     // Thread pool for concurrent execution
     private final ExecutorService executorService = Executors.newFixedThreadPool(
         Math.max(2, Runtime.getRuntime().availableProcessors() / 2)
@@ -75,6 +89,17 @@ public class CodeExecutionService {
      * Execute code using the configured strategy
      */
     public CodeExecutionResponse executeCode(String code, String language) {
+        return executeCode(code, language, ExecutionFairScheduler.Tenant.system());
+    }
+
+    /**
+     * Execute code charged to the given tenant's fair-share queue
+     */
+    public CodeExecutionResponse executeCode(String code, String language, ExecutionFairScheduler.Tenant tenant) {
+        return executionFairScheduler.execute(tenant, () -> doExecuteCode(code, language));
+    }
+
+    private CodeExecutionResponse doExecuteCode(String code, String language) {
         ExecutionStrategy strategy = determineExecutionStrategy();
         
         log.info("Executing code using strategy: {} for language: {}", strategy, language);
@@ -94,6 +119,18 @@ public class CodeExecutionService {
      * Execute code with input using the configured strategy
      */
     public CodeExecutionResponse executeCodeWithInput(String code, String language, String input) {
+        return executeCodeWithInput(code, language, input, ExecutionFairScheduler.Tenant.system());
+    }
+
+    /**
+     * Execute code with input charged to the given tenant's fair-share queue
+     */
+    public CodeExecutionResponse executeCodeWithInput(String code, String language, String input,
+                                                     ExecutionFairScheduler.Tenant tenant) {
+        return executionFairScheduler.execute(tenant, () -> doExecuteCodeWithInput(code, language, input));
+    }
+
+    private CodeExecutionResponse doExecuteCodeWithInput(String code, String language, String input) {
         ExecutionStrategy strategy = determineExecutionStrategy();
         
         log.info("Executing code with input using strategy: {} for language: {}", strategy, language);
@@ -116,6 +153,41 @@ public class CodeExecutionService {
                                                          List<TestCase> testCases, 
                                                          Submission submission, 
                                                          Question question) {
+        return executeCodeWithTestCases(code, language, testCases, submission, question,
+                ExecutionFairScheduler.Tenant.grading(submission, question));
+    }
+
+    /**
+     * Execute code with test cases charged to the given tenant's fair-share queue
+     */
+    public CodeExecutionResponse executeCodeWithTestCases(String code, String language,
+                                                         List<TestCase> testCases,
+                                                         Submission submission,
+                                                         Question question,
+                                                         ExecutionFairScheduler.Tenant tenant) {
+        return executionFairScheduler.execute(tenant,
+                () -> doExecuteCodeWithTestCases(code, language, testCases, testCases, submission, question));
+    }
+
+    /**
+     * Execute only some of a question's test cases (delta regrade).
+     * The wrapper is still chosen from the full test case list so the program is identical
+     * to the one a full run would execute. Results are not persisted.
+     */
+    public CodeExecutionResponse executeTestCaseSubset(String code, String language,
+                                                      List<TestCase> allTestCases,
+                                                      List<TestCase> selectedTestCases,
+                                                      Question question,
+                                                      ExecutionFairScheduler.Tenant tenant) {
+        return executionFairScheduler.execute(tenant,
+                () -> doExecuteCodeWithTestCases(code, language, selectedTestCases, allTestCases, null, question));
+    }
+
+    private CodeExecutionResponse doExecuteCodeWithTestCases(String code, String language,
+                                                            List<TestCase> testCases,
+                                                            List<TestCase> wrapperTestCases,
+                                                            Submission submission,
+                                                            Question question) {
         ExecutionStrategy strategy = determineExecutionStrategy();
         
         log.info("Executing code with {} test cases using strategy: {} for language: {}", 
@@ -124,14 +196,14 @@ public class CodeExecutionService {
         CodeExecutionResponse response;
         switch (strategy) {
             case JOBE:
-                response = executeWithTestCasesJobe(code, language, testCases, submission, question);
+                response = executeWithTestCasesJobe(code, language, testCases, wrapperTestCases, submission, question);
                 break;
             case LOCAL:
-                response = executeWithTestCasesLocal(code, language, testCases, submission, question);
+                response = executeWithTestCasesLocal(code, language, testCases, wrapperTestCases, submission, question);
                 break;
             case HYBRID:
             default:
-                response = executeWithTestCasesHybrid(code, language, testCases, submission, question);
+                response = executeWithTestCasesHybrid(code, language, testCases, wrapperTestCases, submission, question);
                 break;
         }
         
@@ -219,18 +291,19 @@ public class CodeExecutionService {
 
     private CodeExecutionResponse executeWithTestCasesJobe(String code, String language, 
                                                           List<TestCase> testCases, 
+                                                          List<TestCase> wrapperTestCases,
                                                           Submission submission, 
                                                           Question question) {
         try {
             // Check if any test case uses testCode mode
-            boolean hasTestCode = testCases.stream()
+            boolean hasTestCode = wrapperTestCases.stream()
                 .anyMatch(tc -> tc.getTestCode() != null && !tc.getTestCode().trim().isEmpty());
             
             // Only wrap code if question provided AND test cases don't have testCode
             String executableCode = code;
             if (question != null && !hasTestCode) {
                 log.info("Question parameter provided, wrapping code for Jobe execution (input/output mode)");
-                executableCode = codeWrapperService.wrapFunctionCode(code, question, language, testCases);
+                executableCode = codeWrapperService.wrapFunctionCode(code, question, language, wrapperTestCases);
                 log.debug("Code wrapped for Jobe execution");
             } else if (hasTestCode) {
                 log.info("Test cases use testCode mode, skipping wrapper - will combine with test code directly");
@@ -253,9 +326,7 @@ public class CodeExecutionService {
     
     private CodeExecutionResponse executeWithLocal(String code, String language) {
         try {
-            String uniqueId = UUID.randomUUID().toString();
-            Path workDir = Paths.get(TEMP_DIR, "cscore_execution", uniqueId);
-            Files.createDirectories(workDir);
+            Path workDir = sandboxDirectoryService.acquire();
 
             CodeExecutionResponse response = new CodeExecutionResponse();
             response.setLanguage(language);
@@ -286,24 +357,25 @@ public class CodeExecutionService {
 
     private CodeExecutionResponse executeWithInputLocal(String code, String language, String input) {
         try {
-            String uniqueId = UUID.randomUUID().toString();
-            Path workDir = Paths.get(TEMP_DIR, "cscore_execution", uniqueId);
-            Files.createDirectories(workDir);
+            Path workDir = sandboxDirectoryService.acquire();
 
-            long startTime = System.currentTimeMillis();
-            String output = executeCodeWithInputLocal(code, language, input, workDir, EXECUTION_TIMEOUT * 1000);
-            long executionTime = System.currentTimeMillis() - startTime;
-            
-            CodeExecutionResponse response = new CodeExecutionResponse();
-            response.setLanguage(language);
-            response.setSuccess(true);
-            response.setOutput(output);
-            response.setExecutionTime(executionTime);
-
-            // Cleanup
-            deleteDirectory(workDir);
-            
-            return response;
+            try {
+                long startTime = System.currentTimeMillis();
+                String output = executeCodeWithInputLocal(code, language, input, workDir,
+                        EXECUTION_TIMEOUT * 1000, EXECUTION_TIMEOUT * 1000);
+                long executionTime = System.currentTimeMillis() - startTime;
+                
+                CodeExecutionResponse response = new CodeExecutionResponse();
+                response.setLanguage(language);
+                response.setSuccess(true);
+                response.setOutput(output);
+                response.setExecutionTime(executionTime);
+                
+                return response;
+            } finally {
+                // Cleanup
+                sandboxDirectoryService.release(workDir);
+            }
             
         } catch (Exception e) {
             log.error("Error executing code with input locally", e);
@@ -316,6 +388,7 @@ public class CodeExecutionService {
 
     private CodeExecutionResponse executeWithTestCasesLocal(String code, String language, 
                                                            List<TestCase> testCases, 
+                                                           List<TestCase> wrapperTestCases,
                                                            Submission submission, 
                                                            Question question) {
         CodeExecutionResponse response = new CodeExecutionResponse();
@@ -330,54 +403,77 @@ public class CodeExecutionService {
             log.info("Executing code with {} test cases locally - Language: {}", testCases.size(), language);
             
             // Check if any test case uses testCode mode
-            boolean hasTestCode = testCases.stream()
+            boolean hasTestCode = wrapperTestCases.stream()
                 .anyMatch(tc -> tc.getTestCode() != null && !tc.getTestCode().trim().isEmpty());
             
             // Only wrap code if question provided AND test cases don't have testCode
             String executableCode = code;
             if (question != null && !hasTestCode) {
-                executableCode = codeWrapperService.wrapFunctionCode(code, question, language, testCases);
+                executableCode = codeWrapperService.wrapFunctionCode(code, question, language, wrapperTestCases);
                 log.debug("Code wrapped for execution (input/output mode)");
             } else if (hasTestCode) {
                 log.debug("Test cases use testCode mode, skipping wrapper");
             }
             
+            // Input/output test cases all run the same program: compile it once
+            LocalProgram sharedProgram = null;
+            List<TestResult> pendingResults = new ArrayList<>();
+            
             // Execute each test case
-            for (int i = 0; i < testCases.size(); i++) {
-                TestCase testCase = testCases.get(i);
-                log.debug("Executing test case {} of {}", i + 1, testCases.size());
+            try {
+                for (int i = 0; i < testCases.size(); i++) {
+                    TestCase testCase = testCases.get(i);
+                    log.debug("Executing test case {} of {}", i + 1, testCases.size());
                 
-                try {
-                    TestResultResponse testResult = executeTestCaseLocal(executableCode, language, testCase);
-                    testResults.add(testResult);
+                    try {
+                        TestResultResponse testResult;
+                        if (hasTestCode(testCase)) {
+                            testResult = executeTestCaseLocal(executableCode, language, testCase);
+                        } else {
+                            if (sharedProgram == null) {
+                                sharedProgram = prepareSharedProgram(executableCode, language, testCases.stream()
+                                        .filter(tc -> !hasTestCode(tc))
+                                        .mapToLong(this::timeLimitMs)
+                                        .max().orElse(EXECUTION_TIMEOUT * 1000L));
+                            }
+                            testResult = runSharedProgramTestCase(sharedProgram, testCase);
+                        }
+                        testResults.add(testResult);
                     
-                    // Update statistics
-                    if (testResult.isPassed()) {
-                        passedTests++;
-                        totalScore += testCase.getWeight();
-                    }
+                        // Update statistics
+                        if (testResult.isPassed()) {
+                            passedTests++;
+                            totalScore += testCase.getWeight();
+                        }
                     
-                    if (testResult.getExecutionTime() != null) {
-                        totalExecutionTime += testResult.getExecutionTime();
-                    }
+                        if (testResult.getExecutionTime() != null) {
+                            totalExecutionTime += testResult.getExecutionTime();
+                        }
                     
-                    // Save test result asynchronously
-                    if (submission != null) {
-                        CompletableFuture.runAsync(() -> saveTestResult(submission, testCase, testResult), executorService);
-                    }
+                        if (submission != null) {
+                            pendingResults.add(testResultWriter.toEntity(submission, testCase, testResult));
+                        }
                     
-                } catch (Exception e) {
-                    log.error("Error executing test case {}: {}", testCase.getId(), e.getMessage());
+                    } catch (Exception e) {
+                        log.error("Error executing test case {}: {}", testCase.getId(), e.getMessage());
                     
-                    TestResultResponse failedResult = createFailedTestResult(testCase, e.getMessage());
-                    testResults.add(failedResult);
+                        TestResultResponse failedResult = createFailedTestResult(testCase, e.getMessage());
+                        testResults.add(failedResult);
                     
-                    if (submission != null) {
-                        CompletableFuture.runAsync(() -> saveTestResult(submission, testCase, failedResult), executorService);
+                        if (submission != null) {
+                            pendingResults.add(testResultWriter.toEntity(submission, testCase, failedResult));
+                        }
                     }
                 }
+            } finally {
+                if (sharedProgram != null) {
+                    releaseSharedProgram(sharedProgram);
+                }
             }
             
+            // Save all test results of the submission asynchronously, as one batch
+            writeTestResultsAsync(pendingResults);
+            
             response.setSuccess(true);
             response.setTestResults(testResults);
             response.setPassedTests(passedTests);
@@ -408,11 +504,12 @@ public class CodeExecutionService {
 
     private CodeExecutionResponse executeWithTestCasesHybrid(String code, String language, 
                                                             List<TestCase> testCases, 
+                                                            List<TestCase> wrapperTestCases,
                                                             Submission submission, 
                                                             Question question) {
         return jobeEnabled && isJobeServerAvailable() ? 
-               executeWithTestCasesJobe(code, language, testCases, submission, question) : 
-               executeWithTestCasesLocal(code, language, testCases, submission, question);
+               executeWithTestCasesJobe(code, language, testCases, wrapperTestCases, submission, question) : 
+               executeWithTestCasesLocal(code, language, testCases, wrapperTestCases, submission, question);
     }
 
     // ========== JOBE IMPLEMENTATION DETAILS ==========
@@ -446,6 +543,7 @@ public class CodeExecutionService {
         int passedTests = 0;
         double totalScore = 0.0;
         long totalExecutionTime = 0L;
+        List<TestResult> pendingResults = new ArrayList<>();
         
         for (TestCase testCase : testCases) {
             try {
@@ -462,7 +560,7 @@ public class CodeExecutionService {
                 }
                 
                 if (submission != null) {
-                    CompletableFuture.runAsync(() -> saveTestResult(submission, testCase, testResult), executorService);
+                    pendingResults.add(testResultWriter.toEntity(submission, testCase, testResult));
                 }
                 
             } catch (Exception e) {
@@ -470,11 +568,13 @@ public class CodeExecutionService {
                 testResults.add(failedResult);
                 
                 if (submission != null) {
-                    CompletableFuture.runAsync(() -> saveTestResult(submission, testCase, failedResult), executorService);
+                    pendingResults.add(testResultWriter.toEntity(submission, testCase, failedResult));
                 }
             }
         }
         
+        writeTestResultsAsync(pendingResults);
+        
         response.setSuccess(true);
         response.setTestResults(testResults);
         response.setPassedTests(passedTests);
@@ -597,7 +697,7 @@ public class CodeExecutionService {
             testResult.setPassed(passed);
             
             if (!passed) {
-                testResult.setErrorMessage("Kết quả không khớp với expected output");
+                testResult.setErrorMessage(OUTPUT_MISMATCH_MESSAGE);
                 log.warn("Output mismatch - Expected: '{}', Actual: '{}'", 
                          testCase.getExpectedOutput(), executionResult.getOutput());
             }
@@ -610,8 +710,9 @@ public class CodeExecutionService {
     
     private CodeExecutionResponse executeJavaCodeLocal(String code, Path workDir, CodeExecutionResponse response) {
         try {
-            // Write Java source file
-            Path sourceFile = workDir.resolve("Main.java");
+            // Write Java source file, named after its public class
+            String mainClass = javaLaunchService.mainClassOf(code);
+            Path sourceFile = workDir.resolve(mainClass + ".java");
             Files.write(sourceFile, code.getBytes());
             
             // Compile
@@ -629,7 +730,8 @@ public class CodeExecutionService {
             }
             
             // Execute
-            Process execProcess = new ProcessBuilder("java", "-cp", workDir.toString(), "Main")
+            Process execProcess = new ProcessBuilder(
+                    namespaceSandboxService.wrap(javaLaunchService.launchCommand(workDir, mainClass, EXECUTION_TIMEOUT * 1000L), workDir))
                     .directory(workDir.toFile())
                     .start();
             
@@ -637,7 +739,7 @@ public class CodeExecutionService {
             if (!executed) {
                 execProcess.destroyForcibly();
                 response.setSuccess(false);
-                response.setError("Execution timeout");
+                response.setError(EXECUTION_TIMEOUT_MESSAGE);
                 return response;
             }
             
@@ -657,7 +759,7 @@ public class CodeExecutionService {
             response.setError("Error executing Java code: " + e.getMessage());
         } finally {
             // Cleanup
-            deleteDirectory(workDir);
+            sandboxDirectoryService.release(workDir);
         }
         
         return response;
@@ -670,7 +772,8 @@ public class CodeExecutionService {
             Files.write(sourceFile, code.getBytes());
             
             // Execute
-            Process execProcess = new ProcessBuilder("python", sourceFile.toString())
+            Process execProcess = new ProcessBuilder(
+                    namespaceSandboxService.wrap(List.of("python", sourceFile.toString()), workDir))
                     .directory(workDir.toFile())
                     .start();
             
@@ -678,7 +781,7 @@ public class CodeExecutionService {
             if (!executed) {
                 execProcess.destroyForcibly();
                 response.setSuccess(false);
-                response.setError("Execution timeout");
+                response.setError(EXECUTION_TIMEOUT_MESSAGE);
                 return response;
             }
             
@@ -697,7 +800,7 @@ public class CodeExecutionService {
             response.setSuccess(false);
             response.setError("Error executing Python code: " + e.getMessage());
         } finally {
-            deleteDirectory(workDir);
+            sandboxDirectoryService.release(workDir);
         }
         
         return response;
@@ -711,8 +814,8 @@ public class CodeExecutionService {
             
             // Compile
             Path executableFile = workDir.resolve("main");
-            Process compileProcess = new ProcessBuilder("g++", "-o", executableFile.toString(), 
-                    sourceFile.toString(), "-lm", "-std=c++17")
+            Process compileProcess = new ProcessBuilder(
+                    nativeToolchainService.compileCommand("cpp", code, sourceFile, executableFile))
                     .directory(workDir.toFile())
                     .redirectErrorStream(true)
                     .start();
@@ -726,7 +829,8 @@ public class CodeExecutionService {
             }
             
             // Execute
-            Process execProcess = new ProcessBuilder(executableFile.toString())
+            Process execProcess = new ProcessBuilder(
+                    namespaceSandboxService.wrap(List.of(executableFile.toString()), workDir))
                     .directory(workDir.toFile())
                     .start();
             
@@ -734,7 +838,7 @@ public class CodeExecutionService {
             if (!executed) {
                 execProcess.destroyForcibly();
                 response.setSuccess(false);
-                response.setError("Execution timeout");
+                response.setError(EXECUTION_TIMEOUT_MESSAGE);
                 return response;
             }
             
@@ -753,7 +857,7 @@ public class CodeExecutionService {
             response.setSuccess(false);
             response.setError("Error executing C++ code: " + e.getMessage());
         } finally {
-            deleteDirectory(workDir);
+            sandboxDirectoryService.release(workDir);
         }
         
         return response;
@@ -767,8 +871,8 @@ public class CodeExecutionService {
             
             // Compile
             Path executableFile = workDir.resolve("main");
-            Process compileProcess = new ProcessBuilder("gcc", "-o", executableFile.toString(), 
-                    sourceFile.toString(), "-lm", "-std=c99")
+            Process compileProcess = new ProcessBuilder(
+                    nativeToolchainService.compileCommand("c", code, sourceFile, executableFile))
                     .directory(workDir.toFile())
                     .redirectErrorStream(true)
                     .start();
@@ -782,7 +886,8 @@ public class CodeExecutionService {
             }
             
             // Execute
-            Process execProcess = new ProcessBuilder(executableFile.toString())
+            Process execProcess = new ProcessBuilder(
+                    namespaceSandboxService.wrap(List.of(executableFile.toString()), workDir))
                     .directory(workDir.toFile())
                     .start();
             
@@ -790,7 +895,7 @@ public class CodeExecutionService {
             if (!executed) {
                 execProcess.destroyForcibly();
                 response.setSuccess(false);
-                response.setError("Execution timeout");
+                response.setError(EXECUTION_TIMEOUT_MESSAGE);
                 return response;
             }
             
@@ -809,81 +914,76 @@ public class CodeExecutionService {
             response.setSuccess(false);
             response.setError("Error executing C code: " + e.getMessage());
         } finally {
-            deleteDirectory(workDir);
+            sandboxDirectoryService.release(workDir);
         }
         
         return response;
     }
 
     private String executeCodeWithInputLocal(String code, String language, String input, 
-                                            Path workDir, long timeoutMs) throws Exception {
-        Process process = null;
-        try {
-            switch (language.toLowerCase()) {
-                case "java":
-                    // Compile and run Java
-                    Path javaFile = workDir.resolve("Main.java");
-                    Files.write(javaFile, code.getBytes());
-
-                    Process compileProcess = new ProcessBuilder("javac", javaFile.toString())
-                            .directory(workDir.toFile()).start();
-                    compileProcess.waitFor(COMPILATION_TIMEOUT, TimeUnit.SECONDS);
-
-                    if (compileProcess.exitValue() != 0) {
-                        throw new RuntimeException("Compilation failed");
-                    }
-
-                    process = new ProcessBuilder("java", "-cp", workDir.toString(), "Main")
-                            .directory(workDir.toFile()).start();
-                    break;
+                                            Path workDir, long timeoutMs, long timeLimitMs) throws Exception {
+        return runProgramLocal(prepareProgramLocal(code, language, workDir, timeLimitMs), workDir, input, timeoutMs);
+    }
 
-                case "python":
-                    Path pythonFile = workDir.resolve("main.py");
-                    Files.write(pythonFile, code.getBytes());
-                    process = new ProcessBuilder("python", pythonFile.toString())
-                            .directory(workDir.toFile()).start();
-                    break;
+    /**
+     * Write the source into workDir and compile it if needed.
+     * Returns the command that runs the program; timeLimitMs is how long it is expected to run.
+     */
+    private List<String> prepareProgramLocal(String code, String language, Path workDir, long timeLimitMs) throws Exception {
+        switch (language.toLowerCase()) {
+            case "java":
+                // Compile and run Java
+                String mainClass = javaLaunchService.mainClassOf(code);
+                Path javaFile = workDir.resolve(mainClass + ".java");
+                Files.write(javaFile, code.getBytes());
+                compileLocal(List.of("javac", javaFile.toString()), workDir);
+                return javaLaunchService.launchCommand(workDir, mainClass, timeLimitMs);
 
-                case "cpp":
-                case "c++":
-                    Path cppFile = workDir.resolve("main.cpp");
-                    Files.write(cppFile, code.getBytes());
+            case "python":
+                Path pythonFile = workDir.resolve("main.py");
+                Files.write(pythonFile, code.getBytes());
+                return List.of("python", pythonFile.toString());
 
-                    Path cppExec = workDir.resolve("main");
-                    Process cppCompile = new ProcessBuilder("g++", "-o", cppExec.toString(), 
-                            cppFile.toString(), "-lm", "-std=c++17")
-                            .directory(workDir.toFile()).start();
-                    cppCompile.waitFor(COMPILATION_TIMEOUT, TimeUnit.SECONDS);
+            case "cpp":
+            case "c++":
+                Path cppFile = workDir.resolve("main.cpp");
+                Files.write(cppFile, code.getBytes());
 
-                    if (cppCompile.exitValue() != 0) {
-                        throw new RuntimeException("Compilation failed");
-                    }
+                Path cppExec = workDir.resolve("main");
+                compileLocal(nativeToolchainService.compileCommand(language, code, cppFile, cppExec), workDir);
+                return List.of(cppExec.toString());
 
-                    process = new ProcessBuilder(cppExec.toString())
-                            .directory(workDir.toFile()).start();
-                    break;
+            case "c":
+                Path cFile = workDir.resolve("main.c");
+                Files.write(cFile, code.getBytes());
 
-                case "c":
-                    Path cFile = workDir.resolve("main.c");
-                    Files.write(cFile, code.getBytes());
+                Path cExec = workDir.resolve("main");
+                compileLocal(nativeToolchainService.compileCommand(language, code, cFile, cExec), workDir);
+                return List.of(cExec.toString());
 
-                    Path cExec = workDir.resolve("main");
-                    Process cCompile = new ProcessBuilder("gcc", "-o", cExec.toString(), 
-                            cFile.toString(), "-lm", "-std=c99")
-                            .directory(workDir.toFile()).start();
-                    cCompile.waitFor(COMPILATION_TIMEOUT, TimeUnit.SECONDS);
+            default:
+                throw new RuntimeException("Unsupported language: " + language);
+        }
+    }
 
-                    if (cCompile.exitValue() != 0) {
-                        throw new RuntimeException("Compilation failed");
-                    }
+    private void compileLocal(List<String> command, Path workDir) throws Exception {
+        Process compileProcess = new ProcessBuilder(command)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .start();
+        boolean compiled = compileProcess.waitFor(COMPILATION_TIMEOUT, TimeUnit.SECONDS);
 
-                    process = new ProcessBuilder(cExec.toString())
-                            .directory(workDir.toFile()).start();
-                    break;
+        if (!compiled || compileProcess.exitValue() != 0) {
+            compileProcess.destroyForcibly();
+            throw new RuntimeException("Compilation failed");
+        }
+    }
 
-                default:
-                    throw new RuntimeException("Unsupported language: " + language);
-            }
+    private String runProgramLocal(List<String> command, Path workDir, String input, long timeoutMs) throws Exception {
+        Process process = null;
+        try {
+            process = new ProcessBuilder(namespaceSandboxService.wrap(command, workDir))
+                    .directory(workDir.toFile()).start();
 
             // Send input to process
             if (input != null && !input.trim().isEmpty()) {
@@ -897,7 +997,7 @@ public class CodeExecutionService {
             boolean finished = process.waitFor(timeoutMs, TimeUnit.MILLISECONDS);
             if (!finished) {
                 process.destroyForcibly();
-                throw new RuntimeException("Execution timeout");
+                throw new RuntimeException(EXECUTION_TIMEOUT_MESSAGE);
             }
 
             if (process.exitValue() != 0) {
@@ -915,6 +1015,33 @@ public class CodeExecutionService {
     }
 
     private TestResultResponse executeTestCaseLocal(String code, String language, TestCase testCase) {
+        return runTestCaseLocal(testCase, () -> {
+            Path workDir = sandboxDirectoryService.acquire();
+            
+            try {
+                // Check if test case uses testCode or input/output mode
+                String codeToExecute = code;
+                String inputToUse = testCase.getInput();
+                
+                if (hasTestCode(testCase)) {
+                    log.debug("Test case {} uses testCode mode, combining code with test", testCase.getId());
+                    codeToExecute = combineCodeWithTestCode(code, testCase.getTestCode(), language);
+                    inputToUse = null; // No input when using testCode
+                }
+                
+                return executeCodeWithInputLocal(codeToExecute, language, inputToUse, 
+                                                 workDir, EXECUTION_TIMEOUT * 1000, timeLimitMs(testCase));
+            } finally {
+                // Cleanup
+                sandboxDirectoryService.release(workDir);
+            }
+        });
+    }
+
+    /**
+     * Run one test case and compare its output with the expected output
+     */
+    private TestResultResponse runTestCaseLocal(TestCase testCase, Callable<String> execution) {
         long startTime = System.currentTimeMillis();
         
         TestResultResponse testResult = new TestResultResponse();
@@ -923,22 +1050,7 @@ public class CodeExecutionService {
         testResult.setExpectedOutput(testCase.getExpectedOutput());
         
         try {
-            String uniqueId = UUID.randomUUID().toString();
-            Path workDir = Paths.get(TEMP_DIR, "cscore_test", uniqueId);
-            Files.createDirectories(workDir);
-            
-            // Check if test case uses testCode or input/output mode
-            String codeToExecute = code;
-            String inputToUse = testCase.getInput();
-            
-            if (testCase.getTestCode() != null && !testCase.getTestCode().trim().isEmpty()) {
-                log.debug("Test case {} uses testCode mode, combining code with test", testCase.getId());
-                codeToExecute = combineCodeWithTestCode(code, testCase.getTestCode(), language);
-                inputToUse = null; // No input when using testCode
-            }
-            
-            String actualOutput = executeCodeWithInputLocal(codeToExecute, language, inputToUse, 
-                                                           workDir, EXECUTION_TIMEOUT * 1000);
+            String actualOutput = execution.call();
             
             long executionTime = System.currentTimeMillis() - startTime;
             
@@ -949,12 +1061,9 @@ public class CodeExecutionService {
             testResult.setPassed(passed);
             
             if (!passed) {
-                testResult.setErrorMessage("Kết quả không khớp với expected output");
+                testResult.setErrorMessage(OUTPUT_MISMATCH_MESSAGE);
             }
             
-            // Cleanup
-            deleteDirectory(workDir);
-            
         } catch (Exception e) {
             long executionTime = System.currentTimeMillis() - startTime;
             testResult.setExecutionTime(executionTime);
@@ -966,6 +1075,75 @@ public class CodeExecutionService {
         return testResult;
     }
 
+    /**
+     * Time limit a test case is expected to finish in, for choosing launch options
+     */
+    private long timeLimitMs(TestCase testCase) {
+        return testCase.getTimeLimit() != null ? testCase.getTimeLimit() : EXECUTION_TIMEOUT * 1000L;
+    }
+
+    private boolean hasTestCode(TestCase testCase) {
+        return testCase.getTestCode() != null && !testCase.getTestCode().trim().isEmpty();
+    }
+
+    /**
+     * Program compiled once and run for every input/output test case of a submission
+     */
+    private static class LocalProgram {
+        private final Path workDir;
+        private final Path buildDir; // workDir as it was right after the build
+        private final List<String> command;
+        private final String compileError;
+        private boolean used = false;
+
+        LocalProgram(Path workDir, Path buildDir, List<String> command, String compileError) {
+            this.workDir = workDir;
+            this.buildDir = buildDir;
+            this.command = command;
+            this.compileError = compileError;
+        }
+    }
+
+    private LocalProgram prepareSharedProgram(String code, String language, long timeLimitMs) throws IOException {
+        Path workDir = sandboxDirectoryService.acquire();
+        List<String> command;
+        try {
+            command = prepareProgramLocal(code, language, workDir, timeLimitMs);
+        } catch (Exception e) {
+            return new LocalProgram(workDir, null, null, e.getMessage());
+        }
+
+        // Each test case must start from the built program alone, as if it ran in a fresh directory
+        Path buildDir = sandboxDirectoryService.acquire();
+        try {
+            sandboxDirectoryService.copyContents(workDir, buildDir);
+        } catch (IOException e) {
+            sandboxDirectoryService.release(buildDir);
+            sandboxDirectoryService.release(workDir);
+            throw e;
+        }
+        return new LocalProgram(workDir, buildDir, command, null);
+    }
+
+    private TestResultResponse runSharedProgramTestCase(LocalProgram program, TestCase testCase) {
+        return runTestCaseLocal(testCase, () -> {
+            if (program.compileError != null) {
+                throw new RuntimeException(program.compileError);
+            }
+            // Drop files an earlier test case created or changed
+            if (program.used) {
+                sandboxDirectoryService.restore(program.workDir, program.buildDir);
+            }
+            program.used = true;
+            return runProgramLocal(program.command, program.workDir, testCase.getInput(), EXECUTION_TIMEOUT * 1000);
+        });
+    }
+
+    private void releaseSharedProgram(LocalProgram program) {
+        sandboxDirectoryService.release(program.workDir);
+        sandboxDirectoryService.release(program.buildDir);
+    }
+
     // ========== UTILITY METHODS ==========
     
     private boolean isMathLibraryError(String error) {
@@ -994,7 +1172,10 @@ public class CodeExecutionService {
         }
     }
 
-    private boolean compareOutputs(String expected, String actual) {
+    /**
+     * Compare expected and actual output, ignoring whitespace differences
+     */
+    public boolean compareOutputs(String expected, String actual) {
         if (expected == null && actual == null) return true;
         if (expected == null || actual == null) return false;
         
@@ -1099,22 +1280,30 @@ public class CodeExecutionService {
         return testResult;
     }
 
-    private void saveTestResult(Submission submission, TestCase testCase, TestResultResponse testResult) {
+    /**
+     * Persist one test result for a submission, stamped with the test case versions
+     */
+    public void saveTestResult(Submission submission, TestCase testCase, TestResultResponse testResult) {
         try {
-            TestResult entity = new TestResult();
-            entity.setSubmission(submission);
-            entity.setTestCase(testCase);
-            entity.setPassed(testResult.isPassed());
-            entity.setActualOutput(testResult.getActualOutput());
-            entity.setErrorMessage(testResult.getErrorMessage());
-            entity.setExecutionTime(testResult.getExecutionTime());
-            
-            testResultRepository.save(entity);
+            testResultWriter.writeAll(List.of(testResultWriter.toEntity(submission, testCase, testResult)));
         } catch (Exception e) {
             log.error("Error saving test result", e);
         }
     }
 
+    private void writeTestResultsAsync(List<TestResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                testResultWriter.writeAll(results);
+            } catch (Exception e) {
+                log.error("Error saving {} test results", results.size(), e);
+            }
+        }, executorService);
+    }
+
     private String readProcessOutput(InputStream inputStream) throws IOException {
         StringBuilder output = new StringBuilder();
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
@@ -1130,19 +1319,6 @@ public class CodeExecutionService {
         return output.toString().trim();
     }
 
-    private void deleteDirectory(Path directory) {
-        try {
-            if (Files.exists(directory)) {
-                Files.walk(directory)
-                        .sorted(Comparator.reverseOrder())
-                        .map(Path::toFile)
-                        .forEach(File::delete);
-            }
-        } catch (IOException e) {
-            log.warn("Failed to delete directory: {}", directory, e);
-        }
-    }
-
     // ========== ENUM ==========
     
     private enum ExecutionStrategy {
@@ -1228,6 +1404,10 @@ public class CodeExecutionService {
         info.put("maxMemoryLimit", "256MB");
         info.put("jobeAvailable", jobeAvailable);
         info.put("localExecutionEnabled", true);
+        info.put("precompiledHeaders", nativeToolchainService.getStatistics());
+        info.put("javaLaunch", javaLaunchService.getStatistics());
+        info.put("sandboxDirectories", sandboxDirectoryService.getStatistics());
+        info.put("namespaceSandbox", namespaceSandboxService.getStatistics());
         
         return info;
     }
@@ -0,0 +1,83 @@
+package iuh.fit.cscore_be.service;
+
+import iuh.fit.cscore_be.entity.Question;
+import iuh.fit.cscore_be.entity.TestCase;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+
+/**
+ * Code Fingerprint Service
+ * Normalizes source code and hashes it so that submissions which only differ
+ * in line endings, trailing whitespace or surrounding blank lines are treated as identical.
+ * Indentation and whitespace inside lines are kept (significant in Python and string literals).
+ */
+@Service
+public class CodeFingerprintService {
+
+    /**
+     * SHA-256 of the normalized code, scoped by language
+     */
+    public String fingerprint(String code, String language) {
+        String scope = language != null ? language.toLowerCase() : "";
+        return sha256(scope + "\n" + normalize(code));
+    }
+
+    /**
+     * Key under which two submissions may share one grading result: the same normalized
+     * code and language, graded for the same assignment and question against the same test set
+     */
+    public String gradingKey(Long assignmentId, Long questionId, String testSetHash, String code, String language) {
+        return sha256(assignmentId + "|" + questionId + "|" + testSetHash + "|" + fingerprint(code, language));
+    }
+
+    /**
+     * Hash of everything besides the student code that decides a question's result:
+     * points, function signature, test template and the version of every test case
+     */
+    public String testSetHash(Question question, Collection<TestCase> testCases) {
+        StringBuilder key = new StringBuilder()
+                .append(question.getPoints()).append('|')
+                .append(question.getFunctionName()).append('|')
+                .append(question.getFunctionSignature()).append('|')
+                .append(question.getTestTemplate());
+        testCases.stream()
+                .sorted(Comparator.comparing(TestCase::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .forEach(tc -> key.append('|').append(tc.getId())
+                        .append(':').append(tc.getVersionOrDefault())
+                        .append(':').append(tc.getExecutionVersionOrDefault()));
+        return sha256(key.toString());
+    }
+
+    public String normalize(String code) {
+        if (code == null) {
+            return "";
+        }
+
+        String[] lines = code.replace("\r\n", "\n").replace('\r', '\n').split("\n", -1);
+        StringBuilder normalized = new StringBuilder(code.length());
+        for (String line : lines) {
+            String trimmed = line.stripTrailing();
+            if (normalized.length() == 0 && trimmed.isEmpty()) {
+                continue; // leading blank lines
+            }
+            normalized.append(trimmed).append('\n');
+        }
+        return normalized.toString().stripTrailing();
+    }
+
+    public String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
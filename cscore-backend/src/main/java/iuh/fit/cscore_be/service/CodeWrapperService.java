@@ -7,6 +7,7 @@ import iuh.fit.cscore_be.entity.Question;
 import iuh.fit.cscore_be.entity.TestCase;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
@@ -14,6 +15,7 @@ import jakarta.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,18 +27,51 @@ import java.util.regex.Pattern;
  * - Test case pattern detection
  * - Multi-language support
  * - Fallback strategies for edge cases
+ * - Per-question wrapper plans (analysis, template choice, pre-split template)
+ *   cached by question, language and test case versions
+ * - Templates compiled at startup into literal segments and typed placeholders,
+ *   rendered in one pass; invalid templates fail startup
  */
 @Service
 @Slf4j
 public class CodeWrapperService {
 
+    private static final String STUDENT_CODE_MARKER = "\u0000STUDENT_CODE\u0000";
+    private static final Pattern SIGNATURE_PATTERN = Pattern.compile("(\\w+)\\s+(\\w+)\\s*\\(([^)]*)\\)");
+    private static final List<Pattern> FUNCTION_PATTERNS = List.of(
+        Pattern.compile("def\\s+(\\w+)\\s*\\(([^)]*)\\):"),  // Python
+        Pattern.compile("(\\w+)\\s+(\\w+)\\s*\\(([^)]*)\\)\\s*\\{"),  // C/C++/Java (simplified)
+        Pattern.compile("function\\s+(\\w+)\\s*\\(([^)]*)\\)")  // JavaScript
+    );
+    private static final Pattern STRING_CHAR_INPUT = Pattern.compile(".*\".*\"\\s+\\w");
+    private static final Pattern NUMERIC_INPUT = Pattern.compile("^[\\d\\s,.-]+$");
+    private static final Pattern MATRIX_INPUT = Pattern.compile("^\\d+\\s+\\d+\\s+[\\d\\s]+$");
+    private static final Pattern VALUE_SEPARATOR = Pattern.compile("[\\s,]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Value("${wrapper.plan-cache.max-entries:2000}")
+    private int maxCachedPlans;
+
+    @Value("${wrapper.templates.fail-on-error:true}")
+    private boolean failOnTemplateError;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, WrapperPlan> wrapperPlans = new ConcurrentHashMap<>();
     private Map<String, WrapperTemplate> wrapperTemplates = new HashMap<>();
     private Map<String, Map<String, WrapperTemplate>> languageTemplates = new HashMap<>();
+    private final List<String> templateErrors = new ArrayList<>();
     
     @PostConstruct
     public void initializeTemplates() {
         loadTemplatesFromResources();
+        
+        if (!templateErrors.isEmpty()) {
+            String message = "Invalid wrapper templates: " + String.join("; ", templateErrors);
+            if (failOnTemplateError) {
+                throw new IllegalStateException(message);
+            }
+            log.error(message);
+        }
     }
 
     /**
@@ -51,22 +86,28 @@ public class CodeWrapperService {
      */
     public String wrapFunctionCode(String studentCode, Question question, String language, List<TestCase> testCases) {
         try {
-            log.info("Wrapping function code for language: {}, function: {}", 
-                     language, question != null ? question.getFunctionName() : "unknown");
-
             // 1. Check if already has main function
             if (hasMainFunction(studentCode, language)) {
                 log.info("Code already has main function, using as-is");
                 return studentCode;
             }
             
-            // 2. Analyze function signature
+            // 2. Reuse the question's wrapper plan: only the student code is spliced in
+            WrapperPlan plan = getWrapperPlan(question, language, testCases);
+            if (plan != null) {
+                return plan.wrap(studentCode);
+            }
+            
+            log.info("Wrapping function code for language: {}, function: {}", 
+                     language, question != null ? question.getFunctionName() : "unknown");
+            
+            // 3. No function metadata on the question: the analysis depends on the student code
             FunctionAnalysisResult signatureAnalysis = analyzeFunctionSignature(studentCode, question);
             
-            // 3. Analyze test case patterns
+            // 4. Analyze test case patterns
             TestCaseAnalysis testCaseAnalysis = analyzeTestCases(testCases);
             
-            // 4. Generate wrapper using templates
+            // 5. Generate wrapper using templates
             return generateTemplateWrapper(studentCode, question, language, signatureAnalysis, testCaseAnalysis);
             
         } catch (Exception e) {
@@ -75,6 +116,95 @@ public class CodeWrapperService {
         }
     }
 
+    /**
+     * Render a named template for a known function, e.g. toolchain warm-up programs.
+     * Returns null when the template does not exist.
+     */
+    public String renderTemplate(String templateName, String studentCode, String functionName, String patternType) {
+        WrapperTemplate template = wrapperTemplates.get(templateName);
+        if (template == null) {
+            return null;
+        }
+
+        FunctionAnalysisResult signatureAnalysis = new FunctionAnalysisResult();
+        signatureAnalysis.setFunctionName(functionName);
+        TestCaseAnalysis testCaseAnalysis = new TestCaseAnalysis();
+        testCaseAnalysis.setInputPattern(patternType);
+        return template.getCompiled().render(studentCode, templateValues(signatureAnalysis, testCaseAnalysis));
+    }
+
+    // ========== WRAPPER PLAN CACHE ==========
+    
+    /**
+     * Cached question-dependent part of wrapping, or null when it cannot be shared
+     * (no persisted question, or a function name that has to be read from the student code)
+     */
+    private WrapperPlan getWrapperPlan(Question question, String language, List<TestCase> testCases) {
+        String key = planKey(question, language, testCases);
+        if (key == null) {
+            return null;
+        }
+        
+        WrapperPlan cached = wrapperPlans.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        
+        FunctionAnalysisResult signatureAnalysis = analyzeQuestionSignature(question);
+        if (signatureAnalysis.getFunctionName() == null) {
+            return null;
+        }
+        
+        if (wrapperPlans.size() >= maxCachedPlans) {
+            wrapperPlans.clear();
+        }
+        return wrapperPlans.computeIfAbsent(key, k -> buildWrapperPlan(question, language, testCases, signatureAnalysis));
+    }
+    
+    /**
+     * Question, language, function metadata and the id/execution version of each test case
+     */
+    private String planKey(Question question, String language, List<TestCase> testCases) {
+        if (question == null || question.getId() == null || language == null) {
+            return null;
+        }
+        
+        StringBuilder key = new StringBuilder()
+                .append(question.getId()).append('|')
+                .append(language.toLowerCase()).append('|')
+                .append(question.getFunctionName()).append('|')
+                .append(question.getFunctionSignature());
+        if (testCases != null) {
+            for (TestCase testCase : testCases) {
+                if (testCase.getId() == null) {
+                    return null;
+                }
+                key.append('|').append(testCase.getId()).append(':').append(testCase.getExecutionVersionOrDefault());
+            }
+        }
+        return key.toString();
+    }
+    
+    private WrapperPlan buildWrapperPlan(Question question, String language, List<TestCase> testCases,
+                                         FunctionAnalysisResult signatureAnalysis) {
+        TestCaseAnalysis testCaseAnalysis = analyzeTestCases(testCases);
+        WrapperTemplate template = findBestTemplate(language, testCaseAnalysis.getInputPattern(), signatureAnalysis);
+        
+        WrapperPlan plan;
+        if (template != null) {
+            plan = template.getCompiled().bind(templateValues(signatureAnalysis, testCaseAnalysis));
+        } else {
+            log.warn("No suitable template found for language: {}, pattern: {}", 
+                     language, testCaseAnalysis.getInputPattern());
+            String wrapper = generateFallbackWrapper(STUDENT_CODE_MARKER, question, language);
+            plan = new WrapperPlan(wrapper.split(Pattern.quote(STUDENT_CODE_MARKER), -1));
+        }
+        
+        log.info("Built wrapper plan for question {} ({}, pattern: {})",
+                question.getId(), language, testCaseAnalysis.getInputPattern());
+        return plan;
+    }
+
     // ========== TEMPLATE-BASED WRAPPER GENERATION ==========
     
     private String generateTemplateWrapper(String studentCode, Question question, String language,
@@ -130,54 +260,41 @@ public class CodeWrapperService {
                                       FunctionAnalysisResult signatureAnalysis,
                                       TestCaseAnalysis testCaseAnalysis) {
         
-        String templateContent = template.getTemplate();
-        
-        // Replace template placeholders
-        templateContent = templateContent.replace("{STUDENT_CODE}", studentCode);
-        templateContent = templateContent.replace("{FUNCTION_NAME}", 
-                         signatureAnalysis.getFunctionName() != null ? signatureAnalysis.getFunctionName() : "main");
-        templateContent = templateContent.replace("{PATTERN_TYPE}", testCaseAnalysis.getInputPattern());
-        
-        // Replace parameter types if available
-        if (signatureAnalysis.getParameterTypes() != null && !signatureAnalysis.getParameterTypes().isEmpty()) {
-            String expectedTypes = "[\"" + String.join("\", \"", signatureAnalysis.getParameterTypes()) + "\"]";
-            templateContent = templateContent.replace("{EXPECTED_TYPES}", expectedTypes);
-        } else {
-            templateContent = templateContent.replace("{EXPECTED_TYPES}", "[]");
-        }
-        
-        // Additional language-specific replacements
-        templateContent = performLanguageSpecificReplacements(templateContent, signatureAnalysis);
+        String wrapper = template.getCompiled().render(studentCode, templateValues(signatureAnalysis, testCaseAnalysis));
         
         log.debug("Generated wrapper code from template");
-        return templateContent;
+        return wrapper;
     }
     
-    private String performLanguageSpecificReplacements(String template, FunctionAnalysisResult analysis) {
-        // Handle language-specific patterns
-        if (analysis.getFunctionName() != null) {
-            template = template.replace("{FUNCTION_CALL}", analysis.getFunctionName());
-        }
-        
-        if (analysis.getReturnType() != null) {
-            template = template.replace("{RETURN_TYPE}", analysis.getReturnType());
+    /**
+     * Placeholder values other than {STUDENT_CODE}; a null value keeps the placeholder text as-is
+     */
+    private Map<Placeholder, String> templateValues(FunctionAnalysisResult signatureAnalysis,
+                                                    TestCaseAnalysis testCaseAnalysis) {
+        Map<Placeholder, String> values = new EnumMap<>(Placeholder.class);
+        values.put(Placeholder.FUNCTION_NAME,
+                signatureAnalysis.getFunctionName() != null ? signatureAnalysis.getFunctionName() : "main");
+        values.put(Placeholder.PATTERN_TYPE, testCaseAnalysis.getInputPattern());
+        
+        // Parameter types if available
+        if (signatureAnalysis.getParameterTypes() != null && !signatureAnalysis.getParameterTypes().isEmpty()) {
+            values.put(Placeholder.EXPECTED_TYPES,
+                    "[\"" + String.join("\", \"", signatureAnalysis.getParameterTypes()) + "\"]");
+        } else {
+            values.put(Placeholder.EXPECTED_TYPES, "[]");
         }
         
-        return template;
+        // Language-specific placeholders
+        values.put(Placeholder.FUNCTION_CALL, signatureAnalysis.getFunctionName());
+        values.put(Placeholder.RETURN_TYPE, signatureAnalysis.getReturnType());
+        return values;
     }
 
     // ========== FUNCTION SIGNATURE ANALYSIS ==========
     
     private FunctionAnalysisResult analyzeFunctionSignature(String code, Question question) {
-        FunctionAnalysisResult result = new FunctionAnalysisResult();
-        
         // Try to extract from question metadata first
-        if (question != null) {
-            result.setFunctionName(question.getFunctionName());
-            if (question.getFunctionSignature() != null) {
-                parseSignatureFromString(question.getFunctionSignature(), result);
-            }
-        }
+        FunctionAnalysisResult result = analyzeQuestionSignature(question);
         
         // If no question metadata, try to extract from code
         if (result.getFunctionName() == null) {
@@ -194,11 +311,24 @@ public class CodeWrapperService {
         return result;
     }
     
+    /**
+     * Function name, return and parameter types declared on the question (student code not needed)
+     */
+    private FunctionAnalysisResult analyzeQuestionSignature(Question question) {
+        FunctionAnalysisResult result = new FunctionAnalysisResult();
+        if (question != null) {
+            result.setFunctionName(question.getFunctionName());
+            if (question.getFunctionSignature() != null) {
+                parseSignatureFromString(question.getFunctionSignature(), result);
+            }
+        }
+        return result;
+    }
+    
     private void parseSignatureFromString(String signature, FunctionAnalysisResult result) {
         try {
             // Parse function signature like "int add(int a, int b)"
-            Pattern pattern = Pattern.compile("(\\w+)\\s+(\\w+)\\s*\\(([^)]*)\\)");
-            Matcher matcher = pattern.matcher(signature.trim());
+            Matcher matcher = SIGNATURE_PATTERN.matcher(signature.trim());
             
             if (matcher.find()) {
                 result.setReturnType(matcher.group(1));
@@ -209,7 +339,7 @@ public class CodeWrapperService {
                     List<String> paramTypes = new ArrayList<>();
                     String[] paramParts = params.split(",");
                     for (String param : paramParts) {
-                        String[] typeName = param.trim().split("\\s+");
+                        String[] typeName = WHITESPACE.split(param.trim());
                         if (typeName.length > 0) {
                             paramTypes.add(typeName[0]);
                         }
@@ -224,13 +354,7 @@ public class CodeWrapperService {
     
     private void extractFunctionFromCode(String code, FunctionAnalysisResult result) {
         // Try to find function definitions in code
-        List<Pattern> functionPatterns = Arrays.asList(
-            Pattern.compile("def\\s+(\\w+)\\s*\\(([^)]*)\\):"),  // Python
-            Pattern.compile("(\\w+)\\s+(\\w+)\\s*\\(([^)]*)\\)\\s*\\{"),  // C/C++/Java (simplified)
-            Pattern.compile("function\\s+(\\w+)\\s*\\(([^)]*)\\)")  // JavaScript
-        );
-        
-        for (Pattern pattern : functionPatterns) {
+        for (Pattern pattern : FUNCTION_PATTERNS) {
             Matcher matcher = pattern.matcher(code);
             if (matcher.find()) {
                 result.setFunctionName(matcher.group(matcher.groupCount() - 1));
@@ -279,13 +403,13 @@ public class CodeWrapperService {
         String trimmed = input.trim();
         
         // Check for string + character pattern (e.g., "hello w")
-        if (trimmed.matches(".*\".*\"\\s+\\w")) {
+        if (STRING_CHAR_INPUT.matcher(trimmed).matches()) {
             return "string_char";
         }
         
         // Check for array pattern (numbers separated by spaces/commas)
-        if (trimmed.matches("^[\\d\\s,.-]+$")) {
-            String[] parts = trimmed.split("[\\s,]+");
+        if (NUMERIC_INPUT.matcher(trimmed).matches()) {
+            String[] parts = VALUE_SEPARATOR.split(trimmed);
             if (parts.length > 2) {
                 return "array_size";
             } else if (parts.length == 1) {
@@ -296,7 +420,7 @@ public class CodeWrapperService {
         }
         
         // Check for matrix pattern (starts with dimensions)
-        if (trimmed.matches("^\\d+\\s+\\d+\\s+[\\d\\s]+$")) {
+        if (MATRIX_INPUT.matcher(trimmed).matches()) {
             return "matrix";
         }
         
@@ -463,6 +587,9 @@ public class CodeWrapperService {
                         template.setPatterns((List<String>) templateData.get("patterns"));
                         template.setLanguages((List<String>) templateData.get("languages"));
                         template.setComplexity((String) templateData.get("complexity"));
+                        if (!compileTemplate(templateName, template)) {
+                            continue;
+                        }
                         
                         wrapperTemplates.put(templateName, template);
                         
@@ -504,6 +631,9 @@ public class CodeWrapperService {
                                 template.setComplexity("legacy");
                                 
                                 String templateKey = language + "_" + pattern;
+                                if (!compileTemplate(templateKey, template)) {
+                                    continue;
+                                }
                                 wrapperTemplates.put(templateKey, template);
                                 
                                 // Organize by language and pattern
@@ -519,6 +649,16 @@ public class CodeWrapperService {
         }
     }
 
+    private boolean compileTemplate(String name, WrapperTemplate template) {
+        try {
+            template.setCompiled(CompiledTemplate.compile(name, template.getTemplate()));
+            return true;
+        } catch (IllegalArgumentException e) {
+            templateErrors.add(e.getMessage());
+            return false;
+        }
+    }
+
     // ========== DATA CLASSES ==========
     
     @Data
@@ -528,6 +668,181 @@ public class CodeWrapperService {
         private List<String> patterns;
         private List<String> languages;
         private String complexity;
+        private CompiledTemplate compiled;
+    }
+    
+    /**
+     * Placeholders understood by the template engine
+     */
+    public enum Placeholder {
+        STUDENT_CODE,
+        FUNCTION_NAME,
+        PATTERN_TYPE,
+        EXPECTED_TYPES,
+        FUNCTION_CALL,
+        RETURN_TYPE;
+        
+        private static final Map<String, Placeholder> BY_NAME = new HashMap<>();
+        static {
+            for (Placeholder placeholder : values()) {
+                BY_NAME.put(placeholder.name(), placeholder);
+            }
+        }
+        
+        public String token() {
+            return "{" + name() + "}";
+        }
+        
+        static Placeholder fromName(String name) {
+            return BY_NAME.get(name);
+        }
+    }
+    
+    /**
+     * Template parsed once into literal text and placeholders: literals[i] precedes placeholders[i],
+     * the last literal follows the last placeholder. Braces that are not a known placeholder
+     * (code blocks, f-strings) stay literal text.
+     */
+    public static class CompiledTemplate {
+        private final String[] literals;
+        private final Placeholder[] placeholders;
+        private final int literalLength;
+        
+        private CompiledTemplate(List<String> literals, List<Placeholder> placeholders) {
+            this.literals = literals.toArray(new String[0]);
+            this.placeholders = placeholders.toArray(new Placeholder[0]);
+            int length = 0;
+            for (String literal : this.literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+        
+        /**
+         * @throws IllegalArgumentException when the template is empty, has an unterminated
+         *         placeholder or no {STUDENT_CODE}
+         */
+        public static CompiledTemplate compile(String name, String source) {
+            if (source == null || source.isBlank()) {
+                throw new IllegalArgumentException("template '" + name + "' is empty");
+            }
+            
+            List<String> literals = new ArrayList<>();
+            List<Placeholder> placeholders = new ArrayList<>();
+            int literalStart = 0;
+            int i = 0;
+            while (i < source.length()) {
+                if (source.charAt(i) != '{') {
+                    i++;
+                    continue;
+                }
+                
+                int end = i + 1;
+                while (end < source.length() && isPlaceholderChar(source.charAt(end))) {
+                    end++;
+                }
+                String token = source.substring(i + 1, end);
+                Placeholder placeholder = Placeholder.fromName(token);
+                boolean closed = end < source.length() && source.charAt(end) == '}';
+                
+                if (placeholder != null && closed) {
+                    literals.add(source.substring(literalStart, i));
+                    placeholders.add(placeholder);
+                    i = end + 1;
+                    literalStart = i;
+                    continue;
+                }
+                if (placeholder != null) {
+                    throw new IllegalArgumentException("template '" + name + "' has unterminated placeholder {"
+                            + token + " at offset " + i);
+                }
+                if (closed && token.indexOf('_') > 0 && Character.isLetter(token.charAt(0))) {
+                    log.warn("Template '{}' has unknown placeholder {{}}, kept as text", name, token);
+                }
+                i++;
+            }
+            literals.add(source.substring(literalStart));
+            
+            if (!placeholders.contains(Placeholder.STUDENT_CODE)) {
+                throw new IllegalArgumentException("template '" + name + "' has no {STUDENT_CODE} placeholder");
+            }
+            return new CompiledTemplate(literals, placeholders);
+        }
+        
+        private static boolean isPlaceholderChar(char c) {
+            return (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+        }
+        
+        /**
+         * Full wrapper in a single pass into a buffer sized up front
+         */
+        public String render(String studentCode, Map<Placeholder, String> values) {
+            int capacity = literalLength;
+            for (Placeholder placeholder : placeholders) {
+                capacity += valueOf(placeholder, studentCode, values).length();
+            }
+            
+            StringBuilder rendered = new StringBuilder(capacity);
+            for (int i = 0; i < placeholders.length; i++) {
+                rendered.append(literals[i]).append(valueOf(placeholders[i], studentCode, values));
+            }
+            return rendered.append(literals[placeholders.length]).toString();
+        }
+        
+        /**
+         * Resolve every placeholder except {STUDENT_CODE}, leaving the segments around it
+         */
+        public WrapperPlan bind(Map<Placeholder, String> values) {
+            List<String> segments = new ArrayList<>();
+            StringBuilder segment = new StringBuilder(literalLength);
+            for (int i = 0; i < placeholders.length; i++) {
+                segment.append(literals[i]);
+                if (placeholders[i] == Placeholder.STUDENT_CODE) {
+                    segments.add(segment.toString());
+                    segment.setLength(0);
+                } else {
+                    segment.append(valueOf(placeholders[i], null, values));
+                }
+            }
+            segment.append(literals[placeholders.length]);
+            segments.add(segment.toString());
+            return new WrapperPlan(segments.toArray(new String[0]));
+        }
+        
+        private static String valueOf(Placeholder placeholder, String studentCode, Map<Placeholder, String> values) {
+            if (placeholder == Placeholder.STUDENT_CODE) {
+                return studentCode;
+            }
+            String value = values.get(placeholder);
+            return value != null ? value : placeholder.token();
+        }
+    }
+    
+    /**
+     * Wrapper for one question revision with every placeholder except the student code
+     * resolved, kept as the segments around {STUDENT_CODE}
+     */
+    public static class WrapperPlan {
+        private final String[] segments;
+        private final int fixedLength;
+
+        WrapperPlan(String[] segments) {
+            this.segments = segments;
+            int length = 0;
+            for (String segment : segments) {
+                length += segment.length();
+            }
+            this.fixedLength = length;
+        }
+
+        public String wrap(String studentCode) {
+            StringBuilder wrapped = new StringBuilder(fixedLength + studentCode.length() * (segments.length - 1));
+            wrapped.append(segments[0]);
+            for (int i = 1; i < segments.length; i++) {
+                wrapped.append(studentCode).append(segments[i]);
+            }
+            return wrapped.toString();
+        }
     }
     
     @Data
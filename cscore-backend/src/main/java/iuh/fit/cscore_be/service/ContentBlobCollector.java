@@ -0,0 +1,92 @@
+package iuh.fit.cscore_be.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Content Blob Collector
+ * Mark-and-sweep of content_blobs that no row references any more (deleted submissions,
+ * overwritten grading details and outputs, pruned history):
+ * - Walks the blobs older than the grace period in hash order, one page per statement
+ * - Deletes the page's blobs that none of the hash columns below references, re-checking
+ *   age and references in the DELETE itself so a blob stored again meanwhile is kept
+ * - Each page commits on its own; an interrupted run simply continues at the next schedule
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContentBlobCollector {
+
+    // Every column that holds a content blob hash
+    private static final List<HashColumn> REFERENCES = List.of(
+            new HashColumn("submissions", "code_hash"),
+            new HashColumn("submissions", "grading_details_hash"),
+            new HashColumn("test_results", "actual_output_hash"),
+            new HashColumn("submission_versions", "payload_hash"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentBlobStore contentBlobStore;
+
+    @Value("${storage.blobs.gc-enabled:true}")
+    private boolean gcEnabled;
+
+    @Value("${storage.blobs.gc-grace-hours:24}")
+    private long gcGraceHours;
+
+    @Value("${storage.blobs.gc-batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(cron = "${storage.blobs.gc-cron:0 30 3 * * *}")
+    public void collectUnreferenced() {
+        if (!gcEnabled) {
+            return;
+        }
+        try {
+            Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusHours(gcGraceHours));
+            String unreferenced = REFERENCES.stream()
+                    .map(ref -> "NOT EXISTS (SELECT 1 FROM " + ref.table() + " r WHERE r." + ref.column()
+                            + " = content_blobs.hash)")
+                    .collect(Collectors.joining(" AND "));
+
+            long scanned = 0;
+            long deleted = 0;
+            String after = "";
+            List<String> page;
+            do {
+                page = jdbcTemplate.queryForList("SELECT hash FROM content_blobs WHERE created_at < ? AND hash > ? "
+                        + "ORDER BY hash LIMIT ?", String.class, cutoff, after, batchSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                String placeholders = String.join(", ", Collections.nCopies(page.size(), "?"));
+                List<Object> args = new ArrayList<>(page);
+                args.add(cutoff);
+                deleted += jdbcTemplate.update("DELETE FROM content_blobs WHERE hash IN (" + placeholders + ") "
+                        + "AND created_at < ? AND " + unreferenced, args.toArray());
+                contentBlobStore.forget(page);
+                scanned += page.size();
+                after = page.get(page.size() - 1);
+            } while (page.size() == batchSize);
+
+            if (deleted > 0) {
+                log.info("Deleted {} unreferenced content blobs of {} older than {} h", deleted, scanned, gcGraceHours);
+            }
+        } catch (Exception e) {
+            log.error("Error collecting unreferenced content blobs", e);
+        }
+    }
+
+    private record HashColumn(String table, String column) {
+    }
+}
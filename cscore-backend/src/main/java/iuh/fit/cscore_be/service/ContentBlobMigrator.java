@@ -0,0 +1,97 @@
+package iuh.fit.cscore_be.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content Blob Migrator
+ * Moves large text written inline before the blob store existed into content_blobs:
+ * - submissions.code, submissions.grading_details and test_results.actual_output
+ * - Runs once in the background after startup, one transaction per batch of rows
+ * - Only rows that still have no hash are touched, so it can be interrupted and rerun
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContentBlobMigrator {
+
+    private static final List<InlineColumn> COLUMNS = List.of(
+            new InlineColumn("submissions", "code", "code_hash"),
+            new InlineColumn("submissions", "grading_details", "grading_details_hash"),
+            new InlineColumn("test_results", "actual_output", "actual_output_hash"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentBlobStore contentBlobStore;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${storage.blobs.migrate-inline:true}")
+    private boolean migrateInline;
+
+    @Value("${storage.blobs.migration-batch-size:200}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateInBackground() {
+        if (!migrateInline) {
+            return;
+        }
+        Thread thread = new Thread(this::migrateAll, "ContentBlobMigration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void migrateAll() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (InlineColumn column : COLUMNS) {
+            try {
+                long moved = 0;
+                int batch;
+                do {
+                    batch = transaction.execute(status -> migrateBatch(column));
+                    moved += batch;
+                } while (batch == batchSize);
+                if (moved > 0) {
+                    log.info("Moved {} inline values of {}.{} to the content blob store", moved, column.table(), column.column());
+                }
+            } catch (Exception e) {
+                log.error("Error moving {}.{} to the content blob store", column.table(), column.column(), e);
+            }
+        }
+    }
+
+    private int migrateBatch(InlineColumn column) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT id, " + column.column() + " AS content FROM " + column.table()
+                        + " WHERE " + column.column() + " IS NOT NULL AND " + column.hashColumn() + " IS NULL LIMIT ?",
+                batchSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<String> contents = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            String content = (String) row.get("content");
+            contents.add(content);
+            updates.add(new Object[]{ContentBlobStore.hash(content), row.get("id")});
+        }
+        contentBlobStore.storeAll(contents);
+        jdbcTemplate.batchUpdate("UPDATE " + column.table() + " SET " + column.hashColumn() + " = ?, "
+                + column.column() + " = NULL WHERE id = ? AND " + column.hashColumn() + " IS NULL", updates);
+        return rows.size();
+    }
+
+    private record InlineColumn(String table, String column, String hashColumn) {
+    }
+}
@@ -0,0 +1,233 @@
+package iuh.fit.cscore_be.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Content Blob Store
+ * Content-addressed storage for large text (submission code, grading details, program output):
+ * - Each distinct text is stored once in content_blobs, deflate-compressed, keyed by its SHA-256
+ * - Entities keep only the hash; ContentBlobListener stores their text and loads it on first access
+ * - Writes join the caller's transaction; a hash is only remembered as stored after commit
+ * - Storing a text again refreshes created_at, which ContentBlobCollector uses as the grace period
+ *   before an unreferenced blob is deleted; a remembered hash is trusted for half that period
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContentBlobStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${storage.blobs.cache-max-entries:2000}")
+    private int maxCachedBlobs;
+
+    @Value("${storage.blobs.compression-level:6}")
+    private int compressionLevel;
+
+    @Value("${storage.blobs.gc-grace-hours:24}")
+    private long gcGraceHours;
+
+    private final Map<String, String> contents = new ConcurrentHashMap<>();
+    // Hash -> time it was last stored by this instance
+    private final Map<String, Long> storedHashes = new ConcurrentHashMap<>();
+
+    /**
+     * SHA-256 of the UTF-8 text, or null for null text
+     */
+    public static String hash(String content) {
+        if (content == null) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Store a text if it is not stored yet; returns its hash
+     */
+    public String store(String content) {
+        if (content == null) {
+            return null;
+        }
+        storeAll(List.of(content));
+        return hash(content);
+    }
+
+    /**
+     * Store several texts with one JDBC batch, skipping duplicates and texts recently known to be stored
+     */
+    public void storeAll(Collection<String> texts) {
+        long trustedSince = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(gcGraceHours) / 2;
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            String hash = hash(text);
+            Long storedAt = storedHashes.get(hash);
+            if (storedAt == null || storedAt < trustedSince) {
+                missing.putIfAbsent(hash, text);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        long storedAt = System.currentTimeMillis();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        missing.forEach((hash, text) -> {
+            byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+            rows.add(new Object[]{hash, compress(raw), raw.length, now});
+            cache(hash, text);
+        });
+        // An existing blob only gets a fresh created_at, so the collector leaves it alone while it is being referenced
+        jdbcTemplate.batchUpdate("INSERT INTO content_blobs (hash, data, original_size, created_at) VALUES (?, ?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE created_at = VALUES(created_at)", rows);
+        rememberStored(missing.keySet(), storedAt);
+    }
+
+    /**
+     * Drop hashes from the stored set after their blobs may have been deleted
+     */
+    public void forget(Collection<String> hashes) {
+        hashes.forEach(storedHashes::remove);
+    }
+
+    /**
+     * Text for a hash, or null when no blob has that hash
+     */
+    public String load(String hash) {
+        String cached = contents.get(hash);
+        if (cached != null) {
+            return cached;
+        }
+        List<byte[]> data = jdbcTemplate.query("SELECT data FROM content_blobs WHERE hash = ?",
+                (rs, rowNum) -> rs.getBytes(1), hash);
+        if (data.isEmpty()) {
+            log.warn("Content blob {} not found", hash);
+            return null;
+        }
+        String text = new String(decompress(data.get(0)), StandardCharsets.UTF_8);
+        cache(hash, text);
+        return text;
+    }
+
+    /**
+     * Texts for several hashes with one query; missing hashes are left out
+     */
+    public Map<String, String> loadAll(Collection<String> hashes) {
+        Map<String, String> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String hash : new LinkedHashSet<>(hashes)) {
+            if (hash == null) {
+                continue;
+            }
+            String cached = contents.get(hash);
+            if (cached != null) {
+                result.put(hash, cached);
+            } else {
+                missing.add(hash);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(missing.size(), "?"));
+        jdbcTemplate.query("SELECT hash, data FROM content_blobs WHERE hash IN (" + placeholders + ")", rs -> {
+            String text = new String(decompress(rs.getBytes(2)), StandardCharsets.UTF_8);
+            result.put(rs.getString(1), text);
+        }, missing.toArray());
+        return result;
+    }
+
+    private void rememberStored(Set<String> hashes, long storedAt) {
+        List<String> stored = new ArrayList<>(hashes);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addStored(stored, storedAt);
+            return;
+        }
+        // A rolled back insert must not be skipped the next time the same text is stored
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addStored(stored, storedAt);
+            }
+        });
+    }
+
+    private void addStored(Collection<String> hashes, long storedAt) {
+        if (storedHashes.size() >= maxCachedBlobs * 10) {
+            storedHashes.clear();
+        }
+        hashes.forEach(hash -> storedHashes.put(hash, storedAt));
+    }
+
+    private void cache(String hash, String text) {
+        if (contents.size() >= maxCachedBlobs) {
+            contents.clear();
+        }
+        contents.put(hash, text);
+    }
+
+    private byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] decompress(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated content blob");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt content blob", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
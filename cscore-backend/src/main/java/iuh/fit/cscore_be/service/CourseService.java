@@ -2,6 +2,7 @@ package iuh.fit.cscore_be.service;
 
 import iuh.fit.cscore_be.dto.request.CourseRequest;
 import iuh.fit.cscore_be.dto.request.AdminCourseRequest;
+import iuh.fit.cscore_be.dto.request.ExecutionQuotaRequest;
 import iuh.fit.cscore_be.dto.response.CourseResponse;
 import iuh.fit.cscore_be.dto.response.StudentResponse;
 import iuh.fit.cscore_be.entity.Course;
@@ -30,6 +31,7 @@ public class CourseService {
     private final CourseRepository courseRepository;
     private final EnrollmentRepository enrollmentRepository;
     private final UserRepository userRepository;
+    private final ExecutionFairScheduler executionFairScheduler;
     
     // Note: Course creation by teachers is now disabled
     // Only admins can create courses
@@ -144,6 +146,22 @@ public class CourseService {
         throw new RuntimeException("Giáo viên không có quyền xóa sinh viên. Vui lòng liên hệ Admin.");
     }
     
+    public CourseResponse updateExecutionQuota(Long courseId, ExecutionQuotaRequest request, User teacher) {
+        Course course = courseRepository.findById(courseId)
+            .orElseThrow(() -> new RuntimeException("Không tìm thấy khóa học"));
+        
+        if (!course.getTeacher().getId().equals(teacher.getId())) {
+            throw new RuntimeException("Bạn không có quyền chỉnh sửa khóa học này");
+        }
+        
+        course.setExecutionWeight(request.getExecutionWeight());
+        course.setStudentExecutionQuota(request.getStudentExecutionQuota());
+        Course savedCourse = courseRepository.save(course);
+        executionFairScheduler.refreshCoursePolicy(courseId);
+        
+        return convertToResponse(savedCourse);
+    }
+    
     private CourseResponse convertToResponse(Course course) {
         Long studentCount = enrollmentRepository.countByCourseAndIsActiveTrue(course);
         
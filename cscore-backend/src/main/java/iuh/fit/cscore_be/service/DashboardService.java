@@ -6,15 +6,21 @@ import iuh.fit.cscore_be.enums.Role;
 import iuh.fit.cscore_be.enums.SubmissionStatus;
 import iuh.fit.cscore_be.exception.ResourceNotFoundException;
 import iuh.fit.cscore_be.repository.*;
+import iuh.fit.cscore_be.repository.projection.SubmissionStats;
+import iuh.fit.cscore_be.repository.projection.SubmissionSummary;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -37,6 +43,7 @@ public class DashboardService {
     private final TestCaseRepository testCaseRepository;
     private final CourseRepository courseRepository;
     private final UserRepository userRepository;
+    private final AssignmentContentLoader assignmentContentLoader;
 
     /**
      * Main entry point - Get dashboard data based on user role
@@ -104,47 +111,33 @@ public class DashboardService {
         // Basic counts
         stats.setTotalCourses((long) courses.size());
         
-        List<Assignment> allAssignments = courses.stream()
-                .flatMap(course -> assignmentRepository.findByCourseAndIsActiveTrue(course).stream())
-                .collect(Collectors.toList());
-        stats.setTotalAssignments((long) allAssignments.size());
+        stats.setTotalAssignments(courses.isEmpty() ? 0L : assignmentRepository.countByCourseInAndIsActiveTrue(courses));
         
-        // Submission statistics
-        List<Submission> submissions = submissionRepository.findByStudent(student);
-        stats.setTotalSubmissions((long) submissions.size());
-        stats.setSubmittedAssignments((long) submissions.size());
+        // Submission statistics, aggregated in the database
+        SubmissionStats submissionStats = submissionRepository.getStatsByStudent(student);
+        stats.setTotalSubmissions(submissionStats.totalOrZero());
+        stats.setSubmittedAssignments(submissionStats.totalOrZero());
         
         // Calculate completed vs pending
-        long completedAssignments = submissions.stream()
-                .filter(s -> s.getStatus() == SubmissionStatus.GRADED)
-                .count();
-        stats.setCompletedAssignments(completedAssignments);
+        stats.setCompletedAssignments(submissionStats.gradedOrZero());
         stats.setPendingAssignments(stats.getTotalAssignments() - stats.getSubmittedAssignments());
         
-        // Calculate average score
-        double averageScore = submissions.stream()
-                .filter(s -> s.getScore() != null)
-                .mapToDouble(Submission::getScore)
-                .average()
-                .orElse(0.0);
-        stats.setAverageScore(averageScore);
+        stats.setAverageScore(submissionStats.averageScoreOrZero());
         
         return stats;
     }
     
     private List<StudentAssignmentResponse> getRecentAssignmentsForStudent(User student, List<Course> courses) {
-        return courses.stream()
-                .flatMap(course -> assignmentRepository.findByCourseAndIsActiveTrue(course).stream())
-                .sorted((a1, a2) -> a2.getCreatedAt().compareTo(a1.getCreatedAt()))
-                .limit(5)
-                .map(assignment -> convertToStudentAssignmentResponse(assignment, student))
-                .collect(Collectors.toList());
+        if (courses.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Assignment> recentAssignments = assignmentRepository.findByCourseInAndIsActiveTrue(
+                courses, PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "createdAt"))).getContent();
+        return convertToStudentAssignmentResponses(recentAssignments, student);
     }
     
     private List<SubmissionResponse> getRecentSubmissionsForStudent(User student) {
-        return submissionRepository.findByStudent(student).stream()
-                .sorted((s1, s2) -> s2.getSubmissionTime().compareTo(s1.getSubmissionTime()))
-                .limit(5)
+        return submissionRepository.findSummariesByStudent(student, PageRequest.of(0, 5)).stream()
                 .map(this::convertToSubmissionResponse)
                 .collect(Collectors.toList());
     }
@@ -198,28 +191,17 @@ public class DashboardService {
         stats.setActiveStudents(allEnrollments.size());
         
         // Assignment statistics
-        List<Assignment> assignments = assignmentRepository.findByTeacherId(teacher.getId());
-        stats.setTotalAssignments((long) assignments.size());
-        
-        // Submission statistics
-        List<Submission> allSubmissions = submissionRepository.findByTeacher(teacher);
-        stats.setTotalSubmissions((long) allSubmissions.size());
+        stats.setTotalAssignments(assignmentRepository.countByTeacherId(teacher.getId()));
         
-        long gradedSubmissions = allSubmissions.stream()
-                .filter(s -> s.getStatus() == SubmissionStatus.GRADED)
-                .count();
-        stats.setGradedSubmissions(gradedSubmissions);
+        // Submission statistics, aggregated in the database
+        SubmissionStats submissionStats = submissionRepository.getStatsByTeacher(teacher);
+        stats.setTotalSubmissions(submissionStats.totalOrZero());
+        stats.setGradedSubmissions(submissionStats.gradedOrZero());
         
         long pendingSubmissions = submissionRepository.countPendingSubmissionsByTeacher(teacher);
         stats.setPendingSubmissions(pendingSubmissions);
         
-        // Calculate average score
-        double averageScore = allSubmissions.stream()
-                .filter(s -> s.getScore() != null)
-                .mapToDouble(Submission::getScore)
-                .average()
-                .orElse(0.0);
-        stats.setAverageScore(averageScore);
+        stats.setAverageScore(submissionStats.averageScoreOrZero());
         
         return stats;
     }
@@ -232,16 +214,16 @@ public class DashboardService {
     }
     
     private List<AssignmentResponse> getRecentAssignmentsForTeacher(User teacher) {
-        return assignmentRepository.findByTeacherId(teacher.getId()).stream()
-                .sorted((a1, a2) -> a2.getCreatedAt().compareTo(a1.getCreatedAt()))
-                .limit(5)
-                .map(this::convertToAssignmentResponse)
+        List<Assignment> recentAssignments = assignmentRepository.findByTeacherId(teacher.getId(),
+                PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "createdAt"))).getContent();
+        Map<Long, Long> questionCounts = assignmentContentLoader.countQuestions(recentAssignments);
+        return recentAssignments.stream()
+                .map(assignment -> convertToAssignmentResponse(assignment, questionCounts.getOrDefault(assignment.getId(), 0L)))
                 .collect(Collectors.toList());
     }
     
     private List<SubmissionResponse> getPendingGradesForTeacher(User teacher) {
-        return submissionRepository.findByTeacherAndStatus(teacher, SubmissionStatus.SUBMITTED).stream()
-                .limit(10)
+        return submissionRepository.findSummariesByTeacherAndStatus(teacher, SubmissionStatus.SUBMITTED, PageRequest.of(0, 10)).stream()
                 .map(this::convertToSubmissionResponse)
                 .collect(Collectors.toList());
     }
@@ -302,12 +284,7 @@ public class DashboardService {
         stats.setSubmissionsToday(submissionRepository.countSubmissionsAfter(todayStart));
         
         // Calculate system-wide average score
-        double averageScore = submissionRepository.findAll().stream()
-                .filter(s -> s.getScore() != null)
-                .mapToDouble(Submission::getScore)
-                .average()
-                .orElse(0.0);
-        stats.setAverageScore(averageScore);
+        stats.setAverageScore(submissionRepository.getStats().averageScoreOrZero());
         
         return stats;
     }
@@ -329,9 +306,7 @@ public class DashboardService {
     }
     
     private List<SubmissionResponse> getRecentSubmissionsSystemWide() {
-        return submissionRepository.findAll().stream()
-                .sorted((s1, s2) -> s2.getSubmissionTime().compareTo(s1.getSubmissionTime()))
-                .limit(10)
+        return submissionRepository.findRecentSummaries(PageRequest.of(0, 10)).stream()
                 .map(this::convertToSubmissionResponse)
                 .collect(Collectors.toList());
     }
@@ -343,11 +318,12 @@ public class DashboardService {
         List<Course> courses = enrollments.stream()
                 .map(Enrollment::getCourse)
                 .collect(Collectors.toList());
+        if (courses.isEmpty()) {
+            return new ArrayList<>();
+        }
                 
-        return courses.stream()
-                .flatMap(course -> assignmentRepository.findByCourseAndIsActiveTrue(course).stream())
-                .map(assignment -> convertToStudentAssignmentResponse(assignment, student))
-                .collect(Collectors.toList());
+        return convertToStudentAssignmentResponses(
+                assignmentRepository.findByCourseInAndIsActiveTrueOrderByCreatedAtDesc(courses), student);
     }
     
     public StudentAssignmentResponse getAssignmentForStudent(Long assignmentId, User student) {
@@ -363,7 +339,7 @@ public class DashboardService {
             throw new RuntimeException("Student is not enrolled in this course");
         }
         
-        return convertToStudentAssignmentResponse(assignment, student);
+        return convertToStudentAssignmentResponses(List.of(assignment), student).get(0);
     }
 
     // ========== CONVERSION METHODS ==========
@@ -390,16 +366,32 @@ public class DashboardService {
                 .build();
     }
     
-    private StudentAssignmentResponse convertToStudentAssignmentResponse(Assignment assignment, User student) {
-        // Get submission if exists
-        Submission submission = submissionRepository.findByAssignmentAndStudent(assignment, student)
-                .orElse(null);
+    /**
+     * Student views of assignments; questions, test cases, options and the student's
+     * submissions are loaded for all of them at once
+     */
+    private List<StudentAssignmentResponse> convertToStudentAssignmentResponses(List<Assignment> assignments, User student) {
+        if (assignments.isEmpty()) {
+            return new ArrayList<>();
+        }
+        assignmentContentLoader.loadQuestionContent(assignments, true);
         
+        List<Long> assignmentIds = assignments.stream().map(Assignment::getId).collect(Collectors.toList());
+        Map<Long, SubmissionSummary> submissions = submissionRepository
+                .findSummariesByStudentAndAssignmentIds(student, assignmentIds).stream()
+                .collect(Collectors.toMap(SubmissionSummary::getAssignmentId, Function.identity(), (first, second) -> first));
+        
+        return assignments.stream()
+                .map(assignment -> convertToStudentAssignmentResponse(assignment, submissions.get(assignment.getId())))
+                .collect(Collectors.toList());
+    }
+    
+    private StudentAssignmentResponse convertToStudentAssignmentResponse(Assignment assignment, SubmissionSummary submission) {
         // Convert questions to StudentQuestionResponse if exist
         List<StudentQuestionResponse> questionResponses = null;
         if (assignment.getQuestions() != null && !assignment.getQuestions().isEmpty()) {
             questionResponses = assignment.getQuestions().stream()
-                    .map(question -> convertToStudentQuestionResponse(question, student))
+                    .map(this::convertToStudentQuestionResponse)
                     .collect(Collectors.toList());
         }
         
@@ -448,7 +440,7 @@ public class DashboardService {
                 .build();
     }
     
-    private AssignmentResponse convertToAssignmentResponse(Assignment assignment) {
+    private AssignmentResponse convertToAssignmentResponse(Assignment assignment, long totalQuestions) {
         return AssignmentResponse.builder()
                 .id(assignment.getId())
                 .title(assignment.getTitle())
@@ -458,20 +450,20 @@ public class DashboardService {
                 .startTime(assignment.getStartTime())
                 .endTime(assignment.getEndTime())
                 .createdAt(assignment.getCreatedAt())
-                .totalQuestions((long) assignment.getQuestions().size())
+                .totalQuestions(totalQuestions)
                 .sectionId(assignment.getSection() != null ? assignment.getSection().getId() : null)
                 .build();
     }
     
-    private SubmissionResponse convertToSubmissionResponse(Submission submission) {
+    private SubmissionResponse convertToSubmissionResponse(SubmissionSummary submission) {
         return SubmissionResponse.builder()
                 .id(submission.getId())
-                .assignmentTitle(submission.getAssignment().getTitle())
-                .studentName(submission.getStudent().getFullName())
+                .assignmentId(submission.getAssignmentId())
+                .assignmentTitle(submission.getAssignmentTitle())
+                .studentName(submission.getStudentName())
                 .submissionTime(submission.getSubmissionTime())
                 .score(submission.getScore())
                 .status(submission.getStatus())
-                .feedback(submission.getFeedback())
                 .build();
     }
     
@@ -601,37 +593,32 @@ public class DashboardService {
                 .map(Enrollment::getCourse)
                 .collect(Collectors.toList());
         
+        if (courses.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
         // Get all assignments for these courses
         List<Assignment> assignments = assignmentRepository.findByCourseInAndIsActiveTrueOrderByCreatedAtDesc(courses);
         
-        return assignments.stream()
-                .map(assignment -> convertToStudentAssignmentResponse(assignment, student))
-                .collect(Collectors.toList());
+        return convertToStudentAssignmentResponses(assignments, student);
     }
     
     /**
      * Get specific student assignment by ID
      */
     public StudentAssignmentResponse getStudentAssignmentById(Long assignmentId, User student) {
-        Assignment assignment = assignmentRepository.findById(assignmentId)
+        Assignment assignment = assignmentRepository.findWithContentById(assignmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Assignment not found with id: " + assignmentId));
         
-        return convertToStudentAssignmentResponse(assignment, student);
+        return convertToStudentAssignmentResponses(List.of(assignment), student).get(0);
     }
     
     // Helper methods for conversion
-    private StudentQuestionResponse convertToStudentQuestionResponse(Question question, User student) {
-        // Find submission answer for this question
+    private StudentQuestionResponse convertToStudentQuestionResponse(Question question) {
+        // Answers are not restored into this view yet
         String userAnswer = null;
         List<Long> selectedOptionIds = new ArrayList<>();
         
-        // Try to find existing answer from submission
-        submissionRepository.findByAssignmentAndStudent(question.getAssignment(), student)
-                .ifPresent(submission -> {
-                    // For now, we'll handle basic cases
-                    // This can be expanded based on your submission structure
-                });
-        
         StudentQuestionResponse response = new StudentQuestionResponse();
         response.setId(question.getId());
         response.setTitle(question.getTitle());
@@ -0,0 +1,436 @@
+package iuh.fit.cscore_be.service;
+
+import iuh.fit.cscore_be.entity.Course;
+import iuh.fit.cscore_be.entity.Question;
+import iuh.fit.cscore_be.entity.Submission;
+import iuh.fit.cscore_be.exception.ExecutionCapacityException;
+import iuh.fit.cscore_be.repository.CourseRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Execution Fair Scheduler
+ * Weighted fair queueing in front of CodeExecutionService:
+ * - One queue per course, served by smooth weighted round-robin (weight per course)
+ * - One queue per student inside each course, served round-robin
+ * - Per-student running quota and bounded backlog so one tenant cannot starve others
+ * - Staff runs get a queue per user and, like system work, are not capped by the backlog limit
+ * - Background grading is charged to the student but never refused: no backlog limit, no wait limit
+ * - Refusals are ExecutionCapacityException: 429 for a full backlog, 503 when no slot came in time
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExecutionFairScheduler {
+
+    private static final String GLOBAL_COURSE_KEY = "global";
+    private static final String SYSTEM_STUDENT_KEY = "system";
+    private static final String STAFF_KEY_PREFIX = "staff:";
+
+    private final CourseRepository courseRepository;
+
+    @Value("${system.max-concurrent-executions:10}")
+    private int maxConcurrentExecutions;
+
+    @Value("${execution.fair-share.default-course-weight:1}")
+    private int defaultCourseWeight;
+
+    @Value("${execution.fair-share.max-running-per-student:2}")
+    private int defaultStudentQuota;
+
+    @Value("${execution.fair-share.max-queued-per-student:5}")
+    private int maxQueuedPerStudent;
+
+    @Value("${execution.fair-share.max-wait-seconds:120}")
+    private long maxWaitSeconds;
+
+    @Value("${execution.fair-share.retry-after-seconds:10}")
+    private long retryAfterSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, CourseQueue> courseQueues = new LinkedHashMap<>();
+    private final Map<Long, CoursePolicy> coursePolicies = new ConcurrentHashMap<>();
+    private final ThreadLocal<Integer> heldSlots = ThreadLocal.withInitial(() -> 0);
+    private int runningExecutions = 0;
+
+    /**
+     * Run an execution once the tenant is granted a slot.
+     * Nested calls from a thread that already holds a slot run directly.
+     */
+    public <T> T execute(Tenant tenant, Supplier<T> task) {
+        if (heldSlots.get() > 0) {
+            return task.get();
+        }
+
+        Ticket ticket = enqueue(tenant != null ? tenant : Tenant.system());
+        try {
+            awaitGrant(ticket);
+            heldSlots.set(heldSlots.get() + 1);
+            try {
+                return task.get();
+            } finally {
+                heldSlots.set(heldSlots.get() - 1);
+            }
+        } finally {
+            release(ticket);
+        }
+    }
+
+    /**
+     * Drop the cached quota of a course so the next request reloads it.
+     * Inside a transaction this happens after commit, so a request in between cannot cache the old quota again.
+     */
+    public void refreshCoursePolicy(Long courseId) {
+        if (courseId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    coursePolicies.remove(courseId);
+                }
+            });
+        } else {
+            coursePolicies.remove(courseId);
+        }
+    }
+
+    /**
+     * Current queue state, for monitoring
+     */
+    public Map<String, Object> getQueueStats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("maxConcurrentExecutions", maxConcurrentExecutions);
+            stats.put("runningExecutions", runningExecutions);
+
+            List<Map<String, Object>> courses = new ArrayList<>();
+            int totalWaiting = 0;
+            for (CourseQueue courseQueue : courseQueues.values()) {
+                int waiting = courseQueue.waitingCount();
+                totalWaiting += waiting;
+
+                Map<String, Object> courseStats = new HashMap<>();
+                courseStats.put("course", courseQueue.key);
+                courseStats.put("weight", courseQueue.weight);
+                courseStats.put("studentQuota", courseQueue.studentQuota);
+                courseStats.put("activeStudents", courseQueue.students.size());
+                courseStats.put("waiting", waiting);
+                courseStats.put("running", courseQueue.runningCount());
+                courses.add(courseStats);
+            }
+            stats.put("waitingExecutions", totalWaiting);
+            stats.put("courses", courses);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ========== QUEUEING ==========
+
+    private Ticket enqueue(Tenant tenant) {
+        CoursePolicy policy = resolvePolicy(tenant.getCourseId());
+
+        lock.lock();
+        try {
+            String courseKey = tenant.getCourseId() != null ? String.valueOf(tenant.getCourseId()) : GLOBAL_COURSE_KEY;
+            CourseQueue courseQueue = courseQueues.computeIfAbsent(courseKey, CourseQueue::new);
+            courseQueue.weight = policy.weight;
+            courseQueue.studentQuota = policy.studentQuota;
+
+            StudentQueue studentQueue = courseQueue.students.get(tenant.getStudentKey());
+            if (studentQueue == null) {
+                studentQueue = new StudentQueue(tenant.getStudentKey());
+                courseQueue.students.put(studentQueue.key, studentQueue);
+                courseQueue.rotation.addLast(studentQueue);
+            }
+
+            if (!tenant.isStaff() && !tenant.isGrading() && studentQueue.waiting.size() >= maxQueuedPerStudent) {
+                cleanup(courseQueue, studentQueue);
+                throw new ExecutionCapacityException(
+                        "Bạn đang có quá nhiều lượt chạy code đang chờ. Vui lòng đợi kết quả trước khi chạy tiếp.",
+                        HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds);
+            }
+
+            Ticket ticket = new Ticket(courseQueue, studentQueue, !tenant.isGrading());
+            studentQueue.waiting.addLast(ticket);
+            dispatch();
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitGrant(Ticket ticket) {
+        try {
+            if (ticket.waitLimited) {
+                ticket.grant.get(maxWaitSeconds, TimeUnit.SECONDS);
+            } else {
+                ticket.grant.get();
+            }
+        } catch (TimeoutException | InterruptedException | ExecutionException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            lock.lock();
+            try {
+                if (!ticket.granted) {
+                    ticket.student.waiting.remove(ticket);
+                    cleanup(ticket.course, ticket.student);
+                    log.warn("Execution request of {} in course {} waited more than {}s, rejected",
+                            ticket.student.key, ticket.course.key, maxWaitSeconds);
+                    throw new ExecutionCapacityException("Hệ thống đang quá tải, vui lòng thử lại sau.",
+                            HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void release(Ticket ticket) {
+        lock.lock();
+        try {
+            if (ticket.granted && !ticket.released) {
+                ticket.released = true;
+                ticket.student.running--;
+                runningExecutions--;
+                cleanup(ticket.course, ticket.student);
+                dispatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Grant free slots: smooth weighted round-robin across courses,
+     * plain round-robin across students of the chosen course.
+     * Must be called with the lock held.
+     */
+    private void dispatch() {
+        while (runningExecutions < maxConcurrentExecutions) {
+            CourseQueue selected = null;
+            int totalWeight = 0;
+            for (CourseQueue courseQueue : courseQueues.values()) {
+                if (!courseQueue.hasEligibleStudent()) {
+                    continue;
+                }
+                courseQueue.currentWeight += courseQueue.weight;
+                totalWeight += courseQueue.weight;
+                if (selected == null || courseQueue.currentWeight > selected.currentWeight) {
+                    selected = courseQueue;
+                }
+            }
+            if (selected == null) {
+                return;
+            }
+            selected.currentWeight -= totalWeight;
+
+            Ticket ticket = selected.nextTicket();
+            ticket.granted = true;
+            ticket.student.running++;
+            runningExecutions++;
+            ticket.grant.complete(null);
+        }
+    }
+
+    private void cleanup(CourseQueue courseQueue, StudentQueue studentQueue) {
+        if (studentQueue.waiting.isEmpty() && studentQueue.running == 0) {
+            courseQueue.students.remove(studentQueue.key);
+            courseQueue.rotation.remove(studentQueue);
+        }
+        if (courseQueue.students.isEmpty()) {
+            courseQueues.remove(courseQueue.key);
+        }
+    }
+
+    private CoursePolicy resolvePolicy(Long courseId) {
+        if (courseId == null) {
+            return new CoursePolicy(defaultCourseWeight, defaultStudentQuota);
+        }
+        return coursePolicies.computeIfAbsent(courseId, id -> {
+            try {
+                return courseRepository.findById(id)
+                        .map(course -> new CoursePolicy(
+                                course.getExecutionWeight() != null ? course.getExecutionWeight() : defaultCourseWeight,
+                                course.getStudentExecutionQuota() != null ? course.getStudentExecutionQuota() : defaultStudentQuota))
+                        .orElseGet(() -> new CoursePolicy(defaultCourseWeight, defaultStudentQuota));
+            } catch (Exception e) {
+                log.warn("Could not load execution quota for course {}: {}", id, e.getMessage());
+                return new CoursePolicy(defaultCourseWeight, defaultStudentQuota);
+            }
+        });
+    }
+
+    // ========== INNER CLASSES ==========
+
+    /**
+     * Who an execution is charged to; staff tenants (teachers, admins, system work) have no backlog limit,
+     * grading tenants have neither a backlog nor a wait limit
+     */
+    @Getter
+    public static class Tenant {
+        private final String studentKey;
+        private final Long courseId;
+        private final boolean staff;
+        private final boolean grading;
+
+        public Tenant(String studentKey, Long courseId) {
+            this(studentKey, courseId, false, false);
+        }
+
+        private Tenant(String studentKey, Long courseId, boolean staff, boolean grading) {
+            this.studentKey = studentKey != null ? studentKey : SYSTEM_STUDENT_KEY;
+            this.courseId = courseId;
+            this.staff = staff || SYSTEM_STUDENT_KEY.equals(this.studentKey);
+            this.grading = grading;
+        }
+
+        public static Tenant system() {
+            return new Tenant(SYSTEM_STUDENT_KEY, null, true, false);
+        }
+
+        /**
+         * Run started by a teacher or admin, queued on its own so staff users do not share one backlog
+         */
+        public static Tenant staff(String username, Long courseId) {
+            return username != null ? new Tenant(STAFF_KEY_PREFIX + username, courseId, true, false) : system();
+        }
+
+        public static Tenant of(String studentKey, Question question) {
+            return new Tenant(studentKey, courseIdOf(question));
+        }
+
+        /**
+         * Grading of a stored submission: shares the student's queue, but a refusal would become
+         * a wrong grade, so it waits for a slot however long the queue is
+         */
+        public static Tenant grading(Submission submission, Question question) {
+            String studentKey = null;
+            Long courseId = null;
+            if (submission != null) {
+                try {
+                    if (submission.getStudent() != null) {
+                        studentKey = submission.getStudent().getUsername();
+                    }
+                    if (submission.getAssignment() != null && submission.getAssignment().getCourse() != null) {
+                        courseId = submission.getAssignment().getCourse().getId();
+                    }
+                } catch (Exception e) {
+                    // Detached lazy associations: charge the execution to the system tenant
+                }
+            }
+            if (courseId == null) {
+                courseId = courseIdOf(question);
+            }
+            return new Tenant(studentKey, courseId, false, true);
+        }
+
+        private static Long courseIdOf(Question question) {
+            try {
+                if (question != null && question.getAssignment() != null) {
+                    Course course = question.getAssignment().getCourse();
+                    return course != null ? course.getId() : null;
+                }
+            } catch (Exception e) {
+                // Detached lazy associations: fall back to the global queue
+            }
+            return null;
+        }
+    }
+
+    private static class CoursePolicy {
+        private final int weight;
+        private final int studentQuota;
+
+        CoursePolicy(int weight, int studentQuota) {
+            this.weight = Math.max(1, weight);
+            this.studentQuota = Math.max(1, studentQuota);
+        }
+    }
+
+    private static class CourseQueue {
+        private final String key;
+        private final Map<String, StudentQueue> students = new HashMap<>();
+        private final Deque<StudentQueue> rotation = new ArrayDeque<>();
+        private int weight = 1;
+        private int studentQuota = 1;
+        private long currentWeight = 0;
+
+        CourseQueue(String key) {
+            this.key = key;
+        }
+
+        boolean hasEligibleStudent() {
+            for (StudentQueue studentQueue : rotation) {
+                if (studentQueue.isEligible(studentQuota)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Ticket nextTicket() {
+            for (int i = 0; i < rotation.size(); i++) {
+                StudentQueue studentQueue = rotation.pollFirst();
+                rotation.addLast(studentQueue);
+                if (studentQueue.isEligible(studentQuota)) {
+                    return studentQueue.waiting.pollFirst();
+                }
+            }
+            throw new IllegalStateException("No eligible student in course queue " + key);
+        }
+
+        int waitingCount() {
+            return students.values().stream().mapToInt(s -> s.waiting.size()).sum();
+        }
+
+        int runningCount() {
+            return students.values().stream().mapToInt(s -> s.running).sum();
+        }
+    }
+
+    private static class StudentQueue {
+        private final String key;
+        private final Deque<Ticket> waiting = new ArrayDeque<>();
+        private int running = 0;
+
+        StudentQueue(String key) {
+            this.key = key;
+        }
+
+        boolean isEligible(int quota) {
+            return !waiting.isEmpty() && running < quota;
+        }
+    }
+
+    private static class Ticket {
+        private final CourseQueue course;
+        private final StudentQueue student;
+        private final boolean waitLimited;
+        private final CompletableFuture<Void> grant = new CompletableFuture<>();
+        private boolean granted = false;
+        private boolean released = false;
+
+        Ticket(CourseQueue course, StudentQueue student, boolean waitLimited) {
+            this.course = course;
+            this.student = student;
+            this.waitLimited = waitLimited;
+        }
+    }
+}
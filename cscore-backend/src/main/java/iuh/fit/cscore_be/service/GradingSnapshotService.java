@@ -0,0 +1,222 @@
+package iuh.fit.cscore_be.service;
+
+import iuh.fit.cscore_be.dto.response.CodeExecutionResponse;
+import iuh.fit.cscore_be.entity.Assignment;
+import iuh.fit.cscore_be.entity.Question;
+import iuh.fit.cscore_be.entity.TestCase;
+import iuh.fit.cscore_be.exception.ResourceNotFoundException;
+import iuh.fit.cscore_be.repository.AssignmentRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Grading Snapshot Service
+ * Read-only copy of an assignment's grading data shared by all grading threads:
+ * - Questions (ordered by orderIndex) and their test cases, detached from Hibernate
+ * - Reference implementation outputs, computed once per question and language
+ * - A hash of the whole test set, so results are only shared within the same tests
+ * - Keyed by the assignment revision, which every edit of grading data bumps
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GradingSnapshotService {
+
+    /** Order in which questions are shown to students and their code sections are written */
+    public static final Comparator<Question> QUESTION_ORDER = Comparator
+            .comparing(Question::getOrderIndex, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Question::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final AssignmentRepository assignmentRepository;
+    private final AssignmentContentLoader assignmentContentLoader;
+    private final CodeFingerprintService codeFingerprintService;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<Long, AssignmentSnapshot> snapshots = new ConcurrentHashMap<>();
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    public void initializeTransactionTemplate() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Current snapshot of an assignment. Only the revision number is read from the
+     * database; the snapshot is rebuilt when another node or request changed it.
+     */
+    public AssignmentSnapshot getSnapshot(Long assignmentId) {
+        long revision = assignmentRepository.findRevisionById(assignmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Assignment not found"));
+
+        AssignmentSnapshot cached = snapshots.get(assignmentId);
+        if (cached != null && cached.getRevision() == revision) {
+            return cached;
+        }
+        return snapshots.compute(assignmentId, (id, current) ->
+                current != null && current.getRevision() >= revision ? current : build(id));
+    }
+
+    /**
+     * Record an edit of the assignment's questions, test cases or settings.
+     * Must be called inside the transaction that saves the change.
+     */
+    public void markChanged(Assignment assignment) {
+        if (assignment == null) {
+            return;
+        }
+        assignment.setRevision(assignment.getRevisionOrDefault() + 1);
+
+        Long assignmentId = assignment.getId();
+        if (assignmentId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    snapshots.remove(assignmentId);
+                }
+            });
+        } else {
+            snapshots.remove(assignmentId);
+        }
+    }
+
+    // ========== BUILDING ==========
+
+    private AssignmentSnapshot build(Long assignmentId) {
+        return readOnlyTransaction.execute(status -> {
+            Assignment assignment = assignmentRepository.findById(assignmentId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Assignment not found"));
+            assignmentContentLoader.loadQuestionContent(List.of(assignment), false);
+
+            List<Question> questions = new ArrayList<>();
+            List<TestCase> allTestCases = new ArrayList<>();
+            StringBuilder testSetKey = new StringBuilder();
+            assignment.getQuestions().stream()
+                    .sorted(QUESTION_ORDER)
+                    .forEach(question -> {
+                        Question copy = copyQuestion(question);
+                        questions.add(copy);
+                        allTestCases.addAll(copy.getTestCases());
+                        testSetKey.append(copy.getId()).append('=')
+                                .append(codeFingerprintService.testSetHash(copy, copy.getTestCases())).append(';');
+                    });
+
+            log.info("Built grading snapshot for assignment {} revision {} ({} questions, {} test cases)",
+                    assignmentId, assignment.getRevisionOrDefault(), questions.size(), allTestCases.size());
+            return new AssignmentSnapshot(assignmentId, assignment.getRevisionOrDefault(), questions, allTestCases,
+                    codeFingerprintService.sha256(testSetKey.toString()));
+        });
+    }
+
+    private Question copyQuestion(Question source) {
+        Question copy = copyQuestionFields(source);
+
+        // Test cases point to a copy without test cases, so the object graph has no cycles
+        Question owner = copyQuestionFields(source);
+        owner.setTestCases(List.of());
+
+        List<TestCase> testCases = new ArrayList<>();
+        for (TestCase testCase : source.getTestCases()) {
+            testCases.add(copyTestCase(testCase, owner));
+        }
+        copy.setTestCases(Collections.unmodifiableList(testCases));
+        return copy;
+    }
+
+    private Question copyQuestionFields(Question source) {
+        Question copy = new Question();
+        copy.setId(source.getId());
+        copy.setTitle(source.getTitle());
+        copy.setDescription(source.getDescription());
+        copy.setQuestionType(source.getQuestionType());
+        copy.setPoints(source.getPoints());
+        copy.setOrderIndex(source.getOrderIndex());
+        copy.setReferenceImplementation(source.getReferenceImplementation());
+        copy.setFunctionName(source.getFunctionName());
+        copy.setFunctionSignature(source.getFunctionSignature());
+        copy.setProgrammingLanguage(source.getProgrammingLanguage());
+        copy.setTestTemplate(source.getTestTemplate());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        copy.setAssignment(null);
+        copy.setQuestionOptions(List.of());
+        return copy;
+    }
+
+    private TestCase copyTestCase(TestCase source, Question owner) {
+        TestCase copy = new TestCase();
+        copy.setId(source.getId());
+        copy.setQuestion(owner);
+        copy.setInput(source.getInput());
+        copy.setExpectedOutput(source.getExpectedOutput());
+        copy.setTestCode(source.getTestCode());
+        copy.setIsHidden(source.getIsHidden());
+        copy.setWeight(source.getWeight());
+        copy.setTimeLimit(source.getTimeLimit());
+        copy.setMemoryLimit(source.getMemoryLimit());
+        copy.setVersion(source.getVersion());
+        copy.setExecutionVersion(source.getExecutionVersion());
+        return copy;
+    }
+
+    // ========== SNAPSHOT ==========
+
+    /**
+     * Immutable view of one assignment revision. The entity copies are detached and
+     * must be treated as read-only by callers.
+     */
+    @Getter
+    public static class AssignmentSnapshot {
+        private final Long assignmentId;
+        private final long revision;
+        private final List<Question> questions;
+        private final List<TestCase> testCases;
+        /** Test set hash of every question, in question order */
+        private final String testSetHash;
+        private final Map<String, CodeExecutionResponse> referenceResults = new ConcurrentHashMap<>();
+
+        AssignmentSnapshot(Long assignmentId, long revision, List<Question> questions, List<TestCase> testCases,
+                           String testSetHash) {
+            this.assignmentId = assignmentId;
+            this.revision = revision;
+            this.questions = Collections.unmodifiableList(questions);
+            this.testCases = Collections.unmodifiableList(testCases);
+            this.testSetHash = testSetHash;
+        }
+
+        public Question getPrimaryQuestion() {
+            return questions.isEmpty() ? null : questions.get(0);
+        }
+
+        /**
+         * Output of the question's reference implementation, executed at most once per revision and language
+         */
+        public CodeExecutionResponse getReferenceResult(Long questionId, String language,
+                                                        Supplier<CodeExecutionResponse> runner) {
+            String key = questionId + ":" + (language != null ? language.toLowerCase() : "");
+            CodeExecutionResponse cached = referenceResults.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            CodeExecutionResponse result = runner.get();
+            if (result != null && result.isSuccess()) {
+                referenceResults.putIfAbsent(key, result);
+            }
+            return result;
+        }
+    }
+}
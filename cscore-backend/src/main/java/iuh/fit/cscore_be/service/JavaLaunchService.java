@@ -0,0 +1,267 @@
+package iuh.fit.cscore_be.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Java Launch Service
+ * Startup-oriented launch of student Java programs on the local runner:
+ * - A static AppCDS archive with the JDK classes the Java wrappers load (java.util,
+ *   Scanner, reflection), built in the background after startup from the java_universal template
+ * - Student JVMs map the archive and run with the launch options (serial GC); runs whose time
+ *   limit is short also stop at C1, which starts faster but leaves long loops slower
+ *   (see JavaLaunchBenchmark under src/test)
+ * - Until the archive is ready, or if it cannot be built, programs launch without it
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JavaLaunchService {
+
+    private static final Pattern PUBLIC_CLASS = Pattern.compile("public\\s+(?:final\\s+)?class\\s+(\\w+)");
+    private static final List<String> JDK_PACKAGES = List.of("java/", "javax/", "jdk/", "sun/", "com/sun/");
+    private static final int ARCHIVE_BUILD_TIMEOUT = 120; // seconds
+
+    // Warm-up programs: student code, function name, pattern and input for the java_universal template
+    private static final List<String[]> WARMUP_PROGRAMS = List.of(
+            new String[]{"static int square(int x) { return x * x; }", "square", "single_value", "7"},
+            new String[]{"static int countChar(String s, char c) { int n = 0; for (char x : s.toCharArray()) if (x == c) n++; return n; }",
+                    "countChar", "string_char", "\"hello world\" o"}
+    );
+
+    private final CodeWrapperService codeWrapperService;
+    private final NamespaceSandboxService namespaceSandboxService;
+
+    @Value("${execution.java.cds.enabled:true}")
+    private boolean cdsEnabled;
+
+    @Value("${execution.java.launch-options:-XX:+UseSerialGC}")
+    private String launchOptions;
+
+    @Value("${execution.java.short-run-options:-XX:TieredStopAtLevel=1}")
+    private String shortRunOptions;
+
+    @Value("${execution.java.short-run-max-ms:2000}")
+    private long shortRunMaxMs;
+
+    @Value("${system.temp-dir:${java.io.tmpdir}}")
+    private String tempDir;
+
+    private volatile Path sharedArchive;
+    private volatile String archiveStatus = "NOT_BUILT";
+
+    /**
+     * Class the JVM has to start: the public class of the program, or Main
+     */
+    public String mainClassOf(String code) {
+        Matcher matcher = PUBLIC_CLASS.matcher(code);
+        return matcher.find() ? matcher.group(1) : "Main";
+    }
+
+    /**
+     * Command launching a compiled student program expected to run for at most timeLimitMs
+     */
+    public List<String> launchCommand(Path classPath, String mainClass, long timeLimitMs) {
+        List<String> command = new ArrayList<>();
+        command.add("java");
+        command.addAll(startupOptions(timeLimitMs <= shortRunMaxMs));
+        command.addAll(List.of("-cp", classPath.toString(), mainClass));
+        return command;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("cdsEnabled", cdsEnabled);
+        stats.put("archiveStatus", archiveStatus);
+        stats.put("archive", sharedArchive != null ? sharedArchive.toString() : null);
+        stats.put("launchOptions", launchOptions);
+        stats.put("shortRunOptions", shortRunOptions);
+        stats.put("shortRunMaxMs", shortRunMaxMs);
+        return stats;
+    }
+
+    private List<String> startupOptions(boolean shortRun) {
+        List<String> options = new ArrayList<>(splitOptions(launchOptions));
+        if (shortRun) {
+            options.addAll(splitOptions(shortRunOptions));
+        }
+        Path archive = sharedArchive;
+        if (archive != null) {
+            // -Xshare:auto: a stale or mismatching archive is ignored, never fatal
+            options.add("-XX:SharedArchiveFile=" + archive);
+            options.add("-Xshare:auto");
+        }
+        return options;
+    }
+
+    private static List<String> splitOptions(String options) {
+        return options == null || options.isBlank() ? List.of() : Arrays.asList(options.trim().split("\\s+"));
+    }
+
+    // ========== ARCHIVE ==========
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildArchiveOnStartup() {
+        if (cdsEnabled) {
+            buildSharedArchive();
+        }
+    }
+
+    /**
+     * Run the warm-up programs with -XX:DumpLoadedClassList, keep the JDK classes
+     * (plus the JDK's default class list) and dump them into a static archive
+     */
+    public synchronized void buildSharedArchive() {
+        archiveStatus = "BUILDING";
+        Path buildDir = null;
+        try {
+            Path cdsDir = Paths.get(tempDir, "cscore_cds");
+            buildDir = cdsDir.resolve("build_" + UUID.randomUUID());
+            Files.createDirectories(buildDir);
+
+            Set<String> classList = new LinkedHashSet<>(defaultClassList());
+            for (int i = 0; i < WARMUP_PROGRAMS.size(); i++) {
+                String[] warmup = WARMUP_PROGRAMS.get(i);
+                Path programDir = compileWarmupProgram(buildDir.resolve("warmup" + i), warmup);
+                Path loadedClasses = buildDir.resolve("warmup" + i + ".classlist");
+
+                List<String> command = new ArrayList<>(List.of("java", "-XX:DumpLoadedClassList=" + loadedClasses));
+                command.addAll(List.of("-cp", programDir.toString(), "Solution"));
+                run(command, programDir, warmup[3], ARCHIVE_BUILD_TIMEOUT);
+
+                for (String line : Files.readAllLines(loadedClasses)) {
+                    if (isJdkEntry(line)) {
+                        classList.add(line);
+                    }
+                }
+            }
+
+            Path classListFile = buildDir.resolve("app.classlist");
+            Files.write(classListFile, classList);
+
+            Path building = buildDir.resolve("app.jsa");
+            run(List.of("java", "-Xshare:dump", "-XX:SharedClassListFile=" + classListFile,
+                    "-XX:SharedArchiveFile=" + building), buildDir, null, ARCHIVE_BUILD_TIMEOUT);
+
+            Path archive = cdsDir.resolve("student-jdk.jsa");
+            Files.move(building, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            namespaceSandboxService.allowReadOnly(archive);
+            sharedArchive = archive;
+            archiveStatus = "READY";
+            log.info("Built Java class data sharing archive {} ({} classes)", archive, classList.size());
+
+        } catch (Exception e) {
+            archiveStatus = "FAILED";
+            log.warn("Could not build Java class data sharing archive: {}", e.getMessage());
+        } finally {
+            deleteDirectory(buildDir);
+        }
+    }
+
+    private Path compileWarmupProgram(Path programDir, String[] warmup) throws Exception {
+        String source = codeWrapperService.renderTemplate("java_universal", warmup[0], warmup[1], warmup[2]);
+        if (source == null) {
+            throw new IllegalStateException("java_universal template not loaded");
+        }
+        Files.createDirectories(programDir);
+        Path sourceFile = programDir.resolve(mainClassOf(source) + ".java");
+        Files.writeString(sourceFile, source);
+        run(List.of("javac", sourceFile.toString()), programDir, null, ARCHIVE_BUILD_TIMEOUT);
+        return programDir;
+    }
+
+    /**
+     * Class list shipped with the JDK the server runs on, so the archive is a superset of the default one
+     */
+    private List<String> defaultClassList() throws IOException {
+        Path classList = Paths.get(System.getProperty("java.home"), "lib", "classlist");
+        if (!Files.exists(classList)) {
+            return List.of();
+        }
+        return Files.readAllLines(classList).stream()
+                .filter(line -> !line.isBlank() && !line.startsWith("#"))
+                .toList();
+    }
+
+    /**
+     * Classes of the warm-up program itself are dropped: the archive has no application class path,
+     * so it can be used with any student work directory
+     */
+    private boolean isJdkEntry(String line) {
+        if (line.isBlank() || line.startsWith("#")) {
+            return false;
+        }
+        String[] tokens = line.trim().split("\\s+");
+        if (tokens[0].equals("@lambda-form-invoker")) {
+            return true;
+        }
+        String className = tokens[0].equals("@lambda-proxy") && tokens.length > 1 ? tokens[1] : tokens[0];
+        return JDK_PACKAGES.stream().anyMatch(className::startsWith);
+    }
+
+    // ========== PROCESS HELPERS ==========
+
+    /**
+     * Output (stdout and stderr) goes to a file, so a chatty process never blocks on a full pipe
+     * and the timeout always applies
+     */
+    private void run(List<String> command, Path workDir, String input, int timeoutSeconds) throws Exception {
+        Path outputFile = Files.createTempFile(workDir, "launch", ".log");
+        Process process = new ProcessBuilder(command)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(outputFile.toFile())
+                .start();
+        try {
+            try (OutputStream stdin = process.getOutputStream()) {
+                if (input != null) {
+                    stdin.write((input + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            boolean finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
+            if (!finished || process.exitValue() != 0) {
+                String output = new String(Files.readAllBytes(outputFile), StandardCharsets.UTF_8);
+                throw new IllegalStateException(String.join(" ", command.subList(0, Math.min(2, command.size())))
+                        + (finished ? " failed: " + output : " timed out after " + timeoutSeconds + "s: " + output));
+            }
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly().waitFor(5, TimeUnit.SECONDS);
+            }
+            Files.deleteIfExists(outputFile);
+        }
+    }
+
+    private void deleteDirectory(Path directory) {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (var paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.debug("Could not delete {}", path);
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Could not delete {}", directory);
+        }
+    }
+}
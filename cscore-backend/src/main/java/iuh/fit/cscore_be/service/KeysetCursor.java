@@ -0,0 +1,65 @@
+package iuh.fit.cscore_be.service;
+
+import iuh.fit.cscore_be.dto.response.CursorPageResponse;
+import iuh.fit.cscore_be.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset Cursor
+ * Position in a list ordered by (timestamp DESC, id DESC), encoded as an opaque URL-safe token.
+ * The next page starts strictly after this position, so deep pages cost the same as the first.
+ */
+public record KeysetCursor(LocalDateTime time, Long id) {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    public String encode() {
+        String raw = time + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Cursor from a token; null for the first page
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor không hợp lệ");
+        }
+    }
+
+    public static int clampPageSize(int size) {
+        return size < 1 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Page from rows fetched with a limit of pageSize + 1; the extra row only tells whether a next page exists
+     */
+    public static <E, T> CursorPageResponse<T> page(List<E> rows, int pageSize, Function<E, KeysetCursor> keyOf,
+                                                    Function<List<E>, List<T>> converter, Long totalCount) {
+        boolean hasNext = rows.size() > pageSize;
+        List<E> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? keyOf.apply(pageRows.get(pageRows.size() - 1)).encode() : null;
+
+        return CursorPageResponse.<T>builder()
+                .items(converter.apply(pageRows))
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .pageSize(pageSize)
+                .totalCount(totalCount)
+                .build();
+    }
+}
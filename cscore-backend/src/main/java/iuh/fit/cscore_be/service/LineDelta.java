@@ -0,0 +1,258 @@
+package iuh.fit.cscore_be.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Line-based delta between two texts:
+ * - Myers O(ND) diff after trimming the common prefix and suffix; very different
+ *   texts fall back to replacing the changed middle block
+ * - Encoded as runs: "=n" keeps n lines, "-n" drops n lines, "+n" is followed by n new lines
+ * - Unified diff output for history views
+ */
+final class LineDelta {
+
+    private static final int MAX_EDIT_DISTANCE = 2000;
+    private static final long MAX_TRACE_CELLS = 8_000_000L;
+
+    enum Kind { KEEP, DELETE, INSERT }
+
+    record Edit(Kind kind, String line) {
+    }
+
+    private LineDelta() {
+    }
+
+    static List<String> lines(String text) {
+        if (text == null || text.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(text.split("\n", -1)));
+    }
+
+    static String join(List<String> lines) {
+        return String.join("\n", lines);
+    }
+
+    /**
+     * Edit script turning {@code from} into {@code to}
+     */
+    static List<Edit> diff(List<String> from, List<String> to) {
+        int prefix = 0;
+        while (prefix < from.size() && prefix < to.size() && from.get(prefix).equals(to.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < from.size() - prefix && suffix < to.size() - prefix
+                && from.get(from.size() - 1 - suffix).equals(to.get(to.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        List<Edit> edits = new ArrayList<>();
+        for (int i = 0; i < prefix; i++) {
+            edits.add(new Edit(Kind.KEEP, from.get(i)));
+        }
+        edits.addAll(diffMiddle(from.subList(prefix, from.size() - suffix), to.subList(prefix, to.size() - suffix)));
+        for (int i = from.size() - suffix; i < from.size(); i++) {
+            edits.add(new Edit(Kind.KEEP, from.get(i)));
+        }
+        return edits;
+    }
+
+    private static List<Edit> diffMiddle(List<String> a, List<String> b) {
+        int n = a.size();
+        int m = b.size();
+        int max = n + m;
+        if (max == 0) {
+            return new ArrayList<>();
+        }
+
+        int offset = max;
+        int[] v = new int[2 * max + 2];
+        List<int[]> trace = new ArrayList<>();
+        for (int d = 0; d <= max; d++) {
+            if (d > MAX_EDIT_DISTANCE || (long) d * v.length > MAX_TRACE_CELLS) {
+                return replaceAll(a, b);
+            }
+            trace.add(v.clone());
+            for (int k = -d; k <= d; k += 2) {
+                int x = (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]))
+                        ? v[offset + k + 1]
+                        : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a.get(x).equals(b.get(y))) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    return backtrack(a, b, trace, d, offset);
+                }
+            }
+        }
+        return replaceAll(a, b);
+    }
+
+    private static List<Edit> backtrack(List<String> a, List<String> b, List<int[]> trace, int distance, int offset) {
+        List<Edit> reversed = new ArrayList<>();
+        int x = a.size();
+        int y = b.size();
+        for (int d = distance; d > 0; d--) {
+            int[] v = trace.get(d);
+            int k = x - y;
+            int previousK = (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) ? k + 1 : k - 1;
+            int previousX = v[offset + previousK];
+            int previousY = previousX - previousK;
+            while (x > previousX && y > previousY) {
+                reversed.add(new Edit(Kind.KEEP, a.get(--x)));
+                y--;
+            }
+            if (previousK == k + 1) {
+                reversed.add(new Edit(Kind.INSERT, b.get(--y)));
+            } else {
+                reversed.add(new Edit(Kind.DELETE, a.get(--x)));
+            }
+        }
+        while (x > 0 && y > 0) {
+            reversed.add(new Edit(Kind.KEEP, a.get(--x)));
+            y--;
+        }
+        Collections.reverse(reversed);
+        return reversed;
+    }
+
+    private static List<Edit> replaceAll(List<String> a, List<String> b) {
+        List<Edit> edits = new ArrayList<>(a.size() + b.size());
+        a.forEach(line -> edits.add(new Edit(Kind.DELETE, line)));
+        b.forEach(line -> edits.add(new Edit(Kind.INSERT, line)));
+        return edits;
+    }
+
+    /**
+     * Compact encoding of an edit script; kept and dropped lines are stored as counts only
+     */
+    static String encode(List<Edit> edits) {
+        StringBuilder out = new StringBuilder();
+        int i = 0;
+        while (i < edits.size()) {
+            Kind kind = edits.get(i).kind();
+            int end = i;
+            while (end < edits.size() && edits.get(end).kind() == kind) {
+                end++;
+            }
+            switch (kind) {
+                case KEEP -> out.append('=').append(end - i).append('\n');
+                case DELETE -> out.append('-').append(end - i).append('\n');
+                case INSERT -> {
+                    out.append('+').append(end - i).append('\n');
+                    for (int j = i; j < end; j++) {
+                        out.append(edits.get(j).line()).append('\n');
+                    }
+                }
+            }
+            i = end;
+        }
+        return out.toString();
+    }
+
+    /**
+     * Apply an encoded delta to the lines of the previous version
+     */
+    static List<String> apply(List<String> base, String delta) {
+        List<String> result = new ArrayList<>(base.size());
+        String[] ops = delta.split("\n", -1);
+        int position = 0;
+        int i = 0;
+        while (i < ops.length && !ops[i].isEmpty()) {
+            char op = ops[i].charAt(0);
+            int count = Integer.parseInt(ops[i].substring(1));
+            i++;
+            switch (op) {
+                case '=' -> {
+                    result.addAll(base.subList(position, position + count));
+                    position += count;
+                }
+                case '-' -> position += count;
+                case '+' -> {
+                    result.addAll(Arrays.asList(ops).subList(i, i + count));
+                    i += count;
+                }
+                default -> throw new IllegalStateException("Invalid line delta operation: " + op);
+            }
+        }
+        if (position != base.size()) {
+            throw new IllegalStateException("Line delta does not match its base version");
+        }
+        return result;
+    }
+
+    static int count(List<Edit> edits, Kind kind) {
+        return (int) edits.stream().filter(edit -> edit.kind() == kind).count();
+    }
+
+    /**
+     * Unified diff with the given number of context lines around each change
+     */
+    static String unified(List<Edit> edits, String fromLabel, String toLabel, int context) {
+        StringBuilder out = new StringBuilder();
+        out.append("--- ").append(fromLabel).append('\n');
+        out.append("+++ ").append(toLabel).append('\n');
+
+        int i = 0;
+        int fromLine = 1;
+        int toLine = 1;
+        while (i < edits.size()) {
+            // Skip to the next change, keeping line numbers in step
+            int change = i;
+            while (change < edits.size() && edits.get(change).kind() == Kind.KEEP) {
+                change++;
+            }
+            if (change == edits.size()) {
+                break;
+            }
+            int start = Math.max(i, change - context);
+            fromLine += start - i;
+            toLine += start - i;
+
+            // A hunk ends after more than 2 * context unchanged lines
+            int end = change;
+            int unchanged = 0;
+            while (end < edits.size() && unchanged <= 2 * context) {
+                unchanged = edits.get(end).kind() == Kind.KEEP ? unchanged + 1 : 0;
+                end++;
+            }
+            end -= Math.max(0, unchanged - context);
+
+            int fromCount = 0;
+            int toCount = 0;
+            StringBuilder body = new StringBuilder();
+            for (int j = start; j < end; j++) {
+                Edit edit = edits.get(j);
+                switch (edit.kind()) {
+                    case KEEP -> {
+                        body.append(' ').append(edit.line()).append('\n');
+                        fromCount++;
+                        toCount++;
+                    }
+                    case DELETE -> {
+                        body.append('-').append(edit.line()).append('\n');
+                        fromCount++;
+                    }
+                    case INSERT -> {
+                        body.append('+').append(edit.line()).append('\n');
+                        toCount++;
+                    }
+                }
+            }
+            out.append("@@ -").append(fromLine).append(',').append(fromCount)
+               .append(" +").append(toLine).append(',').append(toCount).append(" @@\n")
+               .append(body);
+            fromLine += fromCount;
+            toLine += toCount;
+            i = end;
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,402 @@
+package iuh.fit.cscore_be.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Namespace Sandbox Service
+ * Lightweight isolation of student programs on the local runner (Linux, util-linux tools):
+ * - A pool of holder processes keeps pre-created user/net/uts namespaces alive; the user
+ *   namespace maps the backend user to root without any host privileges and the network
+ *   namespace has no interfaces, so programs cannot reach the network
+ * - Each run enters a holder with nsenter and gets its own nested user, mount, pid and ipc
+ *   namespace (--kill-child), so every process it started is gone when it ends
+ * - The mount namespace gets a private root (pivot_root): read-only binds of the toolchain
+ *   paths, the run's work directory, a small /tmp, /proc and the null/zero/random devices;
+ *   the rest of the host file system is not reachable
+ * - Capabilities are dropped (setpriv) before the program starts
+ * - prlimit caps CPU time, address space (not for the JVM), processes, file size,
+ *   open files and core dumps; the process limit counts per run since each run has its
+ *   own user namespace (Linux 5.14+)
+ * - With execution.sandbox.cgroup.root (a cgroup v2 directory delegated to the backend
+ *   user), each run also gets its own cgroup with memory.max and pids.max, which covers JVMs
+ * - Enabled with execution.sandbox.namespaces.enabled; the whole chain is probed at startup.
+ *   When it is enabled but does not work, local programs are refused instead of running
+ *   without isolation
+ */
+@Service
+@Slf4j
+public class NamespaceSandboxService {
+
+    public static final String SANDBOX_UNAVAILABLE_MESSAGE = "Sandbox unavailable";
+
+    private static final List<String> HOLDER_NAMESPACES = List.of("--user", "--net", "--uts");
+    private static final List<String> RUN_NAMESPACES = List.of("--user", "--map-root-user", "--mount",
+            "--pid", "--ipc", "--fork", "--kill-child");
+    private static final String ROOT_DIRECTORY = ".sandbox-root";
+    private static final long CGROUP_GRACE_MILLIS = 60_000;
+
+    /*
+     * Builds the private root and starts the program. Arguments: work directory, cgroup
+     * directory (or empty), the read-only paths, "--", the program command.
+     */
+    private static final String SETUP_SCRIPT = String.join("\n",
+            "set -e",
+            "wd=$1; cg=$2; tmp=$3; shift 3",
+            "[ -z \"$cg\" ] || echo 0 > \"$cg/cgroup.procs\"",
+            "root=$wd/" + ROOT_DIRECTORY,
+            "mkdir -p \"$root\"",
+            "mount -t tmpfs -o mode=755,size=16m sandbox-root \"$root\"",
+            "while [ \"$1\" != \"--\" ]; do",
+            "  p=$1; shift",
+            "  if [ -L \"$p\" ]; then mkdir -p \"$root$(dirname \"$p\")\"; ln -sfn \"$(readlink \"$p\")\" \"$root$p\"; continue; fi",
+            "  if [ -d \"$p\" ]; then mkdir -p \"$root$p\"",
+            "  elif [ -e \"$p\" ]; then mkdir -p \"$root$(dirname \"$p\")\"; touch \"$root$p\"",
+            "  else continue; fi",
+            "  mount --rbind \"$p\" \"$root$p\"",
+            "  mount -o remount,bind,ro \"$root$p\"",
+            "done",
+            "shift",
+            "mkdir -p \"$root/dev\" \"$root/proc\" \"$root/tmp\"",
+            "for d in null zero random urandom; do touch \"$root/dev/$d\"; mount --bind \"/dev/$d\" \"$root/dev/$d\"; done",
+            "mount -t tmpfs -o mode=1777,size=${tmp}m sandbox-tmp \"$root/tmp\"",
+            "mkdir -p \"$root$wd\"",
+            "mount --bind \"$wd\" \"$root$wd\"",
+            "mount -t proc -o nosuid,nodev,noexec proc \"$root/proc\"",
+            "cd \"$root\"",
+            "mkdir .old",
+            "pivot_root . .old",
+            "umount -l /.old",
+            "rmdir /.old",
+            "mount -o remount,ro /",
+            "cd \"$wd\"",
+            "exec setpriv --no-new-privs --bounding-set=-all --inh-caps=-all -- \"$@\"");
+
+    @Value("${execution.sandbox.namespaces.enabled:false}")
+    private boolean enabled;
+
+    @Value("${execution.sandbox.namespaces.pool-size:4}")
+    private int poolSize;
+
+    @Value("${execution.sandbox.namespaces.read-only-paths:/usr,/bin,/sbin,/lib,/lib32,/lib64,/etc/alternatives,/etc/ld.so.cache,/etc/ld.so.conf,/etc/ld.so.conf.d}")
+    private List<String> readOnlyPaths;
+
+    @Value("${execution.sandbox.cgroup.root:}")
+    private String cgroupRoot;
+
+    @Value("${execution.sandbox.limits.cpu-seconds:30}")
+    private int cpuSeconds;
+
+    @Value("${execution.sandbox.limits.memory-mb:256}")
+    private int memoryMb;
+
+    @Value("${execution.sandbox.limits.processes:64}")
+    private int maxProcesses;
+
+    @Value("${execution.sandbox.limits.tmp-size-mb:64}")
+    private int tmpSizeMb;
+
+    @Value("${execution.sandbox.limits.file-size-mb:16}")
+    private int fileSizeMb;
+
+    @Value("${execution.sandbox.limits.open-files:64}")
+    private int openFiles;
+
+    private volatile boolean available;
+    private final List<Process> holders = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger nextHolder = new AtomicInteger();
+    private final Set<String> extraReadOnlyPaths = new CopyOnWriteArraySet<>();
+    private final Map<Path, Long> runCgroups = new ConcurrentHashMap<>();
+    private final AtomicLong runSequence = new AtomicLong();
+
+    @PostConstruct
+    public void initializeHolders() {
+        if (!enabled) {
+            return;
+        }
+        addJavaHome();
+        for (int i = 0; i < poolSize; i++) {
+            Process holder = startHolder();
+            if (holder != null) {
+                holders.add(holder);
+            }
+        }
+
+        available = probe();
+        if (!available) {
+            log.error("Namespace sandbox enabled but the nsenter/unshare/pivot_root/setpriv/prlimit chain does not work "
+                    + "on this host; local programs are refused");
+            destroyHolders();
+            return;
+        }
+        if (cgroupRoot.isBlank()) {
+            log.warn("No execution.sandbox.cgroup.root configured: Java programs run without a memory cap");
+        }
+        log.info("Namespace sandbox ready with {} holder processes", holders.size());
+    }
+
+    @PreDestroy
+    public void destroyHolders() {
+        synchronized (holders) {
+            holders.forEach(Process::destroyForcibly);
+            holders.clear();
+        }
+    }
+
+    public boolean isActive() {
+        return enabled && available;
+    }
+
+    /**
+     * Make a file or directory readable inside the sandbox (e.g. the class data sharing archive)
+     */
+    public void allowReadOnly(Path path) {
+        extraReadOnlyPaths.add(path.toAbsolutePath().normalize().toString());
+    }
+
+    /**
+     * Command running a student program in workDir inside the sandbox, or the command itself
+     * when the sandbox is disabled. Throws when it is enabled but not working.
+     */
+    public List<String> wrap(List<String> command, Path workDir) {
+        if (!enabled) {
+            return command;
+        }
+        if (!available) {
+            throw new IllegalStateException(SANDBOX_UNAVAILABLE_MESSAGE);
+        }
+        try {
+            return sandboxCommand(nextHolder(), command, workDir, createRunCgroup());
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException(SANDBOX_UNAVAILABLE_MESSAGE + ": " + e.getMessage(), e);
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("active", isActive());
+        stats.put("holders", holders.stream().filter(Process::isAlive).count());
+        stats.put("cgroup", cgroupRoot.isBlank() ? null : cgroupRoot);
+        stats.put("runCgroups", runCgroups.size());
+        stats.put("cpuSeconds", cpuSeconds);
+        stats.put("memoryMb", memoryMb);
+        stats.put("processes", maxProcesses);
+        return stats;
+    }
+
+    private List<String> sandboxCommand(Process holder, List<String> command, Path workDir, Path cgroup) {
+        List<String> wrapped = new ArrayList<>();
+        if (holder != null) {
+            wrapped.addAll(List.of("nsenter", "--target", String.valueOf(holder.pid())));
+            wrapped.addAll(HOLDER_NAMESPACES);
+            wrapped.addAll(List.of("--", "unshare"));
+        } else {
+            // No live holder: create the shared namespaces for this run only
+            wrapped.addAll(List.of("unshare", "--user", "--map-root-user", "--net", "--uts", "--",
+                    "unshare"));
+        }
+        wrapped.addAll(RUN_NAMESPACES);
+        wrapped.addAll(List.of("--", "sh", "-c", SETUP_SCRIPT, "sandbox",
+                workDir.toAbsolutePath().toString(),
+                cgroup != null ? cgroup.toString() : "",
+                String.valueOf(tmpSizeMb)));
+        wrapped.addAll(readOnlyPaths());
+        wrapped.add("--");
+        wrapped.addAll(limits(command));
+        wrapped.add("--");
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    private List<String> readOnlyPaths() {
+        Set<String> paths = new LinkedHashSet<>();
+        readOnlyPaths.stream().map(String::trim).filter(path -> path.startsWith("/")).forEach(paths::add);
+        paths.addAll(extraReadOnlyPaths);
+        return new ArrayList<>(paths);
+    }
+
+    /**
+     * The JDK may live outside the toolchain paths, and its conf directory is often a symlink into /etc
+     */
+    private void addJavaHome() {
+        Path javaHome = Paths.get(System.getProperty("java.home"));
+        for (Path path : List.of(javaHome, javaHome.resolve("conf"))) {
+            try {
+                allowReadOnly(path.toRealPath());
+            } catch (IOException e) {
+                log.debug("Java path {} not exposed to the sandbox: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    // ========== HOLDERS ==========
+
+    /**
+     * Runs share holders: they only provide user/net/uts namespaces, everything else is per run.
+     * Dead holders are replaced on the way.
+     */
+    private Process nextHolder() {
+        synchronized (holders) {
+            for (int attempt = 0; attempt < holders.size(); attempt++) {
+                int index = Math.floorMod(nextHolder.getAndIncrement(), holders.size());
+                Process holder = holders.get(index);
+                if (holder.isAlive()) {
+                    return holder;
+                }
+                log.warn("Namespace holder {} exited, replacing it", holder.pid());
+                Process replacement = startHolder();
+                if (replacement != null) {
+                    holders.set(index, replacement);
+                    return replacement;
+                }
+            }
+            return null;
+        }
+    }
+
+    private Process startHolder() {
+        try {
+            List<String> command = new ArrayList<>(List.of("unshare", "--map-root-user"));
+            command.addAll(HOLDER_NAMESPACES);
+            command.addAll(List.of("sleep", "infinity"));
+            return new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+        } catch (Exception e) {
+            log.warn("Could not start namespace holder: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Run a program that forks through exactly the chain used for student programs,
+     * both through a holder and without one
+     */
+    private boolean probe() {
+        Path workDir = null;
+        try {
+            workDir = Files.createTempDirectory("sandbox-probe");
+            List<String> program = List.of("sh", "-c", "true & wait");
+            Process holder = nextHolder();
+            if (holder == null || !runProbe(sandboxCommand(holder, program, workDir, createRunCgroup()), workDir)) {
+                return false;
+            }
+            return runProbe(sandboxCommand(null, program, workDir, createRunCgroup()), workDir);
+        } catch (Exception e) {
+            log.warn("Namespace sandbox probe failed: {}", e.getMessage());
+            return false;
+        } finally {
+            if (workDir != null) {
+                try {
+                    Files.deleteIfExists(workDir.resolve(ROOT_DIRECTORY));
+                    Files.deleteIfExists(workDir);
+                } catch (IOException e) {
+                    log.debug("Could not remove probe directory {}: {}", workDir, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private boolean runProbe(List<String> command, Path workDir) throws Exception {
+        Path output = Files.createTempFile("sandbox-probe", ".log");
+        try {
+            Process process = new ProcessBuilder(command)
+                    .directory(workDir.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(output.toFile())
+                    .start();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                log.warn("Namespace sandbox probe timed out");
+                return false;
+            }
+            if (process.exitValue() != 0) {
+                log.warn("Namespace sandbox probe exited with {}: {}", process.exitValue(), Files.readString(output).trim());
+                return false;
+            }
+            return true;
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    // ========== LIMITS ==========
+
+    private List<String> limits(List<String> command) {
+        List<String> limits = new ArrayList<>(List.of("prlimit",
+                "--cpu=" + cpuSeconds,
+                "--nproc=" + maxProcesses,
+                "--fsize=" + (long) fileSizeMb * 1024 * 1024,
+                "--nofile=" + openFiles,
+                "--core=0"));
+        // The JVM reserves far more address space than it uses; its memory is capped by the cgroup
+        if (!command.isEmpty() && !command.get(0).equals("java")) {
+            limits.add("--as=" + (long) memoryMb * 1024 * 1024);
+        }
+        return limits;
+    }
+
+    /**
+     * Child cgroup for one run; the setup script moves the run into it before anything starts.
+     * Throws when a cgroup root is configured but unusable, so the probe fails.
+     */
+    private Path createRunCgroup() {
+        if (cgroupRoot.isBlank()) {
+            return null;
+        }
+        Path cgroup = Paths.get(cgroupRoot, "run-" + ProcessHandle.current().pid() + "-" + runSequence.incrementAndGet());
+        try {
+            Files.createDirectory(cgroup);
+            runCgroups.put(cgroup, System.currentTimeMillis());
+            Files.writeString(cgroup.resolve("memory.max"), String.valueOf((long) memoryMb * 1024 * 1024));
+            Files.writeString(cgroup.resolve("pids.max"), String.valueOf(maxProcesses));
+            Path swap = cgroup.resolve("memory.swap.max");
+            if (Files.exists(swap)) {
+                Files.writeString(swap, "0");
+            }
+            return cgroup;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create sandbox cgroup " + cgroup + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Remove run cgroups whose processes have all exited
+     */
+    @Scheduled(fixedDelayString = "${execution.sandbox.reaper-interval-ms:60000}")
+    public void reapRunCgroups() {
+        long cutoff = System.currentTimeMillis() - CGROUP_GRACE_MILLIS;
+        runCgroups.forEach((cgroup, createdAt) -> {
+            if (createdAt > cutoff) {
+                return;
+            }
+            try {
+                if (!Files.exists(cgroup)) {
+                    runCgroups.remove(cgroup);
+                } else if (Files.readString(cgroup.resolve("cgroup.events")).contains("populated 0")) {
+                    Files.delete(cgroup);
+                    runCgroups.remove(cgroup);
+                }
+            } catch (IOException e) {
+                log.debug("Could not remove sandbox cgroup {}: {}", cgroup, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,198 @@
+package iuh.fit.cscore_be.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Native Toolchain Service
+ * gcc/g++ command lines for local execution with precompiled headers:
+ * - The block of system includes at the top of a program (the include set of the
+ *   C/C++ wrapper templates) is compiled once per compiler, standard and include set
+ * - Only blocks made of allowlisted headers are precompiled, and at most max-headers
+ *   include sets are kept, so submissions cannot fill the disk or the build queue
+ * - Programs starting with such a block are compiled with -include of the header, so
+ *   iostream/string/vector/... are not re-parsed for every submission and test case
+ * - A header is built by the first program that needs it; programs arriving meanwhile
+ *   compile without it instead of waiting
+ * - Headers are rebuilt once per server start; when a header cannot be built the
+ *   program is compiled without it
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NativeToolchainService {
+
+    private static final Pattern SYSTEM_INCLUDE = Pattern.compile("\\s*#\\s*include\\s*<([\\w./+-]+)>\\s*");
+    private static final int PCH_BUILD_TIMEOUT = 60; // seconds
+
+    private final CodeFingerprintService codeFingerprintService;
+
+    @Value("${compiler.pch.enabled:true}")
+    private boolean pchEnabled;
+
+    @Value("${compiler.pch.allowed-headers:stdio.h,stdlib.h,string.h,math.h,iostream,string,vector,sstream,algorithm}")
+    private Set<String> allowedHeaders;
+
+    @Value("${compiler.pch.max-headers:32}")
+    private int maxHeaders;
+
+    @Value("${system.temp-dir:${java.io.tmpdir}}")
+    private String tempDir;
+
+    private final Map<String, CompletableFuture<Optional<Path>>> precompiledHeaders = new ConcurrentHashMap<>();
+
+    /**
+     * Command compiling a C or C++ source file into an executable
+     */
+    public List<String> compileCommand(String language, String code, Path sourceFile, Path executableFile) {
+        boolean cpp = isCpp(language);
+        String compiler = cpp ? "g++" : "gcc";
+        String standard = cpp ? "-std=c++17" : "-std=c99";
+
+        List<String> command = new ArrayList<>();
+        command.add(compiler);
+        Path header = pchEnabled ? precompiledHeaderFor(code, compiler, standard, cpp) : null;
+        if (header != null) {
+            command.add("-include");
+            command.add(header.toString());
+        }
+        command.addAll(List.of("-o", executableFile.toString(), sourceFile.toString(), "-lm", standard));
+        return command;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", pchEnabled);
+        stats.put("includeSets", precompiledHeaders.size());
+        stats.put("maxIncludeSets", maxHeaders);
+        stats.put("built", precompiledHeaders.values().stream()
+                .filter(future -> future.getNow(Optional.empty()).isPresent())
+                .count());
+        return stats;
+    }
+
+    // ========== PRECOMPILED HEADERS ==========
+
+    private Path precompiledHeaderFor(String code, String compiler, String standard, boolean cpp) {
+        List<String> includes = leadingSystemIncludes(code);
+        if (includes.isEmpty() || !includes.stream().allMatch(this::isAllowedInclude)) {
+            return null;
+        }
+
+        String key = compiler + "|" + standard + "|" + String.join("\n", includes);
+        CompletableFuture<Optional<Path>> future = precompiledHeaders.get(key);
+        if (future == null) {
+            if (precompiledHeaders.size() >= maxHeaders) {
+                return null;
+            }
+            CompletableFuture<Optional<Path>> building = new CompletableFuture<>();
+            future = precompiledHeaders.putIfAbsent(key, building);
+            if (future == null) {
+                // This caller won the race and builds the header outside the map
+                try {
+                    building.complete(buildPrecompiledHeader(key, includes, compiler, standard, cpp));
+                } finally {
+                    building.complete(Optional.empty()); // no-op unless the build threw
+                }
+                future = building;
+            }
+        }
+        return future.getNow(Optional.empty()).orElse(null);
+    }
+
+    private boolean isAllowedInclude(String include) {
+        Matcher matcher = SYSTEM_INCLUDE.matcher(include);
+        return matcher.matches() && allowedHeaders.contains(matcher.group(1));
+    }
+
+    /**
+     * System includes before the first other line. Only this block is precompiled, so forcing
+     * it in with -include cannot change what the program sees.
+     */
+    private List<String> leadingSystemIncludes(String code) {
+        List<String> includes = new ArrayList<>();
+        for (String line : code.split("\n")) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!SYSTEM_INCLUDE.matcher(trimmed).matches()) {
+                break;
+            }
+            if (!includes.contains(trimmed)) {
+                includes.add(trimmed);
+            }
+        }
+        return includes;
+    }
+
+    private Optional<Path> buildPrecompiledHeader(String key, List<String> includes, String compiler,
+                                                  String standard, boolean cpp) {
+        try {
+            Path pchDir = Paths.get(tempDir, "cscore_pch");
+            Files.createDirectories(pchDir);
+
+            String name = "pch_" + codeFingerprintService.sha256(key).substring(0, 16) + (cpp ? ".hpp" : ".h");
+            Path header = pchDir.resolve(name);
+            Path precompiled = pchDir.resolve(name + ".gch");
+            Path building = pchDir.resolve(name + "." + UUID.randomUUID() + ".tmp");
+            Files.writeString(header, String.join("\n", includes) + "\n");
+
+            Path buildLog = pchDir.resolve(name + "." + UUID.randomUUID() + ".log");
+
+            long startTime = System.currentTimeMillis();
+            Process process = new ProcessBuilder(compiler, "-x", cpp ? "c++-header" : "c-header", standard,
+                    header.toString(), "-o", building.toString())
+                    .directory(pchDir.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(buildLog.toFile())
+                    .start();
+
+            // Output goes to a file, so a chatty compiler cannot block on a full pipe
+            boolean finished = process.waitFor(PCH_BUILD_TIMEOUT, TimeUnit.SECONDS);
+            if (!finished || process.exitValue() != 0) {
+                process.destroyForcibly();
+                Files.deleteIfExists(building);
+                log.warn("Could not build precompiled header for {} ({}): {}", includes, compiler,
+                        finished ? readOutput(buildLog) : "timed out after " + PCH_BUILD_TIMEOUT + " s");
+                Files.deleteIfExists(buildLog);
+                return Optional.empty();
+            }
+            Files.deleteIfExists(buildLog);
+
+            // gcc ignores a missing or mismatching .gch and reads the header itself
+            Files.move(building, precompiled, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Built precompiled header {} for {} {} in {} ms",
+                    precompiled, compiler, includes, System.currentTimeMillis() - startTime);
+            return Optional.of(header);
+
+        } catch (IOException e) {
+            log.warn("Could not build precompiled header for {}: {}", includes, e.getMessage());
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private boolean isCpp(String language) {
+        String languageKey = language.toLowerCase();
+        return languageKey.equals("cpp") || languageKey.equals("c++");
+    }
+
+    private String readOutput(Path buildLog) throws IOException {
+        return Files.readString(buildLog, StandardCharsets.UTF_8);
+    }
+}
@@ -2,6 +2,7 @@ package iuh.fit.cscore_be.service;
 
 import iuh.fit.cscore_be.dto.request.CreateNotificationRequest;
 import iuh.fit.cscore_be.dto.request.MarkNotificationRequest;
+import iuh.fit.cscore_be.dto.response.CursorPageResponse;
 import iuh.fit.cscore_be.dto.response.NotificationPageResponse;
 import iuh.fit.cscore_be.dto.response.NotificationResponse;
 import iuh.fit.cscore_be.dto.response.NotificationStatsResponse;
@@ -19,6 +20,7 @@ import iuh.fit.cscore_be.repository.EnrollmentRepository;
 import iuh.fit.cscore_be.repository.NotificationRepository;
 import iuh.fit.cscore_be.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -77,6 +79,40 @@ public class NotificationService {
         return NotificationPageResponse.from(responsePage, unreadCount);
     }
 
+    /**
+     * Get notifications for current user with filters, as keyset pages on (createdAt, id).
+     * The filtered total is only counted when requested.
+     */
+    public CursorPageResponse<NotificationResponse> getNotifications(
+            User currentUser,
+            Boolean isRead,
+            NotificationType type,
+            NotificationCategory category,
+            LocalDateTime dateFrom,
+            LocalDateTime dateTo,
+            String cursor,
+            int size,
+            boolean includeTotal) {
+
+        int pageSize = KeysetCursor.clampPageSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<Notification> rows = after == null
+                ? notificationRepository.findByUserWithFiltersKeyset(
+                        currentUser, isRead, type, category, dateFrom, dateTo, limit)
+                : notificationRepository.findByUserWithFiltersKeysetAfter(
+                        currentUser, isRead, type, category, dateFrom, dateTo, after.time(), after.id(), limit);
+        Long totalCount = includeTotal
+                ? notificationRepository.countByUserWithFilters(currentUser, isRead, type, category, dateFrom, dateTo)
+                : null;
+
+        return KeysetCursor.page(rows, pageSize,
+                notification -> new KeysetCursor(notification.getCreatedAt(), notification.getId()),
+                notifications -> notifications.stream().map(NotificationResponse::from).collect(Collectors.toList()),
+                totalCount);
+    }
+
     /**
      * Get notification statistics for current user
      */
@@ -0,0 +1,174 @@
+package iuh.fit.cscore_be.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Output Similarity Service
+ * Bounded Levenshtein distance for partial credit on output mismatches:
+ * - Common prefix and suffix are stripped before any DP work
+ * - Short remainders (<= 64 chars) use Myers' bit-parallel algorithm
+ * - Longer ones use a diagonal band of width 2k+1 kept in two rows of O(min(n, m)) ints
+ * - Computation stops as soon as the distance is known to exceed the bound
+ */
+@Service
+public class OutputSimilarityService {
+
+    private static final int WORD_SIZE = 64;
+
+    /**
+     * Similarity in [0, 1] (1 - distance / longer length), or 0 when it is not above the threshold
+     */
+    public double similarityAbove(String s1, String s2, double threshold) {
+        int maxLen = Math.max(s1.length(), s2.length());
+        if (maxLen == 0) {
+            return 1.0;
+        }
+
+        int maxDistance = maxDistanceForSimilarity(maxLen, threshold);
+        if (maxDistance < 0) {
+            return 0.0;
+        }
+        int distance = boundedEditDistance(s1, s2, maxDistance);
+        return distance <= maxDistance ? 1.0 - (double) distance / maxLen : 0.0;
+    }
+
+    /**
+     * Largest edit distance whose similarity is still strictly above the threshold, -1 if none
+     */
+    public int maxDistanceForSimilarity(int maxLen, double threshold) {
+        int distance = (int) Math.ceil((1.0 - threshold) * maxLen);
+        while (distance >= 0 && 1.0 - (double) distance / maxLen <= threshold) {
+            distance--;
+        }
+        return Math.min(distance, maxLen);
+    }
+
+    /**
+     * Levenshtein distance between s1 and s2 if it is at most maxDistance, otherwise maxDistance + 1
+     */
+    public int boundedEditDistance(String s1, String s2, int maxDistance) {
+        if (Math.abs(s1.length() - s2.length()) > maxDistance) {
+            return maxDistance + 1;
+        }
+
+        int start = 0;
+        int end1 = s1.length();
+        int end2 = s2.length();
+        while (start < end1 && start < end2 && s1.charAt(start) == s2.charAt(start)) {
+            start++;
+        }
+        while (end1 > start && end2 > start && s1.charAt(end1 - 1) == s2.charAt(end2 - 1)) {
+            end1--;
+            end2--;
+        }
+
+        String a = s1.substring(start, end1);
+        String b = s2.substring(start, end2);
+        if (a.isEmpty() || b.isEmpty()) {
+            return Math.max(a.length(), b.length());
+        }
+
+        // Pattern (columns) is always the shorter string
+        String pattern = a.length() <= b.length() ? a : b;
+        String text = pattern == a ? b : a;
+        return pattern.length() <= WORD_SIZE
+                ? myersDistance(pattern, text, maxDistance)
+                : bandedDistance(pattern, text, maxDistance);
+    }
+
+    /**
+     * Myers / Hyyrö bit-vector edit distance, pattern length <= 64
+     */
+    private int myersDistance(String pattern, String text, int maxDistance) {
+        int m = pattern.length();
+        int n = text.length();
+
+        Map<Character, Long> peq = new HashMap<>();
+        for (int i = 0; i < m; i++) {
+            peq.merge(pattern.charAt(i), 1L << i, (x, y) -> x | y);
+        }
+
+        long last = 1L << (m - 1);
+        long pv = -1L;
+        long mv = 0L;
+        int score = m;
+
+        for (int j = 0; j < n; j++) {
+            long eq = peq.getOrDefault(text.charAt(j), 0L);
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+
+            if ((ph & last) != 0) {
+                score++;
+            } else if ((mh & last) != 0) {
+                score--;
+            }
+
+            // Each remaining text character can lower the score by at most one
+            if (score - (n - j - 1) > maxDistance) {
+                return maxDistance + 1;
+            }
+
+            ph = (ph << 1) | 1L;
+            mh = mh << 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+        }
+
+        return Math.min(score, maxDistance + 1);
+    }
+
+    /**
+     * Ukkonen-style banded DP: only cells with |i - j| <= maxDistance are computed
+     */
+    private int bandedDistance(String pattern, String text, int maxDistance) {
+        int m = pattern.length();
+        int n = text.length();
+        int limit = maxDistance + 1;
+
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        Arrays.fill(prev, limit);
+        for (int j = 0; j <= Math.min(m, maxDistance); j++) {
+            prev[j] = j;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            int lo = Math.max(1, i - maxDistance);
+            int hi = Math.min(m, i + maxDistance);
+            if (lo > hi) {
+                return limit;
+            }
+
+            cur[lo - 1] = lo == 1 && i <= maxDistance ? i : limit;
+            if (hi < m) {
+                cur[hi + 1] = limit;
+            }
+
+            char c = text.charAt(i - 1);
+            int rowMin = cur[lo - 1];
+            for (int j = lo; j <= hi; j++) {
+                int cost = pattern.charAt(j - 1) == c ? 0 : 1;
+                int value = Math.min(prev[j - 1] + cost, Math.min(prev[j], cur[j - 1]) + 1);
+                cur[j] = Math.min(value, limit);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+
+            if (rowMin >= limit) {
+                return limit;
+            }
+
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
+        }
+
+        return Math.min(prev[m], limit);
+    }
+}
@@ -0,0 +1,283 @@
+package iuh.fit.cscore_be.service;
+
+import iuh.fit.cscore_be.entity.QuestionSubmission;
+import iuh.fit.cscore_be.entity.TestResult;
+import iuh.fit.cscore_be.enums.SubmissionStatus;
+import iuh.fit.cscore_be.repository.QuestionRepository;
+import iuh.fit.cscore_be.repository.QuestionSubmissionRepository;
+import iuh.fit.cscore_be.repository.SubmissionRepository;
+import iuh.fit.cscore_be.repository.TestResultRepository;
+import iuh.fit.cscore_be.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Question Progress Buffer
+ * Write-behind buffer for per-question progress of a submission (check results, answers):
+ * - Updates are merged per (submission, question) in memory; only the latest one is written
+ * - Flushed as one transaction per batch, on a timer and when the buffer reaches its size limit
+ * - Pending and in-flight updates are visible through {@link #find(Long, Long)} until committed
+ * - Every update is a draft: rows that were graded are never overwritten, and drafts of a
+ *   submission that is being graded are cancelled ({@link #discard(Long)})
+ * - Flushes and grading lock the submission row before writing its question rows, so a
+ *   flush that is already writing finishes before the grade is stored
+ * - Flushed synchronously on shutdown
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QuestionProgressBuffer {
+
+    private final QuestionSubmissionRepository questionSubmissionRepository;
+    private final SubmissionRepository submissionRepository;
+    private final QuestionRepository questionRepository;
+    private final UserRepository userRepository;
+    private final TestResultRepository testResultRepository;
+    private final TestResultWriter testResultWriter;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${grading.write-behind.max-entries:500}")
+    private int maxEntries;
+
+    private final Map<Key, QuestionProgress> pending = new ConcurrentHashMap<>();
+    private final Map<Key, QuestionProgress> inFlight = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDateTime> discardedAt = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "QuestionProgressFlush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private TransactionTemplate writeTransaction;
+
+    @PostConstruct
+    public void initializeTransactionTemplate() {
+        writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushLock.lock();
+        try {
+            int remaining = pending.size();
+            flushPending();
+            log.info("Question progress buffer flushed on shutdown ({} entries, {} left unwritten)", remaining, pending.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Buffer an update; replaces any pending update for the same submission and question.
+     * Test results are kept from the earlier update when the new one carries none.
+     */
+    public void record(QuestionProgress update) {
+        Key key = new Key(update.getSubmissionId(), update.getQuestionId());
+        pending.merge(key, update, (older, newer) -> newer.getTestResults() != null || older.getTestResults() == null
+                ? newer : newer.withTestResults(older.getTestResults()));
+
+        if (pending.size() >= maxEntries && flushScheduled.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(() -> {
+                    flushScheduled.set(false);
+                    flush();
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down: the shutdown flush writes it
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Latest update not yet committed to the database, for read-your-writes
+     */
+    public Optional<QuestionProgress> find(Long submissionId, Long questionId) {
+        Key key = new Key(submissionId, questionId);
+        QuestionProgress progress = pending.get(key);
+        return Optional.ofNullable(progress != null ? progress : inFlight.get(key));
+    }
+
+    /**
+     * Cancel buffered and in-flight updates of a submission that is being graded, so they cannot
+     * land after the grade. Does not wait for a running flush here: the grading transaction may
+     * hold locks that flush needs; it waits on the submission row lock instead.
+     */
+    public void discard(Long submissionId) {
+        discardedAt.put(submissionId, LocalDateTime.now());
+        pending.keySet().removeIf(key -> key.submissionId().equals(submissionId));
+    }
+
+    @Scheduled(fixedDelayString = "${grading.write-behind.flush-interval-ms:2000}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            flushPending();
+            // A cancelled update is written at most one batch later than its discard
+            LocalDateTime expired = LocalDateTime.now().minusMinutes(10);
+            discardedAt.values().removeIf(at -> at.isBefore(expired));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushPending() {
+        while (!pending.isEmpty()) {
+            Map<Key, QuestionProgress> batch = new LinkedHashMap<>();
+            for (Key key : pending.keySet()) {
+                if (batch.size() >= maxEntries) {
+                    break;
+                }
+                QuestionProgress progress = pending.get(key);
+                if (progress == null) {
+                    continue;
+                }
+                // Published as in-flight before leaving pending, so readers never miss it;
+                // a newer update that arrives meanwhile stays pending for the next batch
+                inFlight.put(key, progress);
+                pending.remove(key, progress);
+                batch.put(key, progress);
+            }
+
+            try {
+                writeTransaction.executeWithoutResult(status -> writeBatch(batch));
+                log.debug("Flushed {} question progress updates", batch.size());
+            } catch (Exception e) {
+                log.error("Error flushing {} question progress updates, keeping them buffered", batch.size(), e);
+                batch.forEach(pending::putIfAbsent);
+                return;
+            } finally {
+                batch.forEach(inFlight::remove);
+            }
+        }
+    }
+
+    private void writeBatch(Map<Key, QuestionProgress> batch) {
+        Set<Long> submissionIds = batch.keySet().stream().map(Key::submissionId).collect(Collectors.toSet());
+        // Rows read after the lock reflect any grade committed meanwhile
+        submissionRepository.lockByIdIn(submissionIds);
+        Map<Key, QuestionSubmission> existing = new HashMap<>();
+        for (QuestionSubmission row : questionSubmissionRepository.findBySubmissionIdIn(submissionIds)) {
+            existing.putIfAbsent(new Key(row.getSubmission().getId(), row.getQuestion().getId()), row);
+        }
+
+        List<QuestionSubmission> rows = new ArrayList<>();
+        // Identity keys: entity hashCode covers mutable fields and lazy associations
+        Map<QuestionSubmission, List<TestResult>> testResults = new IdentityHashMap<>();
+        for (Map.Entry<Key, QuestionProgress> entry : batch.entrySet()) {
+            QuestionProgress progress = entry.getValue();
+            LocalDateTime discarded = discardedAt.get(progress.getSubmissionId());
+            if (discarded != null && !progress.getUpdatedAt().isAfter(discarded)) {
+                continue;
+            }
+            QuestionSubmission row = existing.get(entry.getKey());
+            if (row != null && (row.getGradedTime() != null || Boolean.TRUE.equals(row.getIsFinalSubmission()))) {
+                continue;
+            }
+            if (row == null) {
+                row = new QuestionSubmission();
+                row.setSubmission(submissionRepository.getReferenceById(progress.getSubmissionId()));
+                row.setQuestion(questionRepository.getReferenceById(progress.getQuestionId()));
+                row.setStudent(progress.getStudentUserId() != null
+                        ? userRepository.getReferenceById(progress.getStudentUserId()) : null);
+            }
+
+            row.setCode(progress.getCode());
+            row.setProgrammingLanguage(progress.getProgrammingLanguage());
+            row.setScore(progress.getScore());
+            row.setIsCorrect(progress.getIsCorrect());
+            row.setStatus(progress.getStatus());
+            row.setExecutionTime(progress.getExecutionTime());
+            row.setFeedback(progress.getFeedback());
+            row.setSubmissionTime(progress.getUpdatedAt());
+            row.setIsFinalSubmission(false);
+            rows.add(row);
+            if (progress.getTestResults() != null) {
+                testResults.put(row, progress.getTestResults());
+            }
+        }
+        questionSubmissionRepository.saveAll(rows);
+
+        if (!testResults.isEmpty()) {
+            List<Long> replacedRows = testResults.keySet().stream()
+                    .map(QuestionSubmission::getId)
+                    .collect(Collectors.toList());
+            testResultRepository.deleteByQuestionSubmissionIdIn(replacedRows);
+
+            List<TestResult> toWrite = new ArrayList<>();
+            testResults.forEach((row, results) -> {
+                for (TestResult result : results) {
+                    TestResult copy = new TestResult();
+                    copy.setQuestionSubmission(row);
+                    copy.setTestCase(result.getTestCase());
+                    copy.setIsPassed(result.getIsPassed());
+                    copy.setActualOutput(result.getActualOutput());
+                    copy.setErrorMessage(result.getErrorMessage());
+                    copy.setExecutionTime(result.getExecutionTime());
+                    copy.setTestCaseVersion(result.getTestCaseVersion());
+                    copy.setTestCaseExecutionVersion(result.getTestCaseExecutionVersion());
+                    toWrite.add(copy);
+                }
+            });
+            testResultWriter.writeAll(toWrite);
+        }
+    }
+
+    private record Key(Long submissionId, Long questionId) {
+    }
+
+    /**
+     * Latest known progress of one question of a submission.
+     * Test results are unsaved entities without a submission; they are attached to the question row on flush.
+     */
+    @Getter
+    @Builder(toBuilder = true)
+    public static class QuestionProgress {
+        private final Long submissionId;
+        private final Long questionId;
+        private final Long studentUserId;
+        private final String code;
+        private final String programmingLanguage;
+        private final Double score;
+        private final Boolean isCorrect;
+        private final SubmissionStatus status;
+        private final Long executionTime;
+        private final String feedback;
+        private final List<TestResult> testResults;
+        @Builder.Default
+        private final LocalDateTime updatedAt = LocalDateTime.now();
+
+        QuestionProgress withTestResults(List<TestResult> results) {
+            return toBuilder().testResults(results).build();
+        }
+    }
+}
@@ -28,6 +28,7 @@ public class QuestionService {
     private final QuestionRepository questionRepository;
     private final QuestionOptionRepository questionOptionRepository;
     private final TestCaseRepository testCaseRepository;
+    private final GradingSnapshotService gradingSnapshotService;
     
     public Question createQuestion(CreateQuestionRequest request, Assignment assignment) {
         Question question = new Question();
@@ -46,6 +47,7 @@ public class QuestionService {
         question.setTestTemplate(request.getTestTemplate());
         
         Question savedQuestion = questionRepository.save(question);
+        gradingSnapshotService.markChanged(assignment);
         
         // Create test cases for PROGRAMMING questions
         if (request.getTestCases() != null && !request.getTestCases().isEmpty()) {
@@ -98,6 +100,8 @@ public class QuestionService {
     }
     
     public void deleteQuestion(Long questionId) {
+        questionRepository.findById(questionId)
+            .ifPresent(question -> gradingSnapshotService.markChanged(question.getAssignment()));
         questionRepository.deleteById(questionId);
     }
     
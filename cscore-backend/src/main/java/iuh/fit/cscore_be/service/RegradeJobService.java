@@ -0,0 +1,631 @@
+package iuh.fit.cscore_be.service;
+
+import iuh.fit.cscore_be.dto.response.RegradeJobItemResponse;
+import iuh.fit.cscore_be.dto.response.RegradeJobResponse;
+import iuh.fit.cscore_be.entity.Assignment;
+import iuh.fit.cscore_be.entity.RegradeJob;
+import iuh.fit.cscore_be.entity.RegradeJobItem;
+import iuh.fit.cscore_be.entity.User;
+import iuh.fit.cscore_be.enums.RegradeItemStatus;
+import iuh.fit.cscore_be.enums.RegradeJobStatus;
+import iuh.fit.cscore_be.enums.RegradeJobType;
+import iuh.fit.cscore_be.enums.Role;
+import iuh.fit.cscore_be.enums.SubmissionStatus;
+import iuh.fit.cscore_be.enums.RegradeMode;
+import iuh.fit.cscore_be.exception.BadRequestException;
+import iuh.fit.cscore_be.exception.ResourceNotFoundException;
+import iuh.fit.cscore_be.repository.AssignmentRepository;
+import iuh.fit.cscore_be.repository.RegradeJobItemRepository;
+import iuh.fit.cscore_be.repository.RegradeJobRepository;
+import iuh.fit.cscore_be.repository.SubmissionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Regrade Job Service
+ * Bulk regrade engine for an assignment or an explicit batch of submissions:
+ * - Submissions are distributed to parallel workers through a shared work queue
+ * - Every graded submission is checkpointed in its own transaction
+ * - Jobs can be paused, resumed and cancelled, and survive restarts
+ * - DELTA jobs only execute test cases that changed since the submission was graded
+ * - Identical submissions (same normalized code and language, same assignment, question
+ *   and test set) are executed once and a normally completed result is copied to every
+ *   copy, with per-submission test results
+ * - Batch jobs skip already graded submissions unless forced, and are capped
+ *   in size and number so callers get back-pressure instead of a flooded executor
+ * - Progress, throughput and ETA are reported per job, outcomes per submission
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RegradeJobService {
+
+    private static final List<RegradeJobStatus> ACTIVE_STATUSES =
+            List.of(RegradeJobStatus.QUEUED, RegradeJobStatus.RUNNING, RegradeJobStatus.PAUSED);
+    private static final String ACTIVE_JOB_MESSAGE = "Bài tập này đang có một tiến trình chấm lại chưa hoàn thành";
+    private static final int FINGERPRINT_BATCH_SIZE = 200;
+    private static final Set<SubmissionStatus> UNGRADED_STATUSES =
+            EnumSet.of(SubmissionStatus.SUBMITTED, SubmissionStatus.GRADING, SubmissionStatus.ERROR);
+
+    private final RegradeJobRepository regradeJobRepository;
+    private final RegradeJobItemRepository regradeJobItemRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final SubmissionRepository submissionRepository;
+    private final AutoGradingService autoGradingService;
+    private final CodeFingerprintService codeFingerprintService;
+    private final GradingSnapshotService gradingSnapshotService;
+    private final ContentBlobStore contentBlobStore;
+
+    @Value("${grading.regrade.workers:4}")
+    private int workerCount;
+
+    @Value("${grading.batch.max-submissions:500}")
+    private int maxBatchSubmissions;
+
+    @Value("${grading.batch.max-active-jobs:3}")
+    private int maxActiveBatchJobs;
+
+    private final Map<Long, JobRuntime> runtimes = new ConcurrentHashMap<>();
+    private ThreadPoolTaskExecutor workerPool;
+
+    @PostConstruct
+    public void initializeWorkers() {
+        workerPool = new ThreadPoolTaskExecutor();
+        workerPool.setCorePoolSize(workerCount);
+        workerPool.setMaxPoolSize(workerCount);
+        workerPool.setQueueCapacity(Integer.MAX_VALUE);
+        workerPool.setThreadNamePrefix("Regrade-");
+        workerPool.initialize();
+    }
+
+    @PreDestroy
+    public void shutdownWorkers() {
+        runtimes.values().forEach(runtime -> runtime.paused = true);
+        workerPool.shutdown();
+    }
+
+    /**
+     * Resume jobs interrupted by a restart from their last checkpoint
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        List<RegradeJob> interrupted = regradeJobRepository.findByStatusIn(
+                List.of(RegradeJobStatus.QUEUED, RegradeJobStatus.RUNNING));
+        for (RegradeJob job : interrupted) {
+            log.info("Resuming interrupted regrade job {}", job.getId());
+            launch(job.getId());
+        }
+    }
+
+    // ========== JOB CONTROL ==========
+
+    /**
+     * Start a regrade of every submission of an assignment.
+     * The assignment row stays locked until commit, so concurrent requests check for an active job one
+     * at a time; the unique index on regrade_jobs.active_assignment_id backs this up in the database.
+     */
+    @Transactional
+    public RegradeJobResponse startAssignmentRegrade(Long assignmentId, RegradeMode mode, User teacher) {
+        Assignment assignment = assignmentRepository.lockById(assignmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Assignment not found"));
+        checkTeacher(assignment, teacher);
+
+        if (regradeJobRepository.existsByAssignmentIdAndStatusIn(assignmentId, ACTIVE_STATUSES)) {
+            throw new BadRequestException(ACTIVE_JOB_MESSAGE);
+        }
+
+        List<Long> submissionIds = submissionRepository.findIdsByAssignmentId(assignmentId);
+
+        RegradeJob job = new RegradeJob();
+        job.setAssignment(assignment);
+        job.setRequestedBy(teacher);
+        job.setStatus(RegradeJobStatus.QUEUED);
+        job.setMode(mode != null ? mode : RegradeMode.FULL);
+        job.setTotalItems(submissionIds.size());
+        try {
+            job = regradeJobRepository.saveAndFlush(job);
+        } catch (DataIntegrityViolationException e) {
+            throw new BadRequestException(ACTIVE_JOB_MESSAGE);
+        }
+
+        List<RegradeJobItem> items = new ArrayList<>();
+        for (Long submissionId : submissionIds) {
+            RegradeJobItem item = new RegradeJobItem();
+            item.setJob(job);
+            item.setSubmissionId(submissionId);
+            items.add(item);
+        }
+        regradeJobItemRepository.saveAll(items);
+
+        log.info("Created {} regrade job {} for assignment {} with {} submissions",
+                job.getMode(), job.getId(), assignmentId, submissionIds.size());
+        launchAfterCommit(job.getId());
+        return toResponse(job);
+    }
+
+    /**
+     * Grade an explicit list of submissions as a background job; the job id is the batch id.
+     * Submissions that are already graded are recorded as SKIPPED unless forceRegrade is set.
+     */
+    @Transactional
+    public RegradeJobResponse startBatchGrading(List<Long> submissionIds, boolean forceRegrade, User user) {
+        if (submissionIds == null || submissionIds.isEmpty()) {
+            throw new BadRequestException("Danh sách bài nộp không được để trống");
+        }
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(submissionIds));
+        if (distinctIds.size() > maxBatchSubmissions) {
+            throw new BadRequestException("Mỗi lượt chấm hàng loạt tối đa " + maxBatchSubmissions + " bài nộp");
+        }
+        if (regradeJobRepository.countByTypeAndStatusIn(RegradeJobType.BATCH, ACTIVE_STATUSES) >= maxActiveBatchJobs) {
+            throw new BadRequestException("Hệ thống đang xử lý quá nhiều lượt chấm hàng loạt, vui lòng thử lại sau");
+        }
+
+        Map<Long, Object[]> states = new HashMap<>();
+        for (Object[] row : submissionRepository.findGradingStateByIdIn(distinctIds)) {
+            states.put((Long) row[0], row);
+        }
+        if (!isAdmin(user)) {
+            for (Object[] state : states.values()) {
+                if (!user.getId().equals(state[1])) {
+                    throw new BadRequestException("Access denied: You are not the teacher of submission " + state[0]);
+                }
+            }
+        }
+
+        RegradeJob job = new RegradeJob();
+        job.setType(RegradeJobType.BATCH);
+        job.setRequestedBy(user);
+        job.setStatus(RegradeJobStatus.QUEUED);
+        job.setMode(RegradeMode.FULL);
+        job.setTotalItems(distinctIds.size());
+        job = regradeJobRepository.save(job);
+
+        List<RegradeJobItem> items = new ArrayList<>();
+        int skipped = 0;
+        for (Long submissionId : distinctIds) {
+            RegradeJobItem item = new RegradeJobItem();
+            item.setJob(job);
+            item.setSubmissionId(submissionId);
+
+            Object[] state = states.get(submissionId);
+            if (state == null) {
+                item.setStatus(RegradeItemStatus.FAILED);
+                item.setErrorMessage("Không tìm thấy bài nộp");
+                item.setProcessedAt(LocalDateTime.now());
+            } else if (!forceRegrade && isGraded((SubmissionStatus) state[2], (LocalDateTime) state[4])) {
+                item.setStatus(RegradeItemStatus.SKIPPED);
+                item.setScore((Double) state[3]);
+                item.setProcessedAt(LocalDateTime.now());
+                skipped++;
+            }
+            items.add(item);
+        }
+        regradeJobItemRepository.saveAll(items);
+
+        log.info("Created batch grading job {} for {} submissions ({} skipped as already graded)",
+                job.getId(), distinctIds.size(), skipped);
+        launchAfterCommit(job.getId());
+        return toResponse(job);
+    }
+
+    @Transactional
+    public RegradeJobResponse pauseJob(Long jobId, User teacher) {
+        RegradeJob job = getOwnedJob(jobId, teacher);
+        if (job.getStatus() != RegradeJobStatus.RUNNING && job.getStatus() != RegradeJobStatus.QUEUED) {
+            throw new BadRequestException("Chỉ có thể tạm dừng tiến trình đang chạy");
+        }
+
+        JobRuntime runtime = runtimes.get(jobId);
+        if (runtime != null) {
+            runtime.paused = true;
+        }
+        job.setStatus(RegradeJobStatus.PAUSED);
+        return toResponse(regradeJobRepository.save(job));
+    }
+
+    @Transactional
+    public RegradeJobResponse resumeJob(Long jobId, User teacher) {
+        RegradeJob job = getOwnedJob(jobId, teacher);
+        if (job.getStatus() != RegradeJobStatus.PAUSED) {
+            throw new BadRequestException("Chỉ có thể tiếp tục tiến trình đang tạm dừng");
+        }
+        if (runtimes.containsKey(jobId)) {
+            throw new BadRequestException("Tiến trình đang dừng lại, vui lòng thử lại sau giây lát");
+        }
+
+        job.setStatus(RegradeJobStatus.QUEUED);
+        job.setFinishedAt(null);
+        job = regradeJobRepository.save(job);
+        launchAfterCommit(jobId);
+        return toResponse(job);
+    }
+
+    @Transactional
+    public RegradeJobResponse cancelJob(Long jobId, User teacher) {
+        RegradeJob job = getOwnedJob(jobId, teacher);
+        if (!ACTIVE_STATUSES.contains(job.getStatus())) {
+            throw new BadRequestException("Tiến trình đã kết thúc, không thể hủy");
+        }
+
+        JobRuntime runtime = runtimes.get(jobId);
+        if (runtime != null) {
+            runtime.cancelled = true;
+        }
+        job.setStatus(RegradeJobStatus.CANCELLED);
+        job.setFinishedAt(LocalDateTime.now());
+        return toResponse(regradeJobRepository.save(job));
+    }
+
+    @Transactional(readOnly = true)
+    public RegradeJobResponse getJob(Long jobId, User teacher) {
+        return toResponse(getOwnedJob(jobId, teacher));
+    }
+
+    @Transactional(readOnly = true)
+    public List<RegradeJobResponse> getJobsByAssignment(Long assignmentId, User teacher) {
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Assignment not found"));
+        checkTeacher(assignment, teacher);
+
+        return regradeJobRepository.findByAssignmentIdOrderByCreatedAtDesc(assignmentId).stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public List<RegradeJobItemResponse> getJobItems(Long jobId, User user) {
+        getOwnedJob(jobId, user);
+        return regradeJobItemRepository.findByJobIdOrderById(jobId).stream()
+                .map(item -> RegradeJobItemResponse.builder()
+                        .submissionId(item.getSubmissionId())
+                        .status(item.getStatus())
+                        .score(item.getScore())
+                        .errorMessage(item.getErrorMessage())
+                        .sharedFromSubmissionId(item.getSharedFromSubmissionId())
+                        .processedAt(item.getProcessedAt())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    // ========== WORKERS ==========
+
+    private void launchAfterCommit(Long jobId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    launch(jobId);
+                }
+            });
+        } else {
+            launch(jobId);
+        }
+    }
+
+    private void launch(Long jobId) {
+        RegradeJob job = regradeJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+
+        JobRuntime runtime = new JobRuntime(job.getMode());
+        if (runtimes.putIfAbsent(jobId, runtime) != null) {
+            log.warn("Regrade job {} is already running", jobId);
+            return;
+        }
+        int representatives = groupIdenticalSubmissions(jobId, runtime);
+
+        job.setStatus(RegradeJobStatus.RUNNING);
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(LocalDateTime.now());
+        }
+        regradeJobRepository.save(job);
+
+        int workers = Math.max(1, Math.min(workerCount, representatives));
+        runtime.activeWorkers.set(workers);
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(() -> runWorker(jobId, runtime));
+        }
+    }
+
+    /**
+     * Group pending items by grading key (normalized code, language, assignment, question and
+     * test set). Only the first item of each group is queued; the others receive a copy of its result.
+     */
+    private int groupIdenticalSubmissions(Long jobId, JobRuntime runtime) {
+        List<Object[]> pending = regradeJobItemRepository.findItemSubmissionIdsByJobIdAndStatus(jobId, RegradeItemStatus.PENDING);
+
+        Map<Long, String> fingerprints = new HashMap<>();
+        Map<Long, Optional<GradingSnapshotService.AssignmentSnapshot>> snapshots = new HashMap<>();
+        List<Long> submissionIds = pending.stream().map(row -> (Long) row[1]).collect(Collectors.toList());
+        for (int from = 0; from < submissionIds.size(); from += FINGERPRINT_BATCH_SIZE) {
+            List<Long> batch = submissionIds.subList(from, Math.min(from + FINGERPRINT_BATCH_SIZE, submissionIds.size()));
+            List<Object[]> rows = submissionRepository.findCodeByIdIn(batch);
+            Map<String, String> blobs = contentBlobStore.loadAll(rows.stream()
+                    .filter(row -> row[1] == null && row[2] != null)
+                    .map(row -> (String) row[2])
+                    .collect(Collectors.toList()));
+            for (Object[] row : rows) {
+                Long assignmentId = (Long) row[4];
+                GradingSnapshotService.AssignmentSnapshot snapshot = snapshots
+                        .computeIfAbsent(assignmentId, this::findSnapshot)
+                        .orElse(null);
+                if (snapshot == null || snapshot.getPrimaryQuestion() == null) {
+                    continue; // graded on its own
+                }
+                String code = row[1] != null ? (String) row[1] : blobs.get((String) row[2]);
+                fingerprints.put((Long) row[0], codeFingerprintService.gradingKey(assignmentId,
+                        snapshot.getPrimaryQuestion().getId(), snapshot.getTestSetHash(), code, (String) row[3]));
+            }
+        }
+
+        Map<String, WorkUnit> groups = new LinkedHashMap<>();
+        for (Object[] row : pending) {
+            Long itemId = (Long) row[0];
+            Long submissionId = (Long) row[1];
+            String key = fingerprints.getOrDefault(submissionId, "submission:" + submissionId);
+
+            WorkUnit unit = groups.get(key);
+            if (unit == null) {
+                groups.put(key, new WorkUnit(itemId));
+            } else {
+                unit.duplicateItemIds.add(itemId);
+            }
+        }
+
+        runtime.queue.addAll(groups.values());
+        if (groups.size() < pending.size()) {
+            log.info("Regrade job {}: {} pending submissions grouped into {} distinct programs",
+                    jobId, pending.size(), groups.size());
+        }
+        return groups.size();
+    }
+
+    private Optional<GradingSnapshotService.AssignmentSnapshot> findSnapshot(Long assignmentId) {
+        try {
+            return Optional.of(gradingSnapshotService.getSnapshot(assignmentId));
+        } catch (Exception e) {
+            log.warn("Could not load grading snapshot of assignment {}: {}", assignmentId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void runWorker(Long jobId, JobRuntime runtime) {
+        try {
+            WorkUnit unit;
+            while (!runtime.paused && !runtime.cancelled && (unit = runtime.queue.poll()) != null) {
+                processUnit(unit, runtime);
+            }
+        } catch (Exception e) {
+            log.error("Regrade worker for job {} stopped unexpectedly: {}", jobId, e.getMessage(), e);
+        } finally {
+            if (runtime.activeWorkers.decrementAndGet() == 0) {
+                finishRun(jobId, runtime);
+            }
+        }
+    }
+
+    private void processUnit(WorkUnit unit, JobRuntime runtime) {
+        RegradeJobItem representative = regradeJobItemRepository.findById(unit.itemId).orElse(null);
+        AutoGradingService.GradingResult result = null;
+
+        if (representative != null && representative.getStatus() == RegradeItemStatus.PENDING) {
+            try {
+                result = autoGradingService.regradeSubmission(representative.getSubmissionId(), runtime.mode);
+                if (result != null) {
+                    markDone(representative, result.getFinalScore(), null);
+                } else {
+                    markFailed(representative, "Chấm điểm thất bại");
+                }
+            } catch (Exception e) {
+                log.error("Error regrading submission {}: {}", representative.getSubmissionId(), e.getMessage());
+                markFailed(representative, e.getMessage());
+            }
+            runtime.processed.incrementAndGet();
+        }
+
+        // Only a result whose executions all completed normally is fanned out
+        boolean shareable = result != null && autoGradingService.isShareable(result);
+        if (result != null && !shareable && !unit.duplicateItemIds.isEmpty()) {
+            log.info("Result of submission {} is not shareable, grading {} identical submissions individually",
+                    representative.getSubmissionId(), unit.duplicateItemIds.size());
+        }
+
+        for (Long duplicateItemId : unit.duplicateItemIds) {
+            // Remaining duplicates stay PENDING, so resuming regroups and grades them
+            if (runtime.paused || runtime.cancelled) {
+                return;
+            }
+            RegradeJobItem duplicate = regradeJobItemRepository.findById(duplicateItemId).orElse(null);
+            if (duplicate == null || duplicate.getStatus() != RegradeItemStatus.PENDING) {
+                continue;
+            }
+
+            try {
+                Double score = shareable
+                        ? autoGradingService.applySharedGradingResult(duplicate.getSubmissionId(), result)
+                        : null;
+                if (score != null) {
+                    markDone(duplicate, score, representative.getSubmissionId());
+                } else {
+                    // No result that fits this copy: grade it on its own
+                    AutoGradingService.GradingResult own = autoGradingService.regradeSubmission(duplicate.getSubmissionId(), runtime.mode);
+                    if (own != null) {
+                        markDone(duplicate, own.getFinalScore(), null);
+                    } else {
+                        markFailed(duplicate, "Chấm điểm thất bại");
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Error regrading submission {}: {}", duplicate.getSubmissionId(), e.getMessage());
+                markFailed(duplicate, e.getMessage());
+            }
+            runtime.processed.incrementAndGet();
+        }
+    }
+
+    private void markDone(RegradeJobItem item, Double score, Long sharedFromSubmissionId) {
+        item.setStatus(RegradeItemStatus.DONE);
+        item.setScore(score);
+        item.setSharedFromSubmissionId(sharedFromSubmissionId);
+        item.setProcessedAt(LocalDateTime.now());
+        regradeJobItemRepository.save(item);
+    }
+
+    private void markFailed(RegradeJobItem item, String errorMessage) {
+        item.setStatus(RegradeItemStatus.FAILED);
+        item.setErrorMessage(errorMessage);
+        item.setProcessedAt(LocalDateTime.now());
+        regradeJobItemRepository.save(item);
+    }
+
+    /**
+     * Called when the last worker of a run exits. The job is only COMPLETED when no item is left
+     * PENDING; workers that stopped on an error leave it PAUSED, so resuming grades the rest.
+     */
+    private void finishRun(Long jobId, JobRuntime runtime) {
+        try {
+            RegradeJob job = regradeJobRepository.findById(jobId).orElse(null);
+            if (job != null && job.getStatus() == RegradeJobStatus.RUNNING && !runtime.paused && !runtime.cancelled) {
+                long pending = regradeJobItemRepository.countByJobIdAndStatus(jobId, RegradeItemStatus.PENDING);
+                if (pending == 0) {
+                    job.setStatus(RegradeJobStatus.COMPLETED);
+                    job.setFinishedAt(LocalDateTime.now());
+                    log.info("Regrade job {} completed", jobId);
+                } else {
+                    job.setStatus(RegradeJobStatus.PAUSED);
+                    log.warn("Regrade job {} stopped with {} pending submissions, paused for resuming", jobId, pending);
+                }
+                regradeJobRepository.save(job);
+            }
+        } catch (Exception e) {
+            log.error("Could not finish run of regrade job {}: {}", jobId, e.getMessage(), e);
+        } finally {
+            runtimes.remove(jobId);
+        }
+    }
+
+    // ========== HELPERS ==========
+
+    private RegradeJob getOwnedJob(Long jobId, User user) {
+        RegradeJob job = regradeJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Regrade job not found"));
+        if (isAdmin(user)) {
+            return job;
+        }
+        if (job.getAssignment() != null) {
+            checkTeacher(job.getAssignment(), user);
+        } else if (job.getRequestedBy() == null || !job.getRequestedBy().getId().equals(user.getId())) {
+            throw new BadRequestException("Access denied: You did not start this grading job");
+        }
+        return job;
+    }
+
+    private boolean isAdmin(User user) {
+        return user.getRole() == Role.ADMIN;
+    }
+
+    private boolean isGraded(SubmissionStatus status, LocalDateTime gradedTime) {
+        return gradedTime != null && status != null && !UNGRADED_STATUSES.contains(status);
+    }
+
+    private void checkTeacher(Assignment assignment, User teacher) {
+        if (!assignment.getCourse().getTeacher().getId().equals(teacher.getId())) {
+            throw new BadRequestException("Access denied: You are not the teacher of this assignment");
+        }
+    }
+
+    private RegradeJobResponse toResponse(RegradeJob job) {
+        Map<RegradeItemStatus, Integer> counts = new EnumMap<>(RegradeItemStatus.class);
+        for (Object[] row : regradeJobItemRepository.countByJobIdGroupByStatus(job.getId())) {
+            counts.put((RegradeItemStatus) row[0], ((Number) row[1]).intValue());
+        }
+
+        int total = job.getTotalItems() != null ? job.getTotalItems() : 0;
+        int completed = counts.getOrDefault(RegradeItemStatus.DONE, 0);
+        int failed = counts.getOrDefault(RegradeItemStatus.FAILED, 0);
+        int pending = counts.getOrDefault(RegradeItemStatus.PENDING, 0);
+        int skipped = counts.getOrDefault(RegradeItemStatus.SKIPPED, 0);
+
+        Double throughput = null;
+        Long eta = null;
+        JobRuntime runtime = runtimes.get(job.getId());
+        if (runtime != null) {
+            double elapsedSeconds = Math.max(1, Duration.between(runtime.startedAt, Instant.now()).getSeconds());
+            int processed = runtime.processed.get();
+            throughput = processed * 60.0 / elapsedSeconds;
+            if (processed > 0) {
+                eta = Math.round(pending * elapsedSeconds / processed);
+            }
+        }
+
+        return RegradeJobResponse.builder()
+                .id(job.getId())
+                .type(job.getType())
+                .assignmentId(job.getAssignment() != null ? job.getAssignment().getId() : null)
+                .assignmentTitle(job.getAssignment() != null ? job.getAssignment().getTitle() : null)
+                .status(job.getStatus())
+                .mode(job.getMode())
+                .totalItems(total)
+                .completedItems(completed)
+                .failedItems(failed)
+                .skippedItems(skipped)
+                .pendingItems(pending)
+                .progressPercent(total > 0 ? (completed + failed + skipped) * 100.0 / total : 100.0)
+                .throughputPerMinute(throughput)
+                .etaSeconds(eta)
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+
+    /**
+     * In-memory state of a job while its workers are active
+     */
+    private static class JobRuntime {
+        private final RegradeMode mode;
+        private final Queue<WorkUnit> queue = new ConcurrentLinkedQueue<>();
+        private final Instant startedAt = Instant.now();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger activeWorkers = new AtomicInteger();
+        private volatile boolean paused = false;
+        private volatile boolean cancelled = false;
+
+        JobRuntime(RegradeMode mode) {
+            this.mode = mode;
+        }
+    }
+
+    /**
+     * One item to grade plus the items of identical submissions that share its result
+     */
+    private static class WorkUnit {
+        private final Long itemId;
+        private final List<Long> duplicateItemIds = new ArrayList<>();
+
+        WorkUnit(Long itemId) {
+            this.itemId = itemId;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package iuh.fit.cscore_be.service;
+
+import iuh.fit.cscore_be.security.UserPrincipal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Replica Read Tracker
+ * Decides whether a read-only transaction may use the read replica:
+ * - The replica must be reachable and no further behind than the allowed lag
+ * - Read-your-writes: a user whose data was just written (a submission, a grade) reads
+ *   from the primary until the replica has had time to catch up, i.e. for the measured
+ *   lag plus a safety margin after the write committed
+ * Only active when replica routing is enabled; otherwise every method is a no-op.
+ */
+@Service
+@Slf4j
+public class ReplicaReadTracker {
+
+    private final Map<Long, Long> lastWriteMillis = new ConcurrentHashMap<>();
+
+    @Value("${datasource.replica.enabled:false}")
+    private boolean enabled;
+
+    @Value("${datasource.replica.max-lag-seconds:5}")
+    private long maxLagSeconds;
+
+    @Value("${datasource.replica.read-your-writes-margin-ms:1000}")
+    private long readYourWritesMarginMillis;
+
+    private volatile boolean replicaAvailable = false;
+    private volatile long replicaLagMillis = 0L;
+
+    /**
+     * Whether the current read-only transaction may read from the replica
+     */
+    public boolean canReadFromReplica() {
+        if (!enabled || !replicaAvailable || replicaLagMillis > maxLagSeconds * 1000) {
+            return false;
+        }
+        Long userId = currentUserId();
+        if (userId == null) {
+            return true;
+        }
+        Long writtenAt = lastWriteMillis.get(userId);
+        return writtenAt == null || System.currentTimeMillis() - writtenAt > replicaLagMillis + readYourWritesMarginMillis;
+    }
+
+    /**
+     * Pin a user's reads to the primary, counted from the commit of the current transaction
+     */
+    public void recordWrite(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    lastWriteMillis.put(userId, System.currentTimeMillis());
+                }
+            });
+        } else {
+            lastWriteMillis.put(userId, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Pin the authenticated user of the current request, if any
+     */
+    public void recordCurrentUserWrite() {
+        recordWrite(currentUserId());
+    }
+
+    /**
+     * Latest health check result; also drops pins older than the current lag window
+     */
+    public void updateReplicaStatus(boolean available, long lagMillis) {
+        if (available != replicaAvailable) {
+            log.info("Read replica {} (lag {} ms)", available ? "available" : "unavailable", lagMillis);
+        }
+        replicaAvailable = available;
+        replicaLagMillis = lagMillis;
+
+        long cutoff = System.currentTimeMillis() - Math.max(lagMillis, maxLagSeconds * 1000) - readYourWritesMarginMillis;
+        lastWriteMillis.values().removeIf(writtenAt -> writtenAt < cutoff);
+    }
+
+    /**
+     * Stop reading from the replica until the next successful health check
+     */
+    public void markReplicaDown(String reason) {
+        if (replicaAvailable) {
+            log.warn("Read replica marked unavailable, reading from primary: {}", reason);
+        }
+        replicaAvailable = false;
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    public long getReplicaLagMillis() {
+        return replicaLagMillis;
+    }
+
+    private Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,276 @@
+package iuh.fit.cscore_be.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sandbox Directory Service
+ * Work directories for local code execution:
+ * - Kept under a RAM-backed location (/dev/shm) when it allows executing binaries,
+ *   otherwise under the system temp directory
+ * - A pool of pre-created directories is handed out and emptied on release instead of
+ *   being created and deleted for every run
+ * - Each server process owns a subdirectory named after its pid; a scheduled reaper
+ *   removes directories leaked by runs that never released them and by dead processes
+ */
+@Service
+@Slf4j
+public class SandboxDirectoryService {
+
+    private static final String RAM_ROOT = "/dev/shm";
+
+    @Value("${execution.sandbox.root:}")
+    private String configuredRoot;
+
+    @Value("${system.temp-dir:${java.io.tmpdir}}")
+    private String tempDir;
+
+    @Value("${execution.sandbox.pool-size:16}")
+    private int poolSize;
+
+    @Value("${execution.sandbox.max-lease-seconds:600}")
+    private long maxLeaseSeconds;
+
+    private Path processRoot;
+    private final Deque<Path> idle = new ConcurrentLinkedDeque<>();
+    private final Map<Path, Long> leases = new ConcurrentHashMap<>();
+    private final Set<Path> owned = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @PostConstruct
+    public void initializePool() throws IOException {
+        Path root = resolveRoot();
+        processRoot = root.resolve(String.valueOf(ProcessHandle.current().pid()));
+        deleteRecursively(processRoot);
+        Files.createDirectories(processRoot);
+
+        for (int i = 0; i < poolSize; i++) {
+            idle.push(createDirectory());
+        }
+        log.info("Sandbox directory pool ready under {} ({} directories)", processRoot, poolSize);
+        reapDeadProcesses();
+    }
+
+    @PreDestroy
+    public void destroyPool() {
+        deleteRecursively(processRoot);
+    }
+
+    /**
+     * Empty work directory, owned by the caller until {@link #release(Path)}
+     */
+    public Path acquire() throws IOException {
+        Path directory = idle.poll();
+        if (directory != null && !Files.isDirectory(directory)) {
+            owned.remove(directory);
+            directory = null;
+        }
+        if (directory == null) {
+            directory = createDirectory();
+        }
+        leases.put(directory, System.currentTimeMillis());
+        return directory;
+    }
+
+    /**
+     * Return a work directory; its contents are removed and it goes back to the pool
+     */
+    public void release(Path directory) {
+        if (directory == null || leases.remove(directory) == null) {
+            return;
+        }
+        if (idle.size() >= poolSize || !clearContents(directory)) {
+            discard(directory);
+            return;
+        }
+        idle.push(directory);
+    }
+
+    /**
+     * Copy the contents of a directory into another, keeping file attributes such as the executable bit
+     */
+    public void copyContents(Path source, Path target) throws IOException {
+        try (var paths = Files.walk(source)) {
+            for (Path path : paths.sorted().toList()) {
+                Path copy = target.resolve(source.relativize(path).toString());
+                if (path.equals(source)) {
+                    continue;
+                }
+                if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    Files.createDirectories(copy);
+                } else {
+                    Files.copy(path, copy, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace the contents of a leased directory with a copy of another one
+     */
+    public void restore(Path directory, Path source) throws IOException {
+        if (!clearContents(directory)) {
+            throw new IOException("Could not clear sandbox directory " + directory);
+        }
+        copyContents(source, directory);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("root", processRoot != null ? processRoot.toString() : null);
+        stats.put("idle", idle.size());
+        stats.put("leased", leases.size());
+        stats.put("poolSize", poolSize);
+        return stats;
+    }
+
+    // ========== REAPER ==========
+
+    /**
+     * Remove directories held longer than any compile + run can take, unknown directories
+     * in this process' root and the roots of processes that are no longer running
+     */
+    @Scheduled(fixedDelayString = "${execution.sandbox.reaper-interval-ms:60000}")
+    public void reapOrphans() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(maxLeaseSeconds);
+        leases.forEach((directory, acquiredAt) -> {
+            if (acquiredAt < cutoff && leases.remove(directory, acquiredAt)) {
+                log.warn("Reaping sandbox directory {} leased for more than {} s", directory, maxLeaseSeconds);
+                discard(directory);
+            }
+        });
+
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(processRoot)) {
+            for (Path child : children) {
+                if (!owned.contains(child)) {
+                    log.debug("Reaping unknown sandbox directory {}", child);
+                    deleteRecursively(child);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not scan sandbox root {}: {}", processRoot, e.getMessage());
+        }
+
+        reapDeadProcesses();
+    }
+
+    private void reapDeadProcesses() {
+        try (DirectoryStream<Path> roots = Files.newDirectoryStream(processRoot.getParent())) {
+            for (Path root : roots) {
+                String name = root.getFileName().toString();
+                if (root.equals(processRoot) || !name.chars().allMatch(Character::isDigit)) {
+                    continue;
+                }
+                boolean alive = ProcessHandle.of(Long.parseLong(name)).map(ProcessHandle::isAlive).orElse(false);
+                if (!alive) {
+                    log.info("Removing sandbox directories of stopped process {}", name);
+                    deleteRecursively(root);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Could not scan sandbox roots: {}", e.getMessage());
+        }
+    }
+
+    // ========== HELPERS ==========
+
+    private Path resolveRoot() {
+        if (configuredRoot != null && !configuredRoot.isBlank()) {
+            return Paths.get(configuredRoot);
+        }
+        Path ramRoot = Paths.get(RAM_ROOT, "cscore_sandbox");
+        if (allowsExecution(ramRoot)) {
+            return ramRoot;
+        }
+        log.info("{} is not usable for compiled programs, using the temp directory for sandboxes", RAM_ROOT);
+        return Paths.get(tempDir, "cscore_sandbox");
+    }
+
+    /**
+     * tmpfs is often mounted noexec (e.g. Docker's default /dev/shm), which breaks compiled programs
+     */
+    private boolean allowsExecution(Path root) {
+        if (!Files.isDirectory(Paths.get(RAM_ROOT))) {
+            return false;
+        }
+        Path probe = null;
+        try {
+            Files.createDirectories(root);
+            probe = Files.createTempFile(root, "probe", ".sh");
+            Files.writeString(probe, "#!/bin/sh\nexit 0\n");
+            Files.setPosixFilePermissions(probe, PosixFilePermissions.fromString("rwx------"));
+            Process process = new ProcessBuilder(probe.toString()).start();
+            return process.waitFor(5, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (Exception e) {
+            return false;
+        } finally {
+            if (probe != null) {
+                try {
+                    Files.deleteIfExists(probe);
+                } catch (IOException ignored) {
+                    // probe is reaped with the directory
+                }
+            }
+        }
+    }
+
+    private Path createDirectory() throws IOException {
+        Path directory = processRoot.resolve("run-" + sequence.incrementAndGet());
+        owned.add(directory);
+        return Files.createDirectories(directory);
+    }
+
+    private void discard(Path directory) {
+        deleteRecursively(directory);
+        owned.remove(directory);
+    }
+
+    /**
+     * Delete everything inside the directory (usually a source file and its build output)
+     */
+    private boolean clearContents(Path directory) {
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+            for (Path child : children) {
+                if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    deleteRecursively(child);
+                } else {
+                    Files.delete(child);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            log.debug("Could not clear sandbox directory {}: {}", directory, e.getMessage());
+            return false;
+        }
+    }
+
+    private void deleteRecursively(Path directory) {
+        if (directory == null || !Files.exists(directory, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        try (var paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.debug("Could not delete {}", path);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to delete directory: {}", directory, e);
+        }
+    }
+}
@@ -28,6 +28,7 @@ public class StudentService {
     private final AssignmentRepository assignmentRepository;
     private final SubmissionRepository submissionRepository;
     private final AutoGradingService autoGradingService;
+    private final SubmissionHistoryService submissionHistoryService;
     private final UserRepository userRepository;
     
     // Enhanced submit assignment method with multi-question support
@@ -116,6 +117,7 @@ public class StudentService {
         // Save submission first
         submission = submissionRepository.save(submission);
         log.info("Saved submission with ID: {}", submission.getId());
+        submissionHistoryService.append(submission);
 
             // Auto-grade if enabled
             if (assignment.getAutoGrade()) {
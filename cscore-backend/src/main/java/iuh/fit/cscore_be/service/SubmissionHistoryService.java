@@ -0,0 +1,262 @@
+package iuh.fit.cscore_be.service;
+
+import iuh.fit.cscore_be.dto.response.SubmissionDiffResponse;
+import iuh.fit.cscore_be.dto.response.SubmissionVersionResponse;
+import iuh.fit.cscore_be.entity.Submission;
+import iuh.fit.cscore_be.entity.SubmissionVersion;
+import iuh.fit.cscore_be.entity.User;
+import iuh.fit.cscore_be.exception.BadRequestException;
+import iuh.fit.cscore_be.exception.ResourceNotFoundException;
+import iuh.fit.cscore_be.repository.SubmissionRepository;
+import iuh.fit.cscore_be.repository.SubmissionVersionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Submission History Service
+ * Append-only code history per (assignment, student):
+ * - Every distinct code revision gets the next version number; resubmitting the same code adds nothing
+ * - Versions are stored as line deltas against the previous version, with a full snapshot
+ *   every few versions (or when the delta would be larger than the code)
+ * - Any version is rebuilt from its nearest snapshot, so only a bounded chain is read
+ * - Diffs rebuild just the two versions being compared
+ * - Versions are recorded after the submission commits, in their own transaction, so history
+ *   can never fail a submission; a version number taken concurrently is retried
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SubmissionHistoryService {
+
+    private static final int APPEND_ATTEMPTS = 3;
+
+    private final SubmissionVersionRepository submissionVersionRepository;
+    private final SubmissionRepository submissionRepository;
+    private final ContentBlobStore contentBlobStore;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${submission.history.snapshot-interval:10}")
+    private int snapshotInterval;
+
+    @Value("${submission.history.diff-context-lines:3}")
+    private int diffContextLines;
+
+    /**
+     * Record the current code of a saved submission as a new version, unless it is unchanged.
+     * Inside a transaction the version is written once it commits.
+     */
+    public void append(Submission submission) {
+        String code = submission.getCode();
+        if (code == null || submission.getId() == null) {
+            return;
+        }
+
+        Revision revision = new Revision(submission.getId(), submission.getAssignment().getId(),
+                submission.getStudent().getId(), code, submission.getProgrammingLanguage());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(revision);
+                }
+            });
+        } else {
+            record(revision);
+        }
+    }
+
+    private void record(Revision revision) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int attempt = 1; attempt <= APPEND_ATTEMPTS; attempt++) {
+            try {
+                transaction.executeWithoutResult(status -> appendVersion(revision));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // Another submit of the same student took the version number first: read the latest again
+                log.debug("Version number of assignment {} for student {} taken concurrently (attempt {})",
+                        revision.assignmentId(), revision.studentId(), attempt);
+            } catch (Exception e) {
+                log.error("Could not record code history of submission {}", revision.submissionId(), e);
+                return;
+            }
+        }
+        log.error("Could not record code history of submission {}: version number still taken after {} attempts",
+                revision.submissionId(), APPEND_ATTEMPTS);
+    }
+
+    private void appendVersion(Revision revision) {
+        Long assignmentId = revision.assignmentId();
+        Long studentId = revision.studentId();
+        String code = revision.code();
+        String codeHash = ContentBlobStore.hash(code);
+
+        // Resubmits that update the same submission row take their version numbers in turn
+        submissionRepository.lockByIdIn(List.of(revision.submissionId()));
+
+        Optional<SubmissionVersion> latest = submissionVersionRepository
+                .findTopByAssignmentIdAndStudentIdOrderByVersionNumberDesc(assignmentId, studentId);
+        if (latest.isPresent() && codeHash.equals(latest.get().getCodeHash())) {
+            return;
+        }
+
+        SubmissionVersion version = new SubmissionVersion();
+        version.setAssignmentId(assignmentId);
+        version.setStudentId(studentId);
+        version.setSubmissionId(revision.submissionId());
+        version.setCodeHash(codeHash);
+        version.setProgrammingLanguage(revision.programmingLanguage());
+        version.setCreatedAt(LocalDateTime.now());
+
+        List<String> lines = LineDelta.lines(code);
+        String payload = code;
+        boolean snapshot = true;
+        if (latest.isEmpty()) {
+            version.setVersionNumber(1);
+            version.setLinesAdded(lines.size());
+            version.setLinesRemoved(0);
+        } else {
+            SubmissionVersion previous = latest.get();
+            version.setVersionNumber(previous.getVersionNumber() + 1);
+
+            List<LineDelta.Edit> edits = LineDelta.diff(
+                    LineDelta.lines(reconstruct(assignmentId, studentId, previous.getVersionNumber())), lines);
+            version.setLinesAdded(LineDelta.count(edits, LineDelta.Kind.INSERT));
+            version.setLinesRemoved(LineDelta.count(edits, LineDelta.Kind.DELETE));
+
+            int lastSnapshot = submissionVersionRepository
+                    .findSnapshotVersionAtOrBefore(assignmentId, studentId, previous.getVersionNumber())
+                    .orElse(0);
+            String delta = LineDelta.encode(edits);
+            if (version.getVersionNumber() - lastSnapshot < snapshotInterval && delta.length() < code.length()) {
+                payload = delta;
+                snapshot = false;
+            }
+        }
+
+        version.setSnapshot(snapshot);
+        version.setPayloadHash(contentBlobStore.store(payload));
+        submissionVersionRepository.save(version);
+        log.debug("Recorded version {} of assignment {} for student {} ({})", version.getVersionNumber(),
+                assignmentId, studentId, snapshot ? "snapshot" : "delta");
+    }
+
+    @Transactional(readOnly = true)
+    public List<SubmissionVersionResponse> getHistory(Long submissionId, User teacher) {
+        Submission submission = findOwnedSubmission(submissionId, teacher);
+        return submissionVersionRepository.findByAssignmentIdAndStudentIdOrderByVersionNumberAsc(
+                        submission.getAssignment().getId(), submission.getStudent().getId()).stream()
+                .map(version -> toResponse(version, null))
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public SubmissionVersionResponse getVersion(Long submissionId, Integer versionNumber, User teacher) {
+        Submission submission = findOwnedSubmission(submissionId, teacher);
+        Long assignmentId = submission.getAssignment().getId();
+        Long studentId = submission.getStudent().getId();
+
+        SubmissionVersion version = findVersion(assignmentId, studentId, versionNumber);
+        return toResponse(version, reconstruct(assignmentId, studentId, versionNumber));
+    }
+
+    @Transactional(readOnly = true)
+    public SubmissionDiffResponse diff(Long submissionId, Integer fromVersion, Integer toVersion, User teacher) {
+        Submission submission = findOwnedSubmission(submissionId, teacher);
+        Long assignmentId = submission.getAssignment().getId();
+        Long studentId = submission.getStudent().getId();
+        findVersion(assignmentId, studentId, fromVersion);
+        findVersion(assignmentId, studentId, toVersion);
+
+        List<LineDelta.Edit> edits = LineDelta.diff(
+                LineDelta.lines(reconstruct(assignmentId, studentId, fromVersion)),
+                LineDelta.lines(reconstruct(assignmentId, studentId, toVersion)));
+
+        return SubmissionDiffResponse.builder()
+                .submissionId(submissionId)
+                .fromVersion(fromVersion)
+                .toVersion(toVersion)
+                .linesAdded(LineDelta.count(edits, LineDelta.Kind.INSERT))
+                .linesRemoved(LineDelta.count(edits, LineDelta.Kind.DELETE))
+                .unifiedDiff(LineDelta.unified(edits, "v" + fromVersion, "v" + toVersion, diffContextLines))
+                .build();
+    }
+
+    /**
+     * Code of one version: its nearest snapshot with the following deltas applied
+     */
+    private String reconstruct(Long assignmentId, Long studentId, Integer versionNumber) {
+        int snapshotVersion = submissionVersionRepository
+                .findSnapshotVersionAtOrBefore(assignmentId, studentId, versionNumber)
+                .orElseThrow(() -> new IllegalStateException("No snapshot before version " + versionNumber));
+        List<SubmissionVersion> chain = submissionVersionRepository
+                .findByAssignmentIdAndStudentIdAndVersionNumberBetweenOrderByVersionNumberAsc(
+                        assignmentId, studentId, snapshotVersion, versionNumber);
+        Map<String, String> payloads = contentBlobStore.loadAll(chain.stream()
+                .map(SubmissionVersion::getPayloadHash)
+                .collect(Collectors.toList()));
+
+        List<String> lines = LineDelta.lines(payloads.get(chain.get(0).getPayloadHash()));
+        for (SubmissionVersion version : chain.subList(1, chain.size())) {
+            lines = LineDelta.apply(lines, payloads.get(version.getPayloadHash()));
+        }
+
+        String code = LineDelta.join(lines);
+        SubmissionVersion target = chain.get(chain.size() - 1);
+        if (!target.getCodeHash().equals(ContentBlobStore.hash(code))) {
+            throw new IllegalStateException("Version " + versionNumber + " could not be rebuilt consistently");
+        }
+        return code;
+    }
+
+    private SubmissionVersion findVersion(Long assignmentId, Long studentId, Integer versionNumber) {
+        if (versionNumber == null || versionNumber < 1) {
+            throw new BadRequestException("Phiên bản không hợp lệ");
+        }
+        return submissionVersionRepository
+                .findByAssignmentIdAndStudentIdAndVersionNumberBetweenOrderByVersionNumberAsc(
+                        assignmentId, studentId, versionNumber, versionNumber).stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy phiên bản " + versionNumber));
+    }
+
+    private Submission findOwnedSubmission(Long submissionId, User teacher) {
+        Submission submission = submissionRepository.findById(submissionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy bài nộp"));
+        if (!submission.getAssignment().getCourse().getTeacher().getId().equals(teacher.getId())) {
+            throw new RuntimeException("Bạn không có quyền xem lịch sử bài nộp này");
+        }
+        return submission;
+    }
+
+    private SubmissionVersionResponse toResponse(SubmissionVersion version, String code) {
+        return SubmissionVersionResponse.builder()
+                .versionNumber(version.getVersionNumber())
+                .submissionId(version.getSubmissionId())
+                .programmingLanguage(version.getProgrammingLanguage())
+                .linesAdded(version.getLinesAdded())
+                .linesRemoved(version.getLinesRemoved())
+                .createdAt(version.getCreatedAt())
+                .code(code)
+                .build();
+    }
+
+    private record Revision(Long submissionId, Long assignmentId, Long studentId, String code,
+                            String programmingLanguage) {
+    }
+}
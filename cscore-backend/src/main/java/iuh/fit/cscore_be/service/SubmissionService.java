@@ -1,5 +1,6 @@
 package iuh.fit.cscore_be.service;
 
+import iuh.fit.cscore_be.dto.response.CursorPageResponse;
 import iuh.fit.cscore_be.dto.response.SubmissionResponse;
 import iuh.fit.cscore_be.entity.Assignment;
 import iuh.fit.cscore_be.entity.Submission;
@@ -7,14 +8,22 @@ import iuh.fit.cscore_be.entity.User;
 import iuh.fit.cscore_be.enums.SubmissionStatus;
 import iuh.fit.cscore_be.repository.AssignmentRepository;
 import iuh.fit.cscore_be.repository.SubmissionRepository;
+import iuh.fit.cscore_be.repository.TestCaseRepository;
+import iuh.fit.cscore_be.repository.TestResultRepository;
+import iuh.fit.cscore_be.repository.projection.SubmissionSummary;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,17 +33,34 @@ public class SubmissionService {
     
     private final SubmissionRepository submissionRepository;
     private final AssignmentRepository assignmentRepository;
+    private final TestResultRepository testResultRepository;
+    private final TestCaseRepository testCaseRepository;
     
     public List<SubmissionResponse> getSubmissionsByTeacher(User teacher) {
-        List<Submission> submissions = submissionRepository.findByTeacher(teacher);
-        return submissions.stream()
-            .map(this::convertToResponse)
-            .collect(Collectors.toList());
+        return convertSummaries(submissionRepository.findSummariesByTeacher(teacher));
     }
     
     public Page<SubmissionResponse> getSubmissionsByTeacher(User teacher, Pageable pageable) {
-        Page<Submission> submissions = submissionRepository.findByTeacher(teacher, pageable);
-        return submissions.map(this::convertToResponse);
+        Page<SubmissionSummary> submissions = submissionRepository.findSummariesByTeacher(teacher, pageable);
+        return new PageImpl<>(convertSummaries(submissions.getContent()), pageable, submissions.getTotalElements());
+    }
+    
+    /**
+     * Keyset page of a teacher's submissions, newest first; the total is only counted when asked for
+     */
+    public CursorPageResponse<SubmissionResponse> getSubmissionsByTeacher(User teacher, String cursor, int size, boolean includeTotal) {
+        int pageSize = KeysetCursor.clampPageSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Limit limit = Limit.of(pageSize + 1);
+        
+        List<SubmissionSummary> rows = after == null
+            ? submissionRepository.findSummariesByTeacherKeyset(teacher, limit)
+            : submissionRepository.findSummariesByTeacherKeysetAfter(teacher, after.time(), after.id(), limit);
+        Long totalCount = includeTotal ? submissionRepository.getStatsByTeacher(teacher).totalOrZero() : null;
+        
+        return KeysetCursor.page(rows, pageSize,
+            summary -> new KeysetCursor(summary.getSubmissionTime(), summary.getId()),
+            this::convertSummaries, totalCount);
     }
     
     public List<SubmissionResponse> getSubmissionsByAssignment(Long assignmentId, User teacher) {
@@ -45,10 +71,7 @@ public class SubmissionService {
             throw new RuntimeException("Bạn không có quyền xem bài nộp của bài tập này");
         }
         
-        List<Submission> submissions = submissionRepository.findByAssignment(assignment);
-        return submissions.stream()
-            .map(this::convertToResponse)
-            .collect(Collectors.toList());
+        return convertSummaries(submissionRepository.findSummariesByAssignment(assignment));
     }
     
     public Page<SubmissionResponse> getSubmissionsByAssignment(Long assignmentId, User teacher, Pageable pageable) {
@@ -59,15 +82,12 @@ public class SubmissionService {
             throw new RuntimeException("Bạn không có quyền xem bài nộp của bài tập này");
         }
         
-        Page<Submission> submissions = submissionRepository.findByAssignment(assignment, pageable);
-        return submissions.map(this::convertToResponse);
+        Page<SubmissionSummary> submissions = submissionRepository.findSummariesByAssignment(assignment, pageable);
+        return new PageImpl<>(convertSummaries(submissions.getContent()), pageable, submissions.getTotalElements());
     }
     
     public List<SubmissionResponse> getPendingSubmissions(User teacher) {
-        List<Submission> submissions = submissionRepository.findByTeacherAndStatus(teacher, SubmissionStatus.SUBMITTED);
-        return submissions.stream()
-            .map(this::convertToResponse)
-            .collect(Collectors.toList());
+        return convertSummaries(submissionRepository.findSummariesByTeacherAndStatus(teacher, SubmissionStatus.SUBMITTED));
     }
     
     public SubmissionResponse getSubmissionById(Long submissionId, User teacher) {
@@ -113,8 +133,8 @@ public class SubmissionService {
     }
     
     private SubmissionResponse convertToResponse(Submission submission) {
-        int totalTestCases = submission.getAssignment().getQuestions().stream()
-            .mapToInt(q -> q.getTestCases().size()).sum();
+        int totalTestCases = toCountMap(testCaseRepository.countByAssignmentIds(List.of(submission.getAssignment().getId())))
+            .getOrDefault(submission.getAssignment().getId(), 0L).intValue();
         int testCasesPassed = (int) submission.getTestResults().stream()
             .mapToLong(result -> result.getIsPassed() ? 1 : 0)
             .sum();
@@ -137,4 +157,46 @@ public class SubmissionService {
             totalTestCases
         );
     }
+    
+    /**
+     * List responses from summaries; test case counts come from two grouped queries for the whole list
+     */
+    private List<SubmissionResponse> convertSummaries(List<SubmissionSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return List.of();
+        }
+        
+        Set<Long> submissionIds = summaries.stream().map(SubmissionSummary::getId).collect(Collectors.toSet());
+        Set<Long> assignmentIds = summaries.stream().map(SubmissionSummary::getAssignmentId).collect(Collectors.toSet());
+        Map<Long, Long> passedBySubmission = toCountMap(testResultRepository.countPassedBySubmissionIds(submissionIds));
+        Map<Long, Long> testCasesByAssignment = toCountMap(testCaseRepository.countByAssignmentIds(assignmentIds));
+        
+        return summaries.stream()
+            .map(summary -> new SubmissionResponse(
+                summary.getId(),
+                summary.getAssignmentId(),
+                summary.getAssignmentTitle(),
+                summary.getStudentName(),
+                summary.getStudentCode(),
+                summary.getProgrammingLanguage(),
+                summary.getStatus(),
+                summary.getScore(),
+                summary.getExecutionTime(),
+                summary.getMemoryUsed(),
+                null,
+                summary.getSubmissionTime(),
+                summary.getGradedTime(),
+                passedBySubmission.getOrDefault(summary.getId(), 0L).intValue(),
+                testCasesByAssignment.getOrDefault(summary.getAssignmentId(), 0L).intValue()
+            ))
+            .collect(Collectors.toList());
+    }
+    
+    private Map<Long, Long> toCountMap(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
 }
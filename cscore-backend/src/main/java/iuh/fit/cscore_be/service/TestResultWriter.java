@@ -0,0 +1,139 @@
+package iuh.fit.cscore_be.service;
+
+import iuh.fit.cscore_be.dto.response.TestResultResponse;
+import iuh.fit.cscore_be.entity.Submission;
+import iuh.fit.cscore_be.entity.TestCase;
+import iuh.fit.cscore_be.entity.TestResult;
+import iuh.fit.cscore_be.repository.TestResultRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Test Result Writer
+ * Persists the test results of one or more submissions as JDBC batches in a single
+ * transaction instead of one insert and commit per row.
+ * TestResult ids come from the pooled {@link TestResult#ID_GENERATOR_TABLE} table, which
+ * is seeded above the highest existing id at startup so rows written under the former
+ * IDENTITY column are never reused.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TestResultWriter {
+
+    private final TestResultRepository testResultRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentBlobStore contentBlobStore;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @PostConstruct
+    public void seedIdGenerator() {
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM test_results", Long.class);
+            // Pooled ids are handed out below the stored value, so leave a whole block of headroom
+            long nextValue = (maxId != null ? maxId : 0L) + TestResult.ID_ALLOCATION_SIZE + 1;
+
+            int updated = jdbcTemplate.update(
+                    "UPDATE " + TestResult.ID_GENERATOR_TABLE + " SET next_val = ? WHERE sequence_name = ? AND next_val < ?",
+                    nextValue, TestResult.ID_GENERATOR_SEGMENT, nextValue);
+            Integer rows = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM " + TestResult.ID_GENERATOR_TABLE + " WHERE sequence_name = ?",
+                    Integer.class, TestResult.ID_GENERATOR_SEGMENT);
+            if (rows == null || rows == 0) {
+                jdbcTemplate.update("INSERT INTO " + TestResult.ID_GENERATOR_TABLE + " (sequence_name, next_val) VALUES (?, ?)",
+                        TestResult.ID_GENERATOR_SEGMENT, nextValue);
+                updated = 1;
+            }
+            if (updated > 0) {
+                log.info("Test result id generator seeded at {}", nextValue);
+            }
+        } catch (Exception e) {
+            log.warn("Could not seed test result id generator: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Unsaved entity for one test result, stamped with the test case versions
+     */
+    public TestResult toEntity(Submission submission, TestCase testCase, TestResultResponse testResult) {
+        TestResult entity = new TestResult();
+        entity.setSubmission(submission);
+        entity.setTestCase(testCase);
+        entity.setPassed(testResult.isPassed());
+        entity.setActualOutput(testResult.getActualOutput());
+        entity.setErrorMessage(testResult.getErrorMessage());
+        entity.setExecutionTime(testResult.getExecutionTime());
+        entity.setTestCaseVersion(testCase.getVersionOrDefault());
+        entity.setTestCaseExecutionVersion(testCase.getExecutionVersionOrDefault());
+        return entity;
+    }
+
+    /**
+     * Insert new results and update existing ones in one transaction, flushed in JDBC batches.
+     * Joins the caller's transaction when there is one; the persistence context is not cleared.
+     */
+    @Transactional
+    public void writeAll(Collection<TestResult> results) {
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+
+        // Outputs go to the blob store as one batch; the per-entity persist callbacks then find them stored
+        contentBlobStore.storeAll(results.stream().map(TestResult::getActualOutput).toList());
+        
+        int pending = 0;
+        for (TestResult result : results) {
+            if (result.getId() == null) {
+                entityManager.persist(result);
+            } else {
+                entityManager.merge(result);
+            }
+            if (++pending % batchSize == 0) {
+                entityManager.flush();
+            }
+        }
+        entityManager.flush();
+        log.debug("Wrote {} test results in one batch", results.size());
+    }
+
+    /**
+     * Replace the stored results of the given test cases of a submission with new ones, in one transaction
+     */
+    @Transactional
+    public void replace(Submission submission, Collection<TestCase> testCases, Collection<TestResult> results) {
+        List<TestResult> stale = new ArrayList<>();
+        for (TestCase testCase : testCases) {
+            stale.addAll(testResultRepository.findBySubmissionAndTestCase(submission, testCase));
+        }
+        if (!stale.isEmpty()) {
+            testResultRepository.deleteAllInBatch(stale);
+        }
+        writeAll(results);
+    }
+
+    /**
+     * Replace every stored result of a submission with new ones, in one transaction
+     */
+    @Transactional
+    public void replaceAll(Submission submission, Collection<TestResult> results) {
+        testResultRepository.deleteBySubmissionId(submission.getId());
+        entityManager.flush();
+        writeAll(results);
+    }
+}
@@ -2,12 +2,14 @@ package iuh.fit.cscore_be.service;
 
 import iuh.fit.cscore_be.dto.request.CreateUserRequest;
 import iuh.fit.cscore_be.dto.request.UpdateUserRequest;
+import iuh.fit.cscore_be.dto.response.CursorPageResponse;
 import iuh.fit.cscore_be.dto.response.MessageResponse;
 import iuh.fit.cscore_be.dto.response.UserResponse;
 import iuh.fit.cscore_be.entity.User;
 import iuh.fit.cscore_be.enums.Role;
 import iuh.fit.cscore_be.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -59,6 +61,23 @@ public class UserService {
         return users.map(this::convertToUserResponse);
     }
     
+    // Lấy users theo role với phân trang keyset (createdAt, id), không đếm tổng trừ khi được yêu cầu
+    public CursorPageResponse<UserResponse> getUsersByRole(Role role, String cursor, int size, boolean includeTotal) {
+        int pageSize = KeysetCursor.clampPageSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Limit limit = Limit.of(pageSize + 1);
+        
+        List<User> rows = after == null
+                ? userRepository.findByRoleOrderByCreatedAtDescIdDesc(role, limit)
+                : userRepository.findByRoleKeysetAfter(role, after.time(), after.id(), limit);
+        Long totalCount = includeTotal ? userRepository.countByRole(role) : null;
+        
+        return KeysetCursor.page(rows, pageSize,
+                user -> new KeysetCursor(user.getCreatedAt(), user.getId()),
+                users -> users.stream().map(this::convertToUserResponse).collect(Collectors.toList()),
+                totalCount);
+    }
+    
     // Lấy tất cả students
     public List<UserResponse> getAllStudents() {
         List<User> students = userRepository.findByRoleOrderByCreatedAtDesc(Role.STUDENT);
@@ -0,0 +1,112 @@
+-- Composite indexes for the hot repository query paths
+-- Tables are still created by Hibernate (ddl-auto=update); Flyway runs these migrations
+-- once the schema exists (see SchemaMigrationConfig). Indexes are declared here only,
+-- not on the entities, so Hibernate never creates a duplicate.
+-- Foreign key columns keep the single-column indexes InnoDB created for them.
+--
+-- Precondition: databases set up with the legacy scripts in migrations/ may already have
+-- some of these names (idx_submissions_status, idx_submissions_assignment_student,
+-- idx_users_teacher_id, idx_notifications_related_entity). Each index therefore goes
+-- through cscore_ensure_index, which checks information_schema first:
+-- - Missing: created
+-- - Same name and columns: left alone
+-- - Same name, other columns: rebuilt in one ALTER, so a foreign key using it keeps an index
+
+DROP PROCEDURE IF EXISTS cscore_ensure_index;
+
+DELIMITER //
+CREATE PROCEDURE cscore_ensure_index(IN p_table VARCHAR(64), IN p_index VARCHAR(64), IN p_columns VARCHAR(255))
+BEGIN
+    DECLARE existing VARCHAR(255);
+    SELECT GROUP_CONCAT(column_name ORDER BY seq_in_index SEPARATOR ',') INTO existing
+      FROM information_schema.statistics
+     WHERE table_schema = DATABASE() AND table_name = p_table AND index_name = p_index;
+    IF existing IS NULL THEN
+        SET @ddl = CONCAT('CREATE INDEX ', p_index, ' ON ', p_table, ' (', p_columns, ')');
+    ELSEIF existing <> REPLACE(p_columns, ' ', '') THEN
+        SET @ddl = CONCAT('ALTER TABLE ', p_table, ' DROP INDEX ', p_index, ', ADD INDEX ', p_index, ' (', p_columns, ')');
+    ELSE
+        SET @ddl = NULL;
+    END IF;
+    IF @ddl IS NOT NULL THEN
+        PREPARE ddl_statement FROM @ddl;
+        EXECUTE ddl_statement;
+        DEALLOCATE PREPARE ddl_statement;
+    END IF;
+END //
+DELIMITER ;
+
+-- Submissions
+-- findByAssignmentAndStudent, countByStudentAndAssignment, findByAssignmentIdAndStudentId (newest first)
+CALL cscore_ensure_index('submissions', 'idx_submissions_assignment_student', 'assignment_id, student_id, submission_time');
+-- countByAssignmentIdAndStatus, countByAssignmentAndStatusSubmitted/Graded
+CALL cscore_ensure_index('submissions', 'idx_submissions_assignment_status', 'assignment_id, status');
+-- findByStatus, findByStatusIn (grading queue and recovery)
+CALL cscore_ensure_index('submissions', 'idx_submissions_status', 'status, submission_time');
+-- findSummariesByStudent, findByStudentOrderBySubmissionTimeDesc
+CALL cscore_ensure_index('submissions', 'idx_submissions_student_time', 'student_id, submission_time');
+-- findRecentSummaries, countSubmissionsAfter, teacher keyset pages ordered by (submission_time, id)
+CALL cscore_ensure_index('submissions', 'idx_submissions_time_id', 'submission_time, id');
+
+-- Notifications
+-- countByUserAndIsReadFalse, findByUserAndIsReadFalseOrderByCreatedAtDesc, markAllAsRead
+CALL cscore_ensure_index('notifications', 'idx_notifications_user_read_created', 'user_id, is_read, created_at');
+-- findByUserOrderByCreatedAtDesc, filtered and keyset pages ordered by (created_at, id)
+CALL cscore_ensure_index('notifications', 'idx_notifications_user_created_id', 'user_id, created_at, id');
+-- deleteOldNotifications
+CALL cscore_ensure_index('notifications', 'idx_notifications_created', 'created_at');
+-- findByRelatedEntityIdAndRelatedEntityType
+CALL cscore_ensure_index('notifications', 'idx_notifications_related_entity', 'related_entity_id, related_entity_type');
+
+-- Enrollments
+-- findByStudentAndIsActiveTrue (student dashboard, course list)
+CALL cscore_ensure_index('enrollments', 'idx_enrollments_student_active', 'student_id, is_active');
+-- findByCourseAndIsActiveTrue, countByCourseAndIsActiveTrue, countEnrolledStudents
+CALL cscore_ensure_index('enrollments', 'idx_enrollments_course_active', 'course_id, is_active');
+
+-- Courses
+-- findByTeacherAndIsActiveTrue, findRecentCoursesByTeacher
+CALL cscore_ensure_index('courses', 'idx_courses_teacher_active', 'teacher_id, is_active, created_at');
+-- findByIsActiveTrueOrderByCreatedAtDesc, findAllActiveCourses
+CALL cscore_ensure_index('courses', 'idx_courses_active_created', 'is_active, created_at');
+
+-- Assignments
+-- findByCourseAndIsActiveTrue(OrderByCreatedAtDesc), findByCourseInAndIsActiveTrue, countByCourseInAndIsActiveTrue
+CALL cscore_ensure_index('assignments', 'idx_assignments_course_active', 'course_id, is_active, created_at');
+-- findOverdueAssignments
+CALL cscore_ensure_index('assignments', 'idx_assignments_active_end', 'is_active, end_time');
+
+-- Users
+-- findByRole pages and keyset pages ordered by (created_at, id), countByRole
+CALL cscore_ensure_index('users', 'idx_users_role_created', 'role, created_at, id');
+-- findByIsActiveTrueOrderByCreatedAtDesc, countByIsActive
+CALL cscore_ensure_index('users', 'idx_users_active_created', 'is_active, created_at');
+-- findByStudentId, existsByStudentId, existsByTeacherId
+CALL cscore_ensure_index('users', 'idx_users_student_id', 'student_id');
+CALL cscore_ensure_index('users', 'idx_users_teacher_id', 'teacher_id');
+
+-- Course content
+-- findByAssignmentOrderByOrderIndexAsc, countByAssignmentIds
+CALL cscore_ensure_index('questions', 'idx_questions_assignment_order', 'assignment_id, order_index');
+-- findByQuestionAndIsHiddenFalse/True
+CALL cscore_ensure_index('test_cases', 'idx_test_cases_question_hidden', 'question_id, is_hidden');
+-- findByQuestionOrderByOptionOrderAsc
+CALL cscore_ensure_index('question_options', 'idx_question_options_question_order', 'question_id, option_order');
+-- findByCourseOrderByOrderIndexAsc
+CALL cscore_ensure_index('sections', 'idx_sections_course_order', 'course_id, order_index');
+
+-- Grading results
+-- findBySubmissionAndQuestion, findBySubmissionId, countCompletedBySubmissionId
+CALL cscore_ensure_index('question_submissions', 'idx_question_submissions_submission_question', 'submission_id, question_id');
+-- findByQuestionAndStudent, findGradedByStudentAndQuestions
+CALL cscore_ensure_index('question_submissions', 'idx_question_submissions_question_student', 'question_id, student_id');
+-- findBySubmissionAndTestCase, countPassedBySubmissionIds
+CALL cscore_ensure_index('test_results', 'idx_test_results_submission_case', 'submission_id, test_case_id, is_passed');
+
+-- Regrade jobs
+-- existsByAssignmentIdAndStatusIn, findByAssignmentIdOrderByCreatedAtDesc
+CALL cscore_ensure_index('regrade_jobs', 'idx_regrade_jobs_assignment_status', 'assignment_id, status');
+-- findByStatusIn (recovery at startup)
+CALL cscore_ensure_index('regrade_jobs', 'idx_regrade_jobs_status', 'status');
+
+DROP PROCEDURE cscore_ensure_index;
@@ -0,0 +1,8 @@
+-- Indexes for ContentBlobCollector
+-- The collector checks every hash column that references content_blobs with NOT EXISTS;
+-- without these each check scans the whole table. Blobs themselves are paged by primary key.
+
+CREATE INDEX idx_submissions_code_hash ON submissions (code_hash);
+CREATE INDEX idx_submissions_grading_details_hash ON submissions (grading_details_hash);
+CREATE INDEX idx_test_results_actual_output_hash ON test_results (actual_output_hash);
+CREATE INDEX idx_submission_versions_payload_hash ON submission_versions (payload_hash);
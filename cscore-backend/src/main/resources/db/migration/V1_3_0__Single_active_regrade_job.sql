@@ -0,0 +1,22 @@
+-- At most one active (QUEUED, RUNNING or PAUSED) regrade job per assignment
+-- RegradeJobService locks the assignment row before checking for an active job; this
+-- unique index enforces the same rule in the database. active_assignment_id is the
+-- assignment for an active job and NULL otherwise, and a unique index allows many NULLs,
+-- so finished jobs and batch jobs (no assignment) are not constrained.
+-- The column is not mapped on RegradeJob; Hibernate never writes it.
+
+-- Precondition: jobs created concurrently before this rule may have left several active
+-- jobs for one assignment. All but the oldest are cancelled, otherwise the index cannot be built.
+UPDATE regrade_jobs j
+  JOIN (SELECT assignment_id, MIN(id) AS kept_id
+          FROM regrade_jobs
+         WHERE assignment_id IS NOT NULL AND status IN ('QUEUED', 'RUNNING', 'PAUSED')
+         GROUP BY assignment_id
+        HAVING COUNT(*) > 1) duplicates ON duplicates.assignment_id = j.assignment_id
+   SET j.status = 'CANCELLED', j.finished_at = NOW()
+ WHERE j.status IN ('QUEUED', 'RUNNING', 'PAUSED') AND j.id <> duplicates.kept_id;
+
+ALTER TABLE regrade_jobs
+    ADD COLUMN active_assignment_id BIGINT
+        GENERATED ALWAYS AS (CASE WHEN status IN ('QUEUED', 'RUNNING', 'PAUSED') THEN assignment_id END) STORED,
+    ADD UNIQUE INDEX uk_regrade_jobs_active_assignment (active_assignment_id);
@@ -0,0 +1,145 @@
+package iuh.fit.cscore_be.repository;
+
+import iuh.fit.cscore_be.entity.Assignment;
+import iuh.fit.cscore_be.entity.Course;
+import iuh.fit.cscore_be.entity.Question;
+import iuh.fit.cscore_be.entity.QuestionOption;
+import iuh.fit.cscore_be.entity.TestCase;
+import iuh.fit.cscore_be.entity.User;
+import iuh.fit.cscore_be.enums.AssignmentType;
+import iuh.fit.cscore_be.enums.ProgrammingLanguage;
+import iuh.fit.cscore_be.enums.QuestionType;
+import iuh.fit.cscore_be.enums.Role;
+import iuh.fit.cscore_be.service.AssignmentContentLoader;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Statement counts of the assignment fetch plans (no N+1)
+ * - Counted with Hibernate Statistics after clearing the persistence context and second-level cache
+ * - The count must not grow with the number of assignments, questions, test cases or options
+ */
+@Import(AssignmentContentLoader.class)
+class AssignmentGraphQueryCountTest extends MySqlRepositoryTest {
+
+    private static final int ASSIGNMENTS = 5;
+    private static final int QUESTIONS = 4;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Autowired
+    private AssignmentContentLoader assignmentContentLoader;
+
+    private Course course;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User teacher = new User();
+        teacher.setUsername("teacher");
+        teacher.setEmail("teacher@cscore.test");
+        teacher.setPassword("password");
+        teacher.setFullName("Giảng viên");
+        teacher.setRole(Role.TEACHER);
+        entityManager.persist(teacher);
+
+        course = new Course();
+        course.setName("Lập trình Java");
+        course.setCode("JAVA101");
+        course.setTeacher(teacher);
+        entityManager.persist(course);
+
+        for (int a = 0; a < ASSIGNMENTS; a++) {
+            Assignment assignment = new Assignment();
+            assignment.setTitle("Bài tập " + a);
+            assignment.setType(AssignmentType.EXERCISE);
+            assignment.setCourse(course);
+            assignment.setProgrammingLanguages(new HashSet<>(Set.of(ProgrammingLanguage.JAVA)));
+            entityManager.persist(assignment);
+
+            for (int q = 0; q < QUESTIONS; q++) {
+                Question question = new Question();
+                question.setTitle("Câu " + q);
+                question.setQuestionType(QuestionType.PROGRAMMING);
+                question.setPoints(10.0);
+                question.setOrderIndex(q);
+                question.setAssignment(assignment);
+                entityManager.persist(question);
+
+                for (int t = 0; t < 3; t++) {
+                    TestCase testCase = new TestCase();
+                    testCase.setQuestion(question);
+                    testCase.setInput(String.valueOf(t));
+                    testCase.setExpectedOutput(String.valueOf(t));
+                    entityManager.persist(testCase);
+
+                    QuestionOption option = new QuestionOption();
+                    option.setQuestion(question);
+                    option.setOptionText("Lựa chọn " + t);
+                    option.setOptionOrder(t);
+                    entityManager.persist(option);
+                }
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        entityManagerFactory.getCache().evictAll();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    void loadsSingleAssignmentContentInOneStatement() {
+        Long id = assignmentRepository.findByCourseAndIsActiveTrue(course).get(0).getId();
+        entityManager.clear();
+        statistics.clear();
+
+        Assignment assignment = assignmentRepository.findWithContentById(id).orElseThrow();
+        assignment.getCourse().getTeacher().getFullName();
+        assertEquals(QUESTIONS, assignment.getQuestions().size());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void loadsContentOfManyAssignmentsInFixedStatements() {
+        List<Assignment> assignments = assignmentRepository.findByCourseAndIsActiveTrue(course);
+        assignmentContentLoader.loadQuestionContent(assignments, true);
+
+        List<Object> touched = new ArrayList<>();
+        for (Assignment assignment : assignments) {
+            touched.addAll(assignment.getProgrammingLanguages());
+            for (Question question : assignment.getQuestions()) {
+                touched.addAll(question.getTestCases());
+                touched.addAll(question.getQuestionOptions());
+            }
+        }
+
+        assertEquals(ASSIGNMENTS * (1 + QUESTIONS * 6), touched.size());
+        // Assignments, then questions, programming languages, test cases and options: one query each
+        assertEquals(5, statistics.getPrepareStatementCount());
+    }
+}
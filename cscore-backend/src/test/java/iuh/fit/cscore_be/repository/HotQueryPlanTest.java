@@ -0,0 +1,365 @@
+package iuh.fit.cscore_be.repository;
+
+import iuh.fit.cscore_be.config.JpaAuditingConfig;
+import iuh.fit.cscore_be.entity.Assignment;
+import iuh.fit.cscore_be.entity.Course;
+import iuh.fit.cscore_be.entity.Enrollment;
+import iuh.fit.cscore_be.entity.Notification;
+import iuh.fit.cscore_be.entity.Question;
+import iuh.fit.cscore_be.entity.QuestionOption;
+import iuh.fit.cscore_be.entity.QuestionSubmission;
+import iuh.fit.cscore_be.entity.RegradeJob;
+import iuh.fit.cscore_be.entity.Section;
+import iuh.fit.cscore_be.entity.Submission;
+import iuh.fit.cscore_be.entity.TestCase;
+import iuh.fit.cscore_be.entity.TestResult;
+import iuh.fit.cscore_be.entity.User;
+import iuh.fit.cscore_be.enums.AssignmentType;
+import iuh.fit.cscore_be.enums.NotificationCategory;
+import iuh.fit.cscore_be.enums.NotificationType;
+import iuh.fit.cscore_be.enums.QuestionType;
+import iuh.fit.cscore_be.enums.RegradeJobStatus;
+import iuh.fit.cscore_be.enums.Role;
+import iuh.fit.cscore_be.enums.SubmissionStatus;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query plans of the hot repository queries on the migrated schema
+ * - Every filtered SELECT the repositories issue is recorded with its parameters
+ * - Each one is then run through EXPLAIN; a table read with type=ALL and no possible key fails the test
+ */
+@Import({JpaAuditingConfig.class, HotQueryPlanTest.QueryRecorderConfig.class})
+class HotQueryPlanTest extends MySqlRepositoryTest {
+
+    private static final Set<String> IGNORED_TABLES = Set.of("flyway_schema_history", TestResult.ID_GENERATOR_TABLE);
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 10);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private QueryRecorder queryRecorder;
+
+    @Autowired private SubmissionRepository submissionRepository;
+    @Autowired private NotificationRepository notificationRepository;
+    @Autowired private EnrollmentRepository enrollmentRepository;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private AssignmentRepository assignmentRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private QuestionRepository questionRepository;
+    @Autowired private TestCaseRepository testCaseRepository;
+    @Autowired private QuestionOptionRepository questionOptionRepository;
+    @Autowired private SectionRepository sectionRepository;
+    @Autowired private QuestionSubmissionRepository questionSubmissionRepository;
+    @Autowired private TestResultRepository testResultRepository;
+    @Autowired private RegradeJobRepository regradeJobRepository;
+
+    private User teacher;
+    private User student;
+    private Course course;
+    private Assignment assignment;
+    private Question question;
+    private TestCase testCase;
+    private Submission submission;
+
+    @BeforeEach
+    void setUp() {
+        teacher = new User("teacher", "teacher@cscore.test", "password", "Giảng viên", Role.TEACHER);
+        teacher.setTeacherId("GV001");
+        entityManager.persist(teacher);
+
+        student = new User("student", "student@cscore.test", "password", "Sinh viên", Role.STUDENT);
+        student.setStudentId("SV001");
+        entityManager.persist(student);
+
+        course = new Course("Lập trình Java", "JAVA101", null, teacher);
+        entityManager.persist(course);
+        entityManager.persist(new Enrollment(student, course));
+
+        Section section = new Section();
+        section.setName("Chương 1");
+        section.setCourse(course);
+        entityManager.persist(section);
+
+        assignment = new Assignment();
+        assignment.setTitle("Bài tập 1");
+        assignment.setType(AssignmentType.EXERCISE);
+        assignment.setCourse(course);
+        assignment.setEndTime(LocalDateTime.now().plusDays(7));
+        entityManager.persist(assignment);
+
+        question = new Question();
+        question.setTitle("Câu 1");
+        question.setQuestionType(QuestionType.PROGRAMMING);
+        question.setPoints(10.0);
+        question.setOrderIndex(0);
+        question.setAssignment(assignment);
+        entityManager.persist(question);
+
+        testCase = new TestCase();
+        testCase.setQuestion(question);
+        testCase.setInput("1");
+        testCase.setExpectedOutput("1");
+        entityManager.persist(testCase);
+
+        QuestionOption option = new QuestionOption();
+        option.setQuestion(question);
+        option.setOptionText("Lựa chọn 1");
+        option.setOptionOrder(0);
+        entityManager.persist(option);
+
+        submission = new Submission();
+        submission.setAssignment(assignment);
+        submission.setStudent(student);
+        entityManager.persist(submission);
+
+        QuestionSubmission questionSubmission = new QuestionSubmission();
+        questionSubmission.setSubmission(submission);
+        questionSubmission.setQuestion(question);
+        questionSubmission.setStudent(student);
+        questionSubmission.setStatus(SubmissionStatus.GRADED);
+        entityManager.persist(questionSubmission);
+
+        TestResult testResult = new TestResult();
+        testResult.setTestCase(testCase);
+        testResult.setSubmission(submission);
+        testResult.setQuestionSubmission(questionSubmission);
+        testResult.setIsPassed(true);
+        entityManager.persist(testResult);
+
+        Notification notification = new Notification("Đã chấm điểm", "Bài nộp đã được chấm",
+                NotificationType.INFO, NotificationCategory.GRADING, student);
+        notification.setRelatedEntityId(submission.getId());
+        notification.setRelatedEntityType("SUBMISSION");
+        entityManager.persist(notification);
+
+        RegradeJob regradeJob = new RegradeJob();
+        regradeJob.setAssignment(assignment);
+        regradeJob.setRequestedBy(teacher);
+        entityManager.persist(regradeJob);
+
+        entityManager.flush();
+        entityManager.clear();
+        entityManagerFactory.getCache().evictAll();
+        queryRecorder.clear();
+    }
+
+    @Test
+    void hotQueriesUseIndexes() throws SQLException {
+        Long assignmentId = assignment.getId();
+        Long submissionId = submission.getId();
+
+        submissionRepository.findByAssignmentAndStudent(assignment, student);
+        submissionRepository.countByStudentAndAssignment(student, assignment);
+        submissionRepository.findByAssignmentIdAndStudentId(assignmentId, student.getId(), FIRST_PAGE);
+        submissionRepository.countByAssignmentIdAndStatus(assignmentId, SubmissionStatus.SUBMITTED);
+        submissionRepository.findByStatusIn(List.of(SubmissionStatus.SUBMITTED, SubmissionStatus.GRADING));
+        submissionRepository.findSummariesByStudent(student, FIRST_PAGE);
+        submissionRepository.findSummariesByTeacherKeyset(teacher, Limit.of(10));
+        submissionRepository.countSubmissionsAfter(LocalDateTime.now().minusDays(1));
+        submissionRepository.findIdsByAssignmentId(assignmentId);
+
+        notificationRepository.countByUserAndIsReadFalse(student);
+        notificationRepository.findByUserAndIsReadFalseOrderByCreatedAtDesc(student, FIRST_PAGE);
+        notificationRepository.findByUserOrderByCreatedAtDesc(student, FIRST_PAGE);
+        notificationRepository.findByRelatedEntityIdAndRelatedEntityType(submissionId, "SUBMISSION");
+
+        enrollmentRepository.findByStudentAndIsActiveTrue(student);
+        enrollmentRepository.countByCourseAndIsActiveTrue(course);
+        courseRepository.findByTeacherAndIsActiveTrue(teacher);
+        courseRepository.findRecentCoursesByTeacher(teacher);
+        courseRepository.countEnrolledStudents(course.getId());
+
+        assignmentRepository.findByCourseAndIsActiveTrue(course);
+        assignmentRepository.countByCourseInAndIsActiveTrue(List.of(course));
+        assignmentRepository.findOverdueAssignments(LocalDateTime.now());
+
+        userRepository.findByRole(Role.STUDENT, FIRST_PAGE);
+        userRepository.countByRole(Role.STUDENT);
+        userRepository.findByStudentId("SV001");
+        userRepository.existsByTeacherId("GV001");
+
+        questionRepository.findByAssignmentOrderByOrderIndexAsc(assignment);
+        questionRepository.countByAssignmentIds(List.of(assignmentId));
+        testCaseRepository.findByQuestionAndIsHiddenFalse(question);
+        questionOptionRepository.findByQuestionOrderByOptionOrderAsc(question);
+        sectionRepository.findByCourseOrderByOrderIndexAsc(course);
+
+        questionSubmissionRepository.findBySubmissionAndQuestion(submission, question);
+        questionSubmissionRepository.findBySubmissionId(submissionId);
+        questionSubmissionRepository.countCompletedBySubmissionId(submissionId);
+        questionSubmissionRepository.findByQuestionAndStudent(question, student);
+        testResultRepository.findBySubmissionAndTestCase(submission, testCase);
+        testResultRepository.countPassedBySubmissionIds(List.of(submissionId));
+
+        regradeJobRepository.existsByAssignmentIdAndStatusIn(assignmentId,
+                List.of(RegradeJobStatus.QUEUED, RegradeJobStatus.RUNNING));
+        regradeJobRepository.findByAssignmentIdOrderByCreatedAtDesc(assignmentId);
+
+        Map<String, Map<Integer, Object>> queries = queryRecorder.recorded();
+        assertFalse(queries.isEmpty(), "No queries were recorded");
+
+        List<String> fullScans = new ArrayList<>();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        for (Map.Entry<String, Map<Integer, Object>> query : queries.entrySet()) {
+            fullScans.addAll(explain(connection, query.getKey(), query.getValue()));
+        }
+        assertTrue(fullScans.isEmpty(), () -> "Full table scans without a usable index:\n" + String.join("\n", fullScans));
+    }
+
+    private List<String> explain(Connection connection, String sql, Map<Integer, Object> parameters) throws SQLException {
+        List<String> fullScans = new ArrayList<>();
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+                explain.setObject(parameter.getKey(), parameter.getValue());
+            }
+            try (ResultSet plan = explain.executeQuery()) {
+                while (plan.next()) {
+                    String table = plan.getString("table");
+                    if (table == null || table.startsWith("<") || IGNORED_TABLES.contains(table.toLowerCase(Locale.ROOT))) {
+                        continue;
+                    }
+                    if ("ALL".equals(plan.getString("type")) && plan.getString("possible_keys") == null) {
+                        fullScans.add(table + ": " + sql);
+                    }
+                }
+            }
+        }
+        return fullScans;
+    }
+
+    /**
+     * Records the filtered SELECTs run through the data source, with the parameters of their first execution
+     */
+    static final class QueryRecorder {
+
+        private final Map<String, Map<Integer, Object>> recorded = new LinkedHashMap<>();
+
+        synchronized void clear() {
+            recorded.clear();
+        }
+
+        synchronized Map<String, Map<Integer, Object>> recorded() {
+            return new LinkedHashMap<>(recorded);
+        }
+
+        private synchronized void record(String sql, Map<Integer, Object> parameters) {
+            recorded.putIfAbsent(sql, new TreeMap<>(parameters));
+        }
+
+        DataSource wrap(DataSource target) {
+            return proxy(DataSource.class, target, (method, args, result) ->
+                    result instanceof Connection connection ? wrap(connection) : result);
+        }
+
+        private Connection wrap(Connection target) {
+            return proxy(Connection.class, target, (method, args, result) -> {
+                if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")
+                        && args[0] instanceof String sql && isFilteredSelect(sql)) {
+                    return wrap(statement, sql);
+                }
+                return result;
+            });
+        }
+
+        private PreparedStatement wrap(PreparedStatement target, String sql) {
+            Map<Integer, Object> parameters = new TreeMap<>();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                            parameters.put(index, name.equals("setNull") ? null : args[1]);
+                        } else if (name.equals("clearParameters")) {
+                            parameters.clear();
+                        } else if (name.equals("executeQuery") && (args == null || args.length == 0)) {
+                            record(sql, parameters);
+                        }
+                        return invoke(target, method, args);
+                    });
+        }
+
+        private static boolean isFilteredSelect(String sql) {
+            String normalized = sql.trim().toLowerCase(Locale.ROOT);
+            return normalized.startsWith("select") && normalized.contains(" where ");
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, ResultWrapper wrapper) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> wrapper.wrap(method, args, invoke(target, method, args)));
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @FunctionalInterface
+        private interface ResultWrapper {
+            Object wrap(Method method, Object[] args, Object result);
+        }
+    }
+
+    @TestConfiguration
+    static class QueryRecorderConfig {
+
+        @Bean
+        static QueryRecorder queryRecorder() {
+            return new QueryRecorder();
+        }
+
+        @Bean
+        static BeanPostProcessor queryRecorderPostProcessor(QueryRecorder queryRecorder) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !Proxy.isProxyClass(bean.getClass())
+                            ? queryRecorder.wrap(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+}
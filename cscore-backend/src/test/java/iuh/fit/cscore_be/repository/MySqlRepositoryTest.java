@@ -0,0 +1,37 @@
+package iuh.fit.cscore_be.repository;
+
+import iuh.fit.cscore_be.config.SchemaMigrationConfig;
+import iuh.fit.cscore_be.entity.ContentBlobListener;
+import iuh.fit.cscore_be.service.ContentBlobStore;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Base for repository tests against a real MySQL (Testcontainers)
+ * - Schema from Hibernate plus the Flyway migrations, in the same order as in production
+ * - The content blob store and its entity listener, which submissions and test results need
+ * - One container for the whole run, so cached Spring contexts keep a live database;
+ *   every test rolls back its own data
+ * - Skipped, not failed, where Docker is not available; the container is only started once
+ *   a test class is known to run, so loading these classes never needs Docker
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SchemaMigrationConfig.class, ContentBlobStore.class, ContentBlobListener.class})
+@Testcontainers(disabledWithoutDocker = true)
+abstract class MySqlRepositoryTest {
+
+    @ServiceConnection
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    // Not @Container: that would stop the container after each class while cached contexts still use it
+    @BeforeAll
+    static void startDatabase() {
+        MYSQL.start();
+    }
+}
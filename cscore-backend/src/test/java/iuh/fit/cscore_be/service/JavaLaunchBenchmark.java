@@ -0,0 +1,130 @@
+package iuh.fit.cscore_be.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of student JVM launches with and without C1-only compilation (JavaLaunchService)
+ * - "startup": reads a number and prints it, the typical short test case
+ * - "loop": a few hundred milliseconds of arithmetic, where C2 pays off
+ * - Each invocation is a whole process: launch, run, exit
+ * - Run from the IDE or with the test classpath: java -cp ... iuh.fit.cscore_be.service.JavaLaunchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 15)
+@Fork(1)
+public class JavaLaunchBenchmark {
+
+    private static final String STARTUP_PROGRAM = """
+            import java.util.Scanner;
+
+            public class Solution {
+                public static void main(String[] args) {
+                    Scanner scanner = new Scanner(System.in);
+                    int x = scanner.nextInt();
+                    System.out.println(x * x);
+                }
+            }
+            """;
+
+    private static final String LOOP_PROGRAM = """
+            public class Solution {
+                public static void main(String[] args) {
+                    long sum = 0;
+                    for (int i = 0; i < 400_000_000; i++) {
+                        sum += (i % 7) * (i % 13) ^ (sum >>> 3);
+                    }
+                    System.out.println(sum);
+                }
+            }
+            """;
+
+    @Param({"startup", "loop"})
+    private String program;
+
+    @Param({"-XX:+UseSerialGC", "-XX:+UseSerialGC -XX:TieredStopAtLevel=1"})
+    private String options;
+
+    private Path programDir;
+    private List<String> command;
+
+    @Setup(Level.Trial)
+    public void compile() throws Exception {
+        programDir = Files.createTempDirectory("java_launch_bench");
+        Path source = programDir.resolve("Solution.java");
+        Files.writeString(source, program.equals("loop") ? LOOP_PROGRAM : STARTUP_PROGRAM);
+        run(List.of(javaTool("javac"), source.toString()));
+
+        command = new ArrayList<>();
+        command.add(javaTool("java"));
+        command.addAll(Arrays.asList(options.split("\\s+")));
+        command.addAll(List.of("-cp", programDir.toString(), "Solution"));
+    }
+
+    @Benchmark
+    public int launch() throws Exception {
+        return run(command);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        try (var paths = Files.walk(programDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private int run(List<String> command) throws Exception {
+        Process process = new ProcessBuilder(command)
+                .directory(programDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try (var stdin = process.getOutputStream()) {
+            stdin.write("7\n".getBytes());
+        }
+        if (!process.waitFor(60, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException(String.join(" ", command) + " timed out");
+        }
+        if (process.exitValue() != 0) {
+            throw new IllegalStateException(String.join(" ", command) + " exited with " + process.exitValue());
+        }
+        return process.exitValue();
+    }
+
+    private static String javaTool(String name) {
+        return Path.of(System.getProperty("java.home"), "bin", name).toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JavaLaunchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
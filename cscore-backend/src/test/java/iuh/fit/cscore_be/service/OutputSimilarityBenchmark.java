@@ -0,0 +1,82 @@
+package iuh.fit.cscore_be.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the partial-credit similarity: full matrix (before) vs bounded distance (now)
+ * - Near-equal outputs, as produced by an almost correct program, and unrelated outputs
+ * - Run from the IDE or with the test classpath: java -cp ... iuh.fit.cscore_be.service.OutputSimilarityBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputSimilarityBenchmark {
+
+    private static final double THRESHOLD = 0.7;
+
+    @Param({"40", "1000", "10000"})
+    private int length;
+
+    @Param({"true", "false"})
+    private boolean nearEqual;
+
+    private final OutputSimilarityService service = new OutputSimilarityService();
+    private String expected;
+    private String actual;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42L);
+        expected = randomOutput(random, length);
+        if (nearEqual) {
+            StringBuilder builder = new StringBuilder(expected);
+            for (int i = 0; i < Math.max(1, length / 50); i++) {
+                builder.setCharAt(random.nextInt(length), (char) ('0' + random.nextInt(10)));
+            }
+            actual = builder.toString();
+        } else {
+            actual = randomOutput(random, length);
+        }
+    }
+
+    @Benchmark
+    public double fullMatrix() {
+        return FullMatrixEditDistance.similarityAbove(expected, actual, THRESHOLD);
+    }
+
+    @Benchmark
+    public double bounded() {
+        return service.similarityAbove(expected, actual, THRESHOLD);
+    }
+
+    private static String randomOutput(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(i % 12 == 11 ? '\n' : (char) ('0' + random.nextInt(10)));
+        }
+        return builder.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OutputSimilarityBenchmark.class.getSimpleName()).build()).run();
+    }
+}
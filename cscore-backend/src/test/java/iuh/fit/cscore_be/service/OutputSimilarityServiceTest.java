@@ -0,0 +1,68 @@
+package iuh.fit.cscore_be.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Equivalence of the bounded edit distance with the full-matrix reference
+ * - 200k seeded pairs: random short outputs and mutated near-equal outputs
+ * - About one pair in ten is longer than 64 characters, so the banded path runs as well
+ */
+class OutputSimilarityServiceTest {
+
+    private static final int PAIRS = 200_000;
+    private static final double THRESHOLD = 0.7;
+    private static final String ALPHABET = "ab01 \n";
+
+    private final OutputSimilarityService service = new OutputSimilarityService();
+
+    @Test
+    void boundedDistanceMatchesFullMatrix() {
+        Random random = new Random(20240601L);
+        for (int i = 0; i < PAIRS; i++) {
+            String s1 = randomOutput(random, i % 10 == 0 ? 65 + random.nextInt(120) : random.nextInt(40));
+            String s2 = random.nextBoolean() ? mutate(random, s1) : randomOutput(random, random.nextInt(Math.max(1, s1.length() + 8)));
+
+            int expected = FullMatrixEditDistance.distance(s1, s2);
+            int maxDistance = random.nextInt(Math.max(s1.length(), s2.length()) + 2);
+            assertEquals(Math.min(expected, maxDistance + 1), service.boundedEditDistance(s1, s2, maxDistance),
+                    () -> "distance of \"" + s1 + "\" and \"" + s2 + "\" bounded by " + maxDistance);
+            assertEquals(FullMatrixEditDistance.similarityAbove(s1, s2, THRESHOLD), service.similarityAbove(s1, s2, THRESHOLD),
+                    () -> "similarity of \"" + s1 + "\" and \"" + s2 + "\"");
+        }
+    }
+
+    private static String randomOutput(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+    private static String mutate(Random random, String s) {
+        StringBuilder builder = new StringBuilder(s);
+        int edits = random.nextInt(Math.max(1, s.length() / 4) + 1);
+        for (int i = 0; i < edits; i++) {
+            int position = builder.length() == 0 ? 0 : random.nextInt(builder.length());
+            char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            switch (random.nextInt(3)) {
+                case 0 -> builder.insert(position, c);
+                case 1 -> {
+                    if (builder.length() > 0) {
+                        builder.deleteCharAt(position);
+                    }
+                }
+                default -> {
+                    if (builder.length() > 0) {
+                        builder.setCharAt(position, c);
+                    }
+                }
+            }
+        }
+        return builder.toString();
+    }
+}